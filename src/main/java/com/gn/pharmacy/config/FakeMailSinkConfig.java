@@ -0,0 +1,61 @@
+package com.gn.pharmacy.config;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Local / test mail sink: with mail.fake-sink.enabled=true every message is logged and kept in memory
+ * instead of going to SMTP. Spring Boot's mail auto-configuration backs off when this bean exists.
+ */
+@Configuration
+public class FakeMailSinkConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "mail.fake-sink.enabled", havingValue = "true")
+    public JavaMailSender fakeMailSender() {
+        return new FakeMailSender();
+    }
+
+    public static class FakeMailSender extends JavaMailSenderImpl {
+
+        private static final Logger logger = LoggerFactory.getLogger(FakeMailSender.class);
+        private static final int KEEP_LAST = 200;
+
+        private final LinkedList<MimeMessage> delivered = new LinkedList<>();
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+            for (MimeMessage message : mimeMessages) {
+                try {
+                    logger.info("[fake-smtp] to={} subject={}", Arrays.toString(message.getAllRecipients()), message.getSubject());
+                } catch (MessagingException e) {
+                    logger.info("[fake-smtp] message accepted ({})", e.getMessage());
+                }
+                synchronized (delivered) {
+                    delivered.addLast(message);
+                    if (delivered.size() > KEEP_LAST) delivered.removeFirst();
+                }
+            }
+        }
+
+        public List<MimeMessage> getDelivered() {
+            synchronized (delivered) {
+                return Collections.unmodifiableList(new ArrayList<>(delivered));
+            }
+        }
+    }
+}
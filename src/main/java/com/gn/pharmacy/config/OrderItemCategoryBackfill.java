@@ -0,0 +1,70 @@
+package com.gn.pharmacy.config;
+
+import com.gn.pharmacy.service.OrderArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * One-off fill of order_items.item_category / item_sub_category for lines written before the columns
+ * existed, from the item's current category - the same key the existing rollup rows were built with.
+ * Runs in order_item_id ranges, each its own auto-committed UPDATE, over the hot and archive tables.
+ */
+@Component
+@Lazy(false)
+public class OrderItemCategoryBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderItemCategoryBackfill.class);
+
+    private static final String BACKFILL_SQL =
+            "UPDATE %s oi LEFT JOIN products p ON p.product_id = oi.product_id " +
+                    "LEFT JOIN mb_products m ON m.id = oi.mbp_id " +
+                    "SET oi.item_category = COALESCE(p.product_category, m.category, ''), " +
+                    "oi.item_sub_category = COALESCE(p.product_sub_category, m.sub_category, '') " +
+                    "WHERE oi.item_category IS NULL AND oi.order_item_id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${orders.item-category.backfill-chunk-size:5000}")
+    private int chunkSize;
+
+    public OrderItemCategoryBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // After the archive tables pick up the new columns (@Order(20)) and before the first rollup build (@Order(30))
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(25)
+    public void backfill() {
+        for (String table : new String[]{"order_items", OrderArchiveService.ORDER_ITEMS_ARCHIVE}) {
+            try {
+                backfill(table);
+            } catch (DataAccessException e) {
+                logger.warn("Category backfill of {} failed: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    private void backfill(String table) {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                "SELECT MIN(order_item_id) AS lo, MAX(order_item_id) AS hi FROM " + table + " WHERE item_category IS NULL");
+        if (bounds.get("lo") == null) return;
+
+        long lo = ((Number) bounds.get("lo")).longValue();
+        long hi = ((Number) bounds.get("hi")).longValue();
+        long updated = 0;
+        for (long start = lo; start <= hi; start += chunkSize) {
+            updated += jdbcTemplate.update(String.format(BACKFILL_SQL, table), start, Math.min(start + chunkSize - 1, hi));
+        }
+        logger.info("Backfilled item categories on {} lines of {}", updated, table);
+    }
+}
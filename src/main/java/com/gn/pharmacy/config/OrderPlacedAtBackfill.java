@@ -0,0 +1,90 @@
+package com.gn.pharmacy.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-off fill of orders_table.placed_at from the legacy order_date string. Runs after startup in
+ * order_id ranges, each range its own auto-committed UPDATE, so it never holds long locks and simply
+ * resumes where it stopped on the next start. A range that fails (strict mode rejects impossible dates
+ * such as 13/45/2024) is split in halves down to single orders, so only the bad rows are skipped; they
+ * stay NULL and are logged.
+ */
+@Component
+@Lazy(false)
+public class OrderPlacedAtBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderPlacedAtBackfill.class);
+
+    // The REGEXP guards keep STR_TO_DATE away from malformed values, which strict mode turns into errors
+    private static final String BACKFILL_SQL =
+            "UPDATE orders_table SET placed_at = CASE " +
+                    "WHEN order_date REGEXP '^[0-9]{1,2}/[0-9]{1,2}/[0-9]{4} [0-9]{1,2}:[0-9]{2} [AaPp][Mm]$' " +
+                    "THEN STR_TO_DATE(order_date, '%m/%d/%Y %h:%i %p') " +
+                    "WHEN order_date REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}' " +
+                    "THEN STR_TO_DATE(LEFT(order_date, 10), '%Y-%m-%d') " +
+                    "END " +
+                    "WHERE placed_at IS NULL AND order_date IS NOT NULL AND order_id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${orders.placed-at.backfill-chunk-size:5000}")
+    private int chunkSize;
+
+    public OrderPlacedAtBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void backfill() {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                "SELECT MIN(order_id) AS lo, MAX(order_id) AS hi FROM orders_table " +
+                        "WHERE placed_at IS NULL AND order_date IS NOT NULL");
+        if (bounds.get("lo") == null) return;
+
+        long lo = ((Number) bounds.get("lo")).longValue();
+        long hi = ((Number) bounds.get("hi")).longValue();
+        logger.info("Backfilling placed_at for orders {}..{} in chunks of {}", lo, hi, chunkSize);
+
+        long updated = 0;
+        List<Long> skipped = new ArrayList<>();
+        for (long start = lo; start <= hi; start += chunkSize) {
+            updated += update(start, Math.min(start + chunkSize - 1, hi), skipped);
+        }
+        if (!skipped.isEmpty()) {
+            logger.warn("placed_at backfill skipped {} orders whose order_date is not a valid date: {}", skipped.size(),
+                    skipped.size() > 50 ? skipped.subList(0, 50) + " ..." : skipped);
+        }
+
+        Long unparsed = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders_table WHERE placed_at IS NULL", Long.class);
+        logger.info("placed_at backfill done: {} orders updated, {} still without placed_at", updated, unparsed);
+    }
+
+    private long update(long start, long end, List<Long> skipped) {
+        try {
+            return jdbcTemplate.update(BACKFILL_SQL, start, end);
+        } catch (DataAccessException e) {
+            if (start == end) {
+                logger.debug("placed_at backfill failed for order {}: {}", start, e.getMessage());
+                skipped.add(start);
+                return 0;
+            }
+            long mid = start + (end - start) / 2;
+            return update(start, mid, skipped) + update(mid + 1, end, skipped);
+        }
+    }
+}
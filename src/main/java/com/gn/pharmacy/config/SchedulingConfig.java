@@ -0,0 +1,13 @@
+package com.gn.pharmacy.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (ledger snapshots / compaction, sweeps, refreshes).
+ * NOTE: spring.main.lazy-initialization=true, so beans owning @Scheduled methods must be @Lazy(false).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
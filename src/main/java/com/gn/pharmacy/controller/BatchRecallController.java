@@ -0,0 +1,69 @@
+package com.gn.pharmacy.controller;
+
+import com.gn.pharmacy.dto.inventory.BatchRecallLineDto;
+import com.gn.pharmacy.dto.inventory.BatchRecallSummaryDto;
+import com.gn.pharmacy.service.BatchTraceabilityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory/recall")
+public class BatchRecallController {
+
+    @Autowired
+    private BatchTraceabilityService batchTraceabilityService;
+
+    /**
+     * Orders / customers / quantities that received the given batch, newest order first
+     */
+    @GetMapping("/{batchNo}")
+    public ResponseEntity<Map<String, Object>> getRecall(
+            @PathVariable String batchNo,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) Long mbpId,
+            @RequestParam(defaultValue = "false") boolean includeCancelled,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+
+        BatchRecallSummaryDto summary = batchTraceabilityService.getRecallSummary(batchNo, productId, mbpId, includeCancelled);
+        List<BatchRecallLineDto> lines = batchTraceabilityService.getRecallLines(
+                batchNo, productId, mbpId, includeCancelled, page, size);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("summary", summary);
+        response.put("data", lines);
+        response.put("currentPage", page);
+        response.put("pageSize", size);
+        // Lines are per allocation (an order can hold several), so a full page is the "more" signal
+        response.put("hasNext", lines.size() == size);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Full recall list as CSV, streamed row by row (for regulators)
+     */
+    @GetMapping("/{batchNo}/export")
+    public ResponseEntity<StreamingResponseBody> exportRecall(
+            @PathVariable String batchNo,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) Long mbpId,
+            @RequestParam(defaultValue = "false") boolean includeCancelled) {
+
+        StreamingResponseBody body = out ->
+                batchTraceabilityService.exportRecallCsv(batchNo, productId, mbpId, includeCancelled, out);
+
+        String fileName = "recall-" + batchNo.replaceAll("[^A-Za-z0-9._-]", "_") + ".csv";
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(new MediaType("text", "csv"))
+                .body(body);
+    }
+}
@@ -8,13 +8,16 @@ import com.gn.pharmacy.repository.CartItemRepository;
 import com.gn.pharmacy.repository.MbPRepository;
 import com.gn.pharmacy.repository.ProductRepository;
 import com.gn.pharmacy.repository.UserRepository;
+import com.gn.pharmacy.service.StockHoldService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,6 +31,7 @@ public class CartController {
     @Autowired private ProductRepository productRepository;
     @Autowired private MbPRepository mbpRepository;
     @Autowired private UserRepository userRepository; // Added
+    @Autowired private StockHoldService stockHoldService;
 
     @PostMapping("/add-cart-items")
     public ResponseEntity<Map<String, Object>> addToCart(@RequestBody Map<String, Object> request) {
@@ -144,7 +148,7 @@ public class CartController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Invalid type. Must be PRODUCT or MBP"));
             }
 
-            cartItemRepository.save(item);
+            item = stockHoldService.saveWithHold(item, false);
             logger.info("Cart item saved successfully. CartItemId: {}", item.getId());
 
             return ResponseEntity.ok(Map.of(
@@ -152,8 +156,11 @@ public class CartController {
                     "message", "Added to cart",
                     "cartItemId", item.getId(),
                     "quantity", item.getQuantity(),
-                    "productType", productType.name()
+                    "productType", productType.name(),
+                    "holdExpiresAt", item.getHoldExpiresAt()
             ));
+        } catch (StockHoldService.InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage(), "available", e.getAvailable()));
         } catch (Exception e) {
             logger.error("Error adding to cart", e);
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid request data: " + e.getMessage()));
@@ -180,6 +187,9 @@ public class CartController {
             map.put("selectedSize", item.getSelectedSize());
             map.put("addedDate", item.getAddedDate());
             map.put("productType", item.getProductType().name()); // Include product type
+            boolean holdActive = item.getHoldExpiresAt() != null && item.getHoldExpiresAt().isAfter(LocalDateTime.now());
+            map.put("heldQuantity", holdActive ? item.getHeldQuantity() : 0);
+            map.put("holdExpiresAt", holdActive ? item.getHoldExpiresAt() : null);
 
             if (item.getProduct() != null) {
                 ProductEntity p = item.getProduct();
@@ -329,19 +339,22 @@ public class CartController {
                 if (productType != null) {
                     item.setProductType(productType);
                 }
-                cartItemRepository.save(item);
+                item = stockHoldService.saveWithHold(item, false);
                 logger.info("Cart item updated successfully - CartItemId: {}, New Quantity: {}", item.getId(), quantity);
 
                 return ResponseEntity.ok(Map.of(
                         "status", "success",
                         "message", "Cart updated successfully",
                         "cartItemId", item.getId(),
-                        "newQuantity", quantity
+                        "newQuantity", quantity,
+                        "holdExpiresAt", item.getHoldExpiresAt()
                 ));
             }
 
             return ResponseEntity.badRequest().body(Map.of("error", "Item not found in cart"));
 
+        } catch (StockHoldService.InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage(), "available", e.getAvailable()));
         } catch (Exception e) {
             logger.error("Error updating cart item", e);
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid request: " + e.getMessage()));
@@ -432,7 +445,8 @@ public class CartController {
                     }
                 }
                 if (item != null) {
-                    cartItemRepository.save(item);
+                    // Merge never rejects items; the hold covers whatever is still available
+                    stockHoldService.saveWithHold(item, true);
                 }
             }
             return ResponseEntity.ok("Cart merged");
@@ -1,11 +1,16 @@
 package com.gn.pharmacy.controller;
 
 import com.gn.pharmacy.dto.dashboard.*;
+import com.gn.pharmacy.service.DashboardCompositeService;
 import com.gn.pharmacy.service.DashboardService;
+import com.gn.pharmacy.service.DashboardSnapshotService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.Year;
 import java.util.List;
 
 @RestController
@@ -15,32 +20,98 @@ public class DashboardController {
     @Autowired
     private final DashboardService dashboardService;
 
-    public DashboardController(DashboardService dashboardService){
+    private final DashboardSnapshotService snapshotService;
+
+    private final DashboardCompositeService compositeService;
+
+    public DashboardController(DashboardService dashboardService, DashboardSnapshotService snapshotService,
+                               DashboardCompositeService compositeService){
         this.dashboardService = dashboardService;
+        this.snapshotService = snapshotService;
+        this.compositeService = compositeService;
+    }
+
+    // Responses served from the snapshot carry its build time; anything else is computed live
+    private static final String GENERATED_AT_HEADER = "X-Data-Generated-At";
+
+    /**
+     * All widgets in one call, from the in-memory snapshot.
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<ApiResponse<DashboardSnapshotDto>> getSnapshot() {
+        DashboardSnapshotDto snapshot = snapshotService.getSnapshot();
+        return fromSnapshot(snapshot, snapshot);
     }
 
+    /**
+     * All widgets computed live in parallel. Widgets that fail or time out come back null and are listed
+     * in errors; only when every widget failed is the response a 503.
+     */
+    @GetMapping("/all")
+    public ResponseEntity<ApiResponse<DashboardAllDto>> getAll(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(defaultValue = "10") int prescriptionsLimit,
+            @RequestParam(defaultValue = "50") int lowStockLimit,
+            @RequestParam(defaultValue = "10") int topSellingLimit,
+            @RequestParam(defaultValue = "3") int topSellingMonths) {
+        DashboardAllDto all = compositeService.getAll(year != null ? year : Year.now().getValue(),
+                prescriptionsLimit, lowStockLimit, topSellingLimit, topSellingMonths);
+        if (all.errors().size() == DashboardCompositeService.WIDGET_COUNT) {
+            return ResponseEntity.status(503).body(new ApiResponse<>(false, all, "All dashboard widgets failed", 503));
+        }
+        return ResponseEntity.ok(ApiResponse.success(all, all.isComplete() ? "Success" : "Partial result, failed: " + all.errors().keySet()));
+    }
     @GetMapping("/summary")
     public ResponseEntity<ApiResponse<DashboardSummaryDto>> getSummary() {
-        return ResponseEntity.ok(ApiResponse.success(dashboardService.getDashboardSummary()));
+        DashboardSnapshotDto snapshot = snapshotService.getSnapshot();
+        return fromSnapshot(snapshot, snapshot.summary());
     }
 
     @GetMapping("/revenue-monthly")
     public ResponseEntity<ApiResponse<MonthlyRevenueDto>> getMonthlyRevenue(@RequestParam(defaultValue = "2026") int year) {
+        DashboardSnapshotDto snapshot = snapshotService.getSnapshot();
+        if (year == snapshot.revenueYear()) {
+            return fromSnapshot(snapshot, snapshot.monthlyRevenue());
+        }
         return ResponseEntity.ok(ApiResponse.success(dashboardService.getMonthlyRevenue(year)));
     }
 
+    /**
+     * Revenue per day / week / month over a date window (both ends inclusive, yyyy-MM-dd).
+     */
+    @GetMapping("/revenue-series")
+    public ResponseEntity<ApiResponse<RevenueSeriesDto>> getRevenueSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "month") String granularity) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(dashboardService.getRevenueSeries(from, to, granularity)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage(), 400));
+        }
+    }
+
     @GetMapping("/category-distribution")
     public ResponseEntity<ApiResponse<CategoryDistributionDto>> getCategoryDistribution() {
-        return ResponseEntity.ok(ApiResponse.success(dashboardService.getCategoryDistribution()));
+        DashboardSnapshotDto snapshot = snapshotService.getSnapshot();
+        return fromSnapshot(snapshot, snapshot.categoryDistribution());
     }
 
     @GetMapping("/prescriptions/recent")
     public ResponseEntity<ApiResponse<List<RecentPrescriptionDto>>> getRecentPrescriptions(@RequestParam(defaultValue = "10") int limit) {
+        DashboardSnapshotDto snapshot = snapshotService.getSnapshot();
+        if (limit <= snapshot.recentPrescriptions().size()) {
+            return fromSnapshot(snapshot, snapshot.recentPrescriptions().subList(0, Math.max(limit, 0)));
+        }
         return ResponseEntity.ok(ApiResponse.success(dashboardService.getRecentPrescriptions(limit)));
     }
 
     @GetMapping("/inventory/low-stock")
     public ResponseEntity<ApiResponse<List<LowStockDto>>> getLowStock(@RequestParam(defaultValue = "50") int limit) {
+        DashboardSnapshotDto snapshot = snapshotService.getSnapshot();
+        if (limit <= snapshot.lowStockItems().size()) {
+            return fromSnapshot(snapshot, snapshot.lowStockItems().subList(0, Math.max(limit, 0)));
+        }
         return ResponseEntity.ok(ApiResponse.success(dashboardService.getLowStockItems(limit)));
     }
 
@@ -48,11 +119,22 @@ public class DashboardController {
     public ResponseEntity<ApiResponse<List<TopSellingDto>>> getTopSelling(
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "3") int months) {
+        DashboardSnapshotDto snapshot = snapshotService.getSnapshot();
+        if (months == snapshot.topSellingMonths() && limit <= snapshot.topSelling().size()) {
+            return fromSnapshot(snapshot, snapshot.topSelling().subList(0, Math.max(limit, 0)));
+        }
         return ResponseEntity.ok(ApiResponse.success(dashboardService.getTopSellingProducts(limit, months)));
     }
 
     @GetMapping("/inventory/expiry-summary")
     public ResponseEntity<ApiResponse<ExpirySummaryDto>> getExpirySummary() {
-        return ResponseEntity.ok(ApiResponse.success(dashboardService.getExpirySummary()));
+        DashboardSnapshotDto snapshot = snapshotService.getSnapshot();
+        return fromSnapshot(snapshot, snapshot.expirySummary());
+    }
+
+    private static <T> ResponseEntity<ApiResponse<T>> fromSnapshot(DashboardSnapshotDto snapshot, T body) {
+        return ResponseEntity.ok()
+                .header(GENERATED_AT_HEADER, snapshot.generatedAt().toString())
+                .body(ApiResponse.success(body));
     }
 }
\ No newline at end of file
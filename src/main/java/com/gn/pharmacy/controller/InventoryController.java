@@ -1,13 +1,18 @@
 package com.gn.pharmacy.controller;
 
+import com.gn.pharmacy.dto.inventory.InventoryImportResultDto;
 import com.gn.pharmacy.dto.response.BatchInfoDTO;
 import com.gn.pharmacy.dto.response.BatchWithProductDTO;
 import com.gn.pharmacy.dto.response.ProductAdminResponseDTO;
+import com.gn.pharmacy.service.InventoryImportService;
 import com.gn.pharmacy.service.InventoryService;
+import com.gn.pharmacy.service.LowStockTrackerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,6 +25,12 @@ public class InventoryController {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private LowStockTrackerService lowStockTrackerService;
+
+    @Autowired
+    private InventoryImportService inventoryImportService;
+
     // ==================== EXISTING ENDPOINTS (UNCHANGED FOR BACKWARD COMPATIBILITY) ====================
 
     @GetMapping("/product/{productId}")
@@ -88,4 +99,41 @@ public class InventoryController {
         inventoryService.deleteBatch(inventoryId);
         return ResponseEntity.ok("Batch deleted successfully.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Set (or clear with no threshold) the low-stock alert threshold of a product OR an MbP item
+     */
+    @PatchMapping("/low-stock-threshold")
+    public ResponseEntity<String> updateLowStockThreshold(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) Long mbpId,
+            @RequestParam(required = false) Integer threshold) {
+
+        if ((productId == null) == (mbpId == null)) {
+            throw new IllegalArgumentException("Exactly one of productId or mbpId must be provided.");
+        }
+        if (productId != null) {
+            lowStockTrackerService.updateProductThreshold(productId, threshold);
+        } else {
+            lowStockTrackerService.updateMbpThreshold(mbpId, threshold);
+        }
+        return ResponseEntity.ok("Low-stock threshold updated successfully.");
+    }
+
+    /**
+     * Bulk import of batches from a .csv or .xlsx file, one row per variant:
+     * SKU, Batch No, Size, Quantity, Mfg Date, Expiry Date, Stock Status (optional).
+     * Valid rows are imported even when other rows fail; failures are listed per row.
+     */
+    @PostMapping(value = "/import-batches", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importBatches(@RequestPart("file") MultipartFile file) {
+        try {
+            InventoryImportResultDto result = inventoryImportService.importBatches(file);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
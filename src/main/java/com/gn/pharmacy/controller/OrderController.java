@@ -3,30 +3,54 @@ package com.gn.pharmacy.controller;
 import com.gn.pharmacy.dto.request.ExchangeRequestDto;
 import com.gn.pharmacy.dto.request.OrderRequestDto;
 import com.gn.pharmacy.dto.response.OrderResponseDto;
+import com.gn.pharmacy.service.IdempotencyService;
 import com.gn.pharmacy.service.OrderService;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @Slf4j
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
     private final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, IdempotencyService idempotencyService) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/create-order")
-    public ResponseEntity<OrderResponseDto> createOrder(@RequestBody OrderRequestDto orderRequestDto) {
-        return ResponseEntity.ok(orderService.createOrder(orderRequestDto));
+    public ResponseEntity<?> createOrder(
+            @RequestBody OrderRequestDto orderRequestDto,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            if (idempotencyKey == null) {
+                return ResponseEntity.ok(orderService.createOrder(orderRequestDto));
+            }
+            // Keys are scoped per user so two customers can't collide on the same client-generated key
+            IdempotencyService.Result<OrderResponseDto> result = idempotencyService.execute(
+                    "CREATE_ORDER:" + orderRequestDto.getUserId(), idempotencyKey.trim(), orderRequestDto,
+                    OrderResponseDto.class, () -> orderService.createOrder(orderRequestDto));
+            if (result.replayed()) {
+                logger.info("Replayed create-order for Idempotency-Key {}", idempotencyKey);
+            }
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(result.replayed()))
+                    .body(result.body());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("get-by-order-id/{orderId}")
@@ -40,16 +64,28 @@ public class OrderController {
     }
 
     @PutMapping("/update-by-order-id/{orderId}")
-    public ResponseEntity<OrderResponseDto> updateOrder(
+    public ResponseEntity<?> updateOrder(
             @PathVariable Long orderId,
             @RequestBody OrderRequestDto orderRequestDto) {
-        return ResponseEntity.ok(orderService.updateOrder(orderId, orderRequestDto));
+        try {
+            return ResponseEntity.ok(orderService.updateOrder(orderId, orderRequestDto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
     }
 
     @PatchMapping("/patch-by-order-id/{orderId}")
-    public ResponseEntity<OrderResponseDto> patchOrder(@PathVariable Long orderId,
-                                                       @RequestBody OrderRequestDto orderRequestDto) {
-        return ResponseEntity.ok(orderService.patchOrder(orderId, orderRequestDto));
+    public ResponseEntity<?> patchOrder(@PathVariable Long orderId,
+                                        @RequestBody OrderRequestDto orderRequestDto) {
+        try {
+            return ResponseEntity.ok(orderService.patchOrder(orderId, orderRequestDto));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/delete-by-order-id/{orderId}")
@@ -76,10 +112,14 @@ public class OrderController {
 
     // Add to OrderController.java
     @PostMapping("/request-exchange/{orderItemId}")
-    public ResponseEntity<OrderResponseDto> requestExchange(
+    public ResponseEntity<?> requestExchange(
             @PathVariable Long orderItemId,
             @RequestBody ExchangeRequestDto exchangeRequestDto) {
         logger.info("Received exchange request for order item ID: {}", orderItemId);
-        return ResponseEntity.ok(orderService.requestExchange(orderItemId, exchangeRequestDto));
+        try {
+            return ResponseEntity.ok(orderService.requestExchange(orderItemId, exchangeRequestDto));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
     }
 }
\ No newline at end of file
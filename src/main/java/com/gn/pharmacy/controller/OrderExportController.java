@@ -0,0 +1,50 @@
+package com.gn.pharmacy.controller;
+
+import com.gn.pharmacy.service.OrderExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/orders/export")
+public class OrderExportController {
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    /**
+     * All order lines (one per order item) in the range as CSV or NDJSON, streamed from the database
+     */
+    @GetMapping
+    public ResponseEntity<?> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status) {
+
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid format. Must be csv or ndjson"));
+        }
+
+        StreamingResponseBody body = out -> orderExportService.exportOrderLines(exportFormat, from, to, status, out);
+
+        boolean csv = exportFormat == OrderExportService.Format.CSV;
+        String fileName = "orders" + (from != null ? "-" + from : "") + (to != null ? "-to-" + to : "")
+                + (csv ? ".csv" : ".ndjson");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(csv ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .body(body);
+    }
+}
@@ -0,0 +1,89 @@
+package com.gn.pharmacy.controller;
+
+import com.gn.pharmacy.dto.order.BulkCancelRequestDto;
+import com.gn.pharmacy.dto.order.OrderStatusHistoryDto;
+import com.gn.pharmacy.dto.order.OrderStatusTransitionRequestDto;
+import com.gn.pharmacy.dto.order.OrderStatusTransitionResultDto;
+import com.gn.pharmacy.entity.OrderStatus;
+import com.gn.pharmacy.service.OrderCancellationService;
+import com.gn.pharmacy.service.OrderLifecycleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/orders")
+public class OrderStatusController {
+
+    @Autowired
+    private OrderLifecycleService orderLifecycleService;
+
+    @Autowired
+    private OrderCancellationService orderCancellationService;
+
+    /**
+     * Moves many orders to one status (e.g. mark a day's dispatch SHIPPED). Orders not in a legal
+     * source state are listed in the response and left unchanged.
+     */
+    @PostMapping("/status/bulk")
+    public ResponseEntity<?> bulkTransition(@RequestBody OrderStatusTransitionRequestDto request) {
+        try {
+            OrderStatus target = OrderStatus.parse(request.status());
+            OrderStatusTransitionResultDto result = orderLifecycleService.transition(
+                    request.orderIds(), target, request.changedBy(), request.note());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Cancels many orders at once (e.g. after a courier failure) and restores their stock to the
+     * batches it came from. The response lists every restored batch variant.
+     */
+    @PostMapping("/cancel/bulk")
+    public ResponseEntity<?> bulkCancel(@RequestBody BulkCancelRequestDto request) {
+        try {
+            return ResponseEntity.ok(orderCancellationService.cancelOrders(
+                    request.orderIds(), request.changedBy(), request.note()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PatchMapping("/{orderId}/status")
+    public ResponseEntity<?> transition(@PathVariable Long orderId,
+                                        @RequestParam String status,
+                                        @RequestParam(required = false) String changedBy,
+                                        @RequestParam(required = false) String note) {
+        try {
+            return ResponseEntity.ok(orderLifecycleService.transition(orderId, OrderStatus.parse(status), changedBy, note));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{orderId}/status-history")
+    public ResponseEntity<List<OrderStatusHistoryDto>> getHistory(@PathVariable Long orderId) {
+        return ResponseEntity.ok(orderLifecycleService.getHistory(orderId));
+    }
+
+    // Allowed next states per status, for admin UIs
+    @GetMapping("/status/transitions")
+    public ResponseEntity<Map<OrderStatus, Set<OrderStatus>>> getTransitions() {
+        Map<OrderStatus, Set<OrderStatus>> transitions = new EnumMap<>(OrderStatus.class);
+        Arrays.stream(OrderStatus.values()).forEach(s -> transitions.put(s, s.nextStates()));
+        return ResponseEntity.ok(transitions);
+    }
+}
@@ -2,12 +2,22 @@ package com.gn.pharmacy.controller;
 
 import com.gn.pharmacy.dto.dashboard.ApiResponse;
 import com.gn.pharmacy.dto.reports.*;
+import com.gn.pharmacy.service.CategoryCatalogService;
+import com.gn.pharmacy.service.CustomerStatsService;
+import com.gn.pharmacy.service.ReportExportService;
 import com.gn.pharmacy.service.ReportsService;
+import com.gn.pharmacy.service.SalesRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -17,8 +27,25 @@ public class ReportsController {
     @Autowired
     private final ReportsService reportsService;
 
-    public ReportsController(ReportsService reportsService){
+    private final SalesRollupService salesRollupService;
+
+    private final CategoryCatalogService categoryCatalogService;
+
+    private final ReportExportService reportExportService;
+
+    private final CustomerStatsService customerStatsService;
+
+    private static final MediaType XLSX =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    public ReportsController(ReportsService reportsService, SalesRollupService salesRollupService,
+                             CategoryCatalogService categoryCatalogService, ReportExportService reportExportService,
+                             CustomerStatsService customerStatsService){
         this.reportsService = reportsService;
+        this.salesRollupService = salesRollupService;
+        this.categoryCatalogService = categoryCatalogService;
+        this.reportExportService = reportExportService;
+        this.customerStatsService = customerStatsService;
     }
 
     /**
@@ -30,7 +57,16 @@ public class ReportsController {
     }
 
     /**
-     * Sales Report - Paginated with filters
+     * Categories and subcategories with total / active / approved / deleted item counts
+     */
+    @GetMapping("/categories/catalog")
+    public ResponseEntity<ApiResponse<CategoryCatalogDto>> getCategoryCatalog() {
+        return ResponseEntity.ok(ApiResponse.success(categoryCatalogService.getCatalog()));
+    }
+
+    /**
+     * Sales Report - Paginated with filters. For deep pages pass the previous page's nextCursor as cursor
+     * (keyset paging); page is then ignored.
      */
     @GetMapping("/sales")
     public ResponseEntity<ApiResponse<PagedSalesReportDto>> getSalesReport(
@@ -39,10 +75,11 @@ public class ReportsController {
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String subcategory,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String cursor) {
 
         return ResponseEntity.ok(ApiResponse.success(
-                reportsService.getSalesReport(from, to, category, subcategory, page, limit)
+                reportsService.getSalesReport(from, to, category, subcategory, page, limit, cursor)
         ));
     }
 
@@ -95,6 +132,92 @@ public class ReportsController {
         ));
     }
 
+    /**
+     * Sales report as .xlsx - every matching line, streamed
+     */
+    @GetMapping("/sales/export")
+    public ResponseEntity<StreamingResponseBody> exportSalesReport(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String subcategory) {
+        return xlsx("sales-report", from, to,
+                out -> reportExportService.exportSales(from, to, category, subcategory, out));
+    }
+
+    /**
+     * Inventory report as .xlsx - one row per batch
+     */
+    @GetMapping("/inventory/export")
+    public ResponseEntity<StreamingResponseBody> exportInventoryReport(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String subcategory,
+            @RequestParam(defaultValue = "false") boolean lowStockOnly) {
+        return xlsx("inventory-report", null, null,
+                out -> reportExportService.exportInventory(category, subcategory, lowStockOnly, out));
+    }
+
+    /**
+     * Customers report as .xlsx - one row per customer over the range
+     */
+    @GetMapping("/customers/export")
+    public ResponseEntity<StreamingResponseBody> exportCustomerReport(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        return xlsx("customer-report", from, to,
+                out -> reportExportService.exportCustomers(from, to, out));
+    }
+
+    /**
+     * Financial summary as .xlsx - one row per period plus a total row
+     */
+    @GetMapping("/financial/export")
+    public ResponseEntity<StreamingResponseBody> exportFinancialSummary(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "month") String groupBy) {
+        return xlsx("financial-summary", from, to,
+                out -> reportExportService.exportFinancial(from, to, groupBy, out));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> xlsx(String name, String from, String to, StreamingResponseBody body) {
+        String fileName = name + (from != null && !from.isEmpty() ? "-" + from : "")
+                + (to != null && !to.isEmpty() ? "-to-" + to : "");
+        fileName = fileName.replaceAll("[^A-Za-z0-9_-]", "") + ".xlsx";     // dates come straight from the query string
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(XLSX)
+                .body(body);
+    }
+
+    /**
+     * Recompute the daily sales rollups behind the sales / financial reports (backfill or repair).
+     * Without dates the whole order history is rebuilt.
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> rebuildRollups(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            long rows = salesRollupService.rebuild(from, to);
+            return ResponseEntity.ok(ApiResponse.success(Map.of("rowsWritten", rows)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage(), 400));
+        }
+    }
+
+    /**
+     * Recompute customer_stats for every user (it also runs nightly)
+     */
+    @PostMapping("/customer-stats/reconcile")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> reconcileCustomerStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(Map.of("users", customerStatsService.reconcile())));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(ApiResponse.error(e.getMessage(), 409));
+        }
+    }
+
     /**
      * Quick overview summary for all report types (optional - useful for cards)
      */
@@ -0,0 +1,68 @@
+package com.gn.pharmacy.controller;
+
+import com.gn.pharmacy.dto.inventory.StockAtTimeDto;
+import com.gn.pharmacy.dto.inventory.StockMovementDto;
+import com.gn.pharmacy.service.StockLedgerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/inventory/ledger")
+public class StockLedgerController {
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    /**
+     * Stock of a product or MBP as it was at the given time (ISO date-time, defaults to now)
+     */
+    @GetMapping("/stock-at")
+    public ResponseEntity<StockAtTimeDto> getStockAt(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) Long mbpId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(stockLedgerService.getStockAt(productId, mbpId, at));
+    }
+
+    /**
+     * Ledger movements for a product or MBP, newest first
+     */
+    @GetMapping("/movements")
+    public ResponseEntity<Map<String, Object>> getMovements(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) Long mbpId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Page<StockMovementDto> resultPage = stockLedgerService.getMovements(productId, mbpId, page, size);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", resultPage.getContent());
+        response.put("currentPage", resultPage.getNumber());
+        response.put("totalItems", resultPage.getTotalElements());
+        response.put("totalPages", resultPage.getTotalPages());
+        response.put("pageSize", resultPage.getSize());
+        response.put("hasNext", resultPage.hasNext());
+        response.put("hasPrevious", resultPage.hasPrevious());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Take a stock snapshot now (normally done by the nightly job)
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> takeSnapshot() {
+        Long snapshotId = stockLedgerService.takeSnapshot();
+        Map<String, Object> response = new HashMap<>();
+        response.put("snapshotId", snapshotId);
+        return ResponseEntity.ok(response);
+    }
+}
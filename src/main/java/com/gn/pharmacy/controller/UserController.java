@@ -1,8 +1,10 @@
 package com.gn.pharmacy.controller;
 
+import com.gn.pharmacy.dto.reports.CustomerStatsDto;
 import com.gn.pharmacy.dto.request.UserDTO;
 import com.gn.pharmacy.dto.request.UserRequestDto;
 import com.gn.pharmacy.dto.response.UserResponseDto;
+import com.gn.pharmacy.service.CustomerStatsService;
 import com.gn.pharmacy.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,10 +20,12 @@ import java.util.Map;
 public class UserController {
 
     private final UserService userService;
+    private final CustomerStatsService customerStatsService;
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, CustomerStatsService customerStatsService) {
         this.userService = userService;
+        this.customerStatsService = customerStatsService;
     }
 
     @PostMapping("/create-user")
@@ -61,6 +65,13 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    // Lifetime order count / value, last order and favourite category from customer_stats
+    @GetMapping("/get-stats-by-user-id/{userId}")
+    public ResponseEntity<CustomerStatsDto> getUserStats(@PathVariable Long userId) {
+        logger.info("Request received to get order stats for user ID: {}", userId);
+        return ResponseEntity.ok(customerStatsService.getStats(userId));
+    }
+
     @GetMapping("/get-all-users")
     public ResponseEntity<List<UserResponseDto>> getAllUsers() {
         logger.info("Request received to get all users");
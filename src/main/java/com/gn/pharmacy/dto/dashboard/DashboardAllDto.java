@@ -0,0 +1,23 @@
+package com.gn.pharmacy.dto.dashboard;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Widgets that failed or timed out are null and listed in errors (widget name -> reason)
+public record DashboardAllDto(
+        LocalDateTime generatedAt,
+        long elapsedMillis,
+        DashboardSummaryDto summary,
+        MonthlyRevenueDto monthlyRevenue,
+        CategoryDistributionDto categoryDistribution,
+        List<RecentPrescriptionDto> recentPrescriptions,
+        List<LowStockDto> lowStockItems,
+        List<TopSellingDto> topSelling,
+        ExpirySummaryDto expirySummary,
+        Map<String, String> errors
+) {
+    public boolean isComplete() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,19 @@
+package com.gn.pharmacy.dto.dashboard;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Every dashboard widget computed in one background pass; list widgets hold the largest size served
+public record DashboardSnapshotDto(
+        LocalDateTime generatedAt,
+        long buildMillis,
+        DashboardSummaryDto summary,
+        int revenueYear,
+        MonthlyRevenueDto monthlyRevenue,
+        CategoryDistributionDto categoryDistribution,
+        List<RecentPrescriptionDto> recentPrescriptions,
+        List<LowStockDto> lowStockItems,
+        int topSellingMonths,
+        List<TopSellingDto> topSelling,
+        ExpirySummaryDto expirySummary
+) {}
@@ -0,0 +1,14 @@
+package com.gn.pharmacy.dto.dashboard;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// labels are bucket start dates (yyyy-MM-dd; weeks start on Monday), one revenue per label, gaps filled with 0
+public record RevenueSeriesDto(
+        String granularity,
+        LocalDate from,
+        LocalDate to,
+        List<String> labels,
+        List<BigDecimal> revenues
+) {}
@@ -0,0 +1,21 @@
+package com.gn.pharmacy.dto.inventory;
+
+import java.time.LocalDateTime;
+
+public record BatchRecallLineDto(
+        Long orderId,
+        Long orderItemId,
+        String orderDate,
+        String orderStatus,
+        Long userId,
+        String customerName,
+        String customerEmail,
+        String customerPhone,
+        String itemName,
+        Long productId,
+        Long mbpId,
+        String batchNo,
+        String size,
+        int quantity,
+        LocalDateTime allocatedAt
+) {}
@@ -0,0 +1,8 @@
+package com.gn.pharmacy.dto.inventory;
+
+public record BatchRecallSummaryDto(
+        String batchNo,
+        long orders,
+        long customers,
+        long totalQuantity
+) {}
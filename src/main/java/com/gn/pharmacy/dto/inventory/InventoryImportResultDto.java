@@ -0,0 +1,14 @@
+package com.gn.pharmacy.dto.inventory;
+
+import java.util.List;
+
+public record InventoryImportResultDto(
+        String fileName,
+        int totalRows,
+        int importedRows,
+        int importedBatches,
+        int failedRows,
+        int chunksCommitted,
+        long durationMs,
+        List<InventoryImportRowErrorDto> errors
+) {}
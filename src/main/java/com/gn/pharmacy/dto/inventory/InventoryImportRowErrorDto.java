@@ -0,0 +1,8 @@
+package com.gn.pharmacy.dto.inventory;
+
+public record InventoryImportRowErrorDto(
+        int rowNumber,          // 1-based row in the file, header is row 1
+        String sku,
+        String batchNo,
+        String message
+) {}
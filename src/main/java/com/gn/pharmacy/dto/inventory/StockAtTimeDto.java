@@ -0,0 +1,15 @@
+package com.gn.pharmacy.dto.inventory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record StockAtTimeDto(
+        String itemType,                // "PRODUCT" or "MBP"
+        Long itemId,
+        LocalDateTime at,
+        Long snapshotId,
+        LocalDateTime snapshotTakenAt,
+        long movementsReplayed,
+        int totalQuantity,
+        List<StockAtTimeLineDto> lines
+) {}
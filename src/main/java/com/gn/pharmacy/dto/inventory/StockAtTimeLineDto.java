@@ -0,0 +1,8 @@
+package com.gn.pharmacy.dto.inventory;
+
+public record StockAtTimeLineDto(
+        Long inventoryId,
+        String batchNo,
+        String size,
+        int quantity
+) {}
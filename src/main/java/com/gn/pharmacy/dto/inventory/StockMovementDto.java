@@ -0,0 +1,16 @@
+package com.gn.pharmacy.dto.inventory;
+
+import java.time.LocalDateTime;
+
+public record StockMovementDto(
+        Long movementId,
+        Long inventoryId,
+        Long productId,
+        Long mbpId,
+        String batchNo,
+        String size,
+        int quantityDelta,
+        String reason,
+        String reference,
+        LocalDateTime occurredAt
+) {}
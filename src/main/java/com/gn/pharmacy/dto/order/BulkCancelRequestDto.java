@@ -0,0 +1,9 @@
+package com.gn.pharmacy.dto.order;
+
+import java.util.List;
+
+public record BulkCancelRequestDto(
+        List<Long> orderIds,
+        String changedBy,
+        String note
+) {}
@@ -0,0 +1,13 @@
+package com.gn.pharmacy.dto.order;
+
+import java.util.List;
+
+public record OrderCancellationResultDto(
+        int requested,
+        List<Long> cancelled,
+        int alreadyCancelled,
+        List<Long> notFound,
+        List<RejectedTransitionDto> rejected,
+        long unitsRestored,
+        List<StockRestorationDto> restorations
+) {}
@@ -0,0 +1,12 @@
+package com.gn.pharmacy.dto.order;
+
+import java.time.LocalDateTime;
+
+public record OrderStatusHistoryDto(
+        Long orderId,
+        String fromStatus,
+        String toStatus,
+        LocalDateTime changedAt,
+        String changedBy,
+        String note
+) {}
@@ -0,0 +1,10 @@
+package com.gn.pharmacy.dto.order;
+
+import java.util.List;
+
+public record OrderStatusTransitionRequestDto(
+        List<Long> orderIds,
+        String status,
+        String changedBy,
+        String note
+) {}
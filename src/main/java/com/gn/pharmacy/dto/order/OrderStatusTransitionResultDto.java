@@ -0,0 +1,12 @@
+package com.gn.pharmacy.dto.order;
+
+import java.util.List;
+
+public record OrderStatusTransitionResultDto(
+        String targetStatus,
+        int requested,
+        int updated,
+        int alreadyInTarget,
+        List<Long> notFound,
+        List<RejectedTransitionDto> rejected
+) {}
@@ -0,0 +1,6 @@
+package com.gn.pharmacy.dto.order;
+
+public record RejectedTransitionDto(
+        Long orderId,
+        String currentStatus
+) {}
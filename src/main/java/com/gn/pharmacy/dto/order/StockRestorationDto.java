@@ -0,0 +1,12 @@
+package com.gn.pharmacy.dto.order;
+
+// Units put back into one batch variant; returnBatch = a RETURN- batch created because no matching variant existed
+public record StockRestorationDto(
+        Long inventoryId,
+        String batchNo,
+        Long productId,
+        Long mbpId,
+        String size,
+        int quantity,
+        boolean returnBatch
+) {}
@@ -0,0 +1,14 @@
+package com.gn.pharmacy.dto.reports;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record CategoryCatalogDto(
+        LocalDateTime generatedAt,
+        List<CategoryEntry> categories
+) {
+    public record CategoryEntry(
+            CategoryCountsDto counts,
+            List<CategoryCountsDto> subcategories
+    ) {}
+}
@@ -0,0 +1,10 @@
+package com.gn.pharmacy.dto.reports;
+
+// active = approved and not deleted; approved / deleted are counted independently of each other
+public record CategoryCountsDto(
+        String name,
+        long total,
+        long active,
+        long approved,
+        long deleted
+) {}
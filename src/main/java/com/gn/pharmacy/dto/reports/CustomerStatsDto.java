@@ -0,0 +1,16 @@
+package com.gn.pharmacy.dto.reports;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record CustomerStatsDto(
+        Long userId,
+        long orderCount,
+        long cancelledCount,
+        long completedCount,
+        BigDecimal lifetimeValue,
+        LocalDateTime firstOrderAt,
+        LocalDateTime lastOrderAt,
+        String favouriteCategory,
+        LocalDateTime updatedAt
+) {}
@@ -11,5 +11,7 @@ public record PagedSalesReportDto(
         BigDecimal totalRevenue,
         String topProduct,
         long totalOrders,
-        BigDecimal totalProfit
+        BigDecimal totalProfit,
+        // Pass back as ?cursor= for the next page; null on the last page
+        String nextCursor
 ) {}
\ No newline at end of file
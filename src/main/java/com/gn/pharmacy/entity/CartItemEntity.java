@@ -6,7 +6,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", indexes = {
+        @Index(name = "idx_cart_hold_expires", columnList = "hold_expires_at")
+})
 public class CartItemEntity {
 
     @Id
@@ -41,6 +43,13 @@ public class CartItemEntity {
     @Column(name = "added_date")
     private LocalDateTime addedDate = LocalDateTime.now();
 
+    // --- Soft stock reservation; only counts while hold_expires_at is in the future ---
+    @Column(name = "held_quantity")
+    private Integer heldQuantity = 0;
+
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
     // Product Type Enum
     public enum ProductType {
         MEDICINE, MOTHER, BABY
@@ -89,4 +98,10 @@ public class CartItemEntity {
 
     public LocalDateTime getAddedDate() { return addedDate; }
     public void setAddedDate(LocalDateTime addedDate) { this.addedDate = addedDate; }
-}
\ No newline at end of file
+
+    public Integer getHeldQuantity() { return heldQuantity; }
+    public void setHeldQuantity(Integer heldQuantity) { this.heldQuantity = heldQuantity; }
+
+    public LocalDateTime getHoldExpiresAt() { return holdExpiresAt; }
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) { this.holdExpiresAt = holdExpiresAt; }
+}
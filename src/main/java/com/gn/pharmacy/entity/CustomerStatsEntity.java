@@ -0,0 +1,75 @@
+package com.gn.pharmacy.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lifetime order figures per registered user, across hot and archived orders. Cancelled orders only
+ * count towards cancelled_count. Rows are recomputed per user after order writes and reconciled in
+ * bulk (see CustomerStatsService); the entity defines the table and serves reads.
+ */
+@Entity
+@Table(name = "customer_stats")
+public class CustomerStatsEntity {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private long cancelledCount;
+
+    // DELIVERED or COMPLETED
+    @Column(name = "completed_count", nullable = false)
+    private long completedCount;
+
+    @Column(name = "lifetime_value", precision = 14, scale = 2, nullable = false)
+    private BigDecimal lifetimeValue = BigDecimal.ZERO;
+
+    @Column(name = "first_order_at")
+    private LocalDateTime firstOrderAt;
+
+    @Column(name = "last_order_at")
+    private LocalDateTime lastOrderAt;
+
+    // Category with the most item lines; null until the user has a non-cancelled order
+    @Column(name = "favourite_category", length = 150)
+    private String favouriteCategory;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public CustomerStatsEntity() {}
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getOrderCount() { return orderCount; }
+    public void setOrderCount(long orderCount) { this.orderCount = orderCount; }
+
+    public long getCancelledCount() { return cancelledCount; }
+    public void setCancelledCount(long cancelledCount) { this.cancelledCount = cancelledCount; }
+
+    public long getCompletedCount() { return completedCount; }
+    public void setCompletedCount(long completedCount) { this.completedCount = completedCount; }
+
+    public BigDecimal getLifetimeValue() { return lifetimeValue; }
+    public void setLifetimeValue(BigDecimal lifetimeValue) { this.lifetimeValue = lifetimeValue; }
+
+    public LocalDateTime getFirstOrderAt() { return firstOrderAt; }
+    public void setFirstOrderAt(LocalDateTime firstOrderAt) { this.firstOrderAt = firstOrderAt; }
+
+    public LocalDateTime getLastOrderAt() { return lastOrderAt; }
+    public void setLastOrderAt(LocalDateTime lastOrderAt) { this.lastOrderAt = lastOrderAt; }
+
+    public String getFavouriteCategory() { return favouriteCategory; }
+    public void setFavouriteCategory(String favouriteCategory) { this.favouriteCategory = favouriteCategory; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
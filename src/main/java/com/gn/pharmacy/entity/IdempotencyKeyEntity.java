@@ -0,0 +1,58 @@
+package com.gn.pharmacy.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Client idempotency key (e.g. the Idempotency-Key header of create-order) and the response it produced.
+ * Rows are written with plain JDBC by IdempotencyService so a duplicate key fails on the primary key
+ * instead of being merged; the entity mainly defines the table.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idem_expires", columnList = "expires_at")
+})
+public class IdempotencyKeyEntity {
+
+    // scope + ":" + client key, e.g. "CREATE_ORDER:42:7f0c..."
+    @Id
+    @Column(name = "idempotency_key", length = 160)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    @Column(name = "status", length = 20, nullable = false)
+    private String status;              // IN_PROGRESS or COMPLETED
+
+    @Lob
+    @Column(name = "response_json", columnDefinition = "LONGTEXT")
+    private String responseJson;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public IdempotencyKeyEntity() {}
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getResponseJson() { return responseJson; }
+    public void setResponseJson(String responseJson) { this.responseJson = responseJson; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
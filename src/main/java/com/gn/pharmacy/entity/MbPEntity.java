@@ -98,6 +98,10 @@ public class MbPEntity {
     @Column(name = "is_deleted", nullable = false, columnDefinition = "boolean default false")
     private boolean isDeleted = false;
 
+    // Low-stock alert threshold for this item; null falls back to inventory.low-stock.default-threshold
+    @Column(name = "low_stock_threshold")
+    private Integer lowStockThreshold;
+
 
     // Add the new field for inventory batches (mirroring ProductEntity structure)
     @OneToMany(mappedBy = "mbp", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
@@ -202,6 +206,14 @@ public class MbPEntity {
     }
 
 
+    public Integer getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(Integer lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
     public List<InventoryEntity> getInventoryBatches() {
         return inventoryBatches;
     }
@@ -2,11 +2,14 @@ package com.gn.pharmacy.entity;
 
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders_table")
+@Table(name = "orders_table", indexes = {
+        @Index(name = "idx_orders_placed_status", columnList = "placed_at, order_status")
+})
 public class OrderEntity {
 
     @Id
@@ -44,6 +47,10 @@ public class OrderEntity {
     private String orderDate;
     private String deliveryDate;
 
+    // Typed copy of orderDate; every date-range query filters on this column
+    @Column(name = "placed_at")
+    private LocalDateTime placedAt;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private List<OrderItemEntity> orderItems = new ArrayList<>();
 
@@ -164,6 +171,9 @@ public class OrderEntity {
     public String getOrderDate() { return orderDate; }
     public void setOrderDate(String orderDate) { this.orderDate = orderDate; }
 
+    public LocalDateTime getPlacedAt() { return placedAt; }
+    public void setPlacedAt(LocalDateTime placedAt) { this.placedAt = placedAt; }
+
     public String getDeliveryDate() { return deliveryDate; }
     public void setDeliveryDate(String deliveryDate) { this.deliveryDate = deliveryDate; }
 
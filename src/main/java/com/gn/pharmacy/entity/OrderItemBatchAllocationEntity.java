@@ -0,0 +1,89 @@
+package com.gn.pharmacy.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which inventory batch an order item was fulfilled from (one row per batch variant deducted).
+ * Ids are plain columns so recall history survives batch/order-item deletion; user_id is copied from the
+ * order so "who received batch X" is a single index range scan on batch_no.
+ */
+@Entity
+@Table(name = "order_item_batch_allocations", indexes = {
+        @Index(name = "idx_alloc_batch_order", columnList = "batch_no, order_id"),
+        @Index(name = "idx_alloc_order_item", columnList = "order_item_id"),
+        @Index(name = "idx_alloc_order", columnList = "order_id")
+})
+public class OrderItemBatchAllocationEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "allocation_id")
+    private Long allocationId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "order_item_id", nullable = false)
+    private Long orderItemId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "inventory_id")
+    private Long inventoryId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "mbp_id")
+    private Long mbpId;
+
+    @Column(name = "batch_no")
+    private String batchNo;
+
+    @Column(name = "size", length = 50)
+    private String size;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Column(name = "allocated_at", nullable = false)
+    private LocalDateTime allocatedAt;
+
+    public OrderItemBatchAllocationEntity() {}
+
+    public Long getAllocationId() { return allocationId; }
+    public void setAllocationId(Long allocationId) { this.allocationId = allocationId; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public Long getOrderItemId() { return orderItemId; }
+    public void setOrderItemId(Long orderItemId) { this.orderItemId = orderItemId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getInventoryId() { return inventoryId; }
+    public void setInventoryId(Long inventoryId) { this.inventoryId = inventoryId; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Long getMbpId() { return mbpId; }
+    public void setMbpId(Long mbpId) { this.mbpId = mbpId; }
+
+    public String getBatchNo() { return batchNo; }
+    public void setBatchNo(String batchNo) { this.batchNo = batchNo; }
+
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public LocalDateTime getAllocatedAt() { return allocatedAt; }
+    public void setAllocatedAt(LocalDateTime allocatedAt) { this.allocatedAt = allocatedAt; }
+}
@@ -33,6 +33,14 @@ public class OrderItemEntity {
     @Column(name = "size_variant", length = 50)
     private String size;
 
+    // Category of the product / MbP when the line was written; sales rollups are keyed by it, so a later
+    // re-categorisation doesn't move the line's +1 and -1 to different keys
+    @Column(name = "item_category")
+    private String category;
+
+    @Column(name = "item_sub_category")
+    private String subCategory;
+
 
     // Add this field to the class:
     @ElementCollection
@@ -137,6 +145,12 @@ public class OrderItemEntity {
         this.size = size;
     }
 
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getSubCategory() { return subCategory; }
+    public void setSubCategory(String subCategory) { this.subCategory = subCategory; }
+
     public List<Exchange> getExchanges() {
         return exchanges;
     }
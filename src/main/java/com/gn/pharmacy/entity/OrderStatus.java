@@ -0,0 +1,58 @@
+package com.gn.pharmacy.entity;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Order lifecycle. orders_table.order_status stays a plain string column; this enum defines which
+ * values are valid and which transitions the lifecycle engine allows.
+ */
+public enum OrderStatus {
+    PENDING,
+    CONFIRMED,
+    PROCESSING,
+    SHIPPED,
+    DELIVERED,
+    COMPLETED,
+    CANCELLED,
+    EXCHANGE_REQUESTED,
+    EXCHANGE_APPROVED;
+
+    public Set<OrderStatus> nextStates() {
+        return switch (this) {
+            case PENDING -> EnumSet.of(CONFIRMED, PROCESSING, CANCELLED);
+            case CONFIRMED -> EnumSet.of(PROCESSING, SHIPPED, CANCELLED);
+            case PROCESSING -> EnumSet.of(SHIPPED, CANCELLED);
+            case SHIPPED -> EnumSet.of(DELIVERED, CANCELLED);                     // e.g. courier failure / return
+            case DELIVERED -> EnumSet.of(COMPLETED, EXCHANGE_REQUESTED);
+            case EXCHANGE_REQUESTED -> EnumSet.of(EXCHANGE_APPROVED, DELIVERED);   // back to DELIVERED = rejected
+            case EXCHANGE_APPROVED -> EnumSet.of(COMPLETED);
+            case COMPLETED, CANCELLED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return nextStates().contains(target);
+    }
+
+    // States an order may be in for a move to target to be legal
+    public static Set<OrderStatus> sourcesOf(OrderStatus target) {
+        Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : values()) {
+            if (status.canTransitionTo(target)) sources.add(status);
+        }
+        return sources;
+    }
+
+    public static OrderStatus parse(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Order status is required");
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown order status: " + value);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.gn.pharmacy.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per order status change. Bulk transitions write these with INSERT ... SELECT straight
+ * from orders_table, so the entity mainly defines the table and serves reads.
+ */
+@Entity
+@Table(name = "order_status_history", indexes = {
+        @Index(name = "idx_status_history_order", columnList = "order_id, changed_at")
+})
+public class OrderStatusHistoryEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "history_id")
+    private Long historyId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "from_status", length = 50)
+    private String fromStatus;
+
+    @Column(name = "to_status", length = 50, nullable = false)
+    private String toStatus;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    @Column(name = "changed_by", length = 100)
+    private String changedBy;
+
+    @Column(name = "note", length = 500)
+    private String note;
+
+    public OrderStatusHistoryEntity() {}
+
+    public Long getHistoryId() { return historyId; }
+    public void setHistoryId(Long historyId) { this.historyId = historyId; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public String getFromStatus() { return fromStatus; }
+    public void setFromStatus(String fromStatus) { this.fromStatus = fromStatus; }
+
+    public String getToStatus() { return toStatus; }
+    public void setToStatus(String toStatus) { this.toStatus = toStatus; }
+
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
+
+    public String getChangedBy() { return changedBy; }
+    public void setChangedBy(String changedBy) { this.changedBy = changedBy; }
+
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+}
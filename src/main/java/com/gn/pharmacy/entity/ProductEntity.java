@@ -117,6 +117,10 @@ public class ProductEntity {
     @Column(name = "is_deleted", nullable = false, columnDefinition = "boolean default false")
     private boolean isDeleted = false;
 
+    // Low-stock alert threshold for this product; null falls back to inventory.low-stock.default-threshold
+    @Column(name = "low_stock_threshold")
+    private Integer lowStockThreshold;
+
     //NEW DELETED PRODUCT
     public static Specification<ProductEntity> notDeleted() {
         return (root, query, cb) -> cb.equal(root.get("isDeleted"), false);
@@ -249,6 +253,14 @@ public class ProductEntity {
     }
 
 
+    public Integer getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(Integer lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
     public List<InventoryEntity> getInventoryBatches() {
         return inventoryBatches;
     }
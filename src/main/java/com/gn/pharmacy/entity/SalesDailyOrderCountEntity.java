@@ -0,0 +1,54 @@
+package com.gn.pharmacy.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Distinct orders per day for every filter shape the sales report supports. Each order adds one to
+ * (*, *), (category, *), (*, sub-category) and (category, sub-category) for the categories it
+ * contains, so order counts stay exact without going back to the order tables.
+ */
+@Entity
+@Table(name = "sales_daily_order_counts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_order_counts_key",
+                columnNames = {"sale_date", "category_key", "sub_category_key"})
+})
+public class SalesDailyOrderCountEntity {
+
+    public static final String ANY = "*";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "count_id")
+    private Long countId;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Column(name = "category_key", length = 150, nullable = false)
+    private String categoryKey;
+
+    @Column(name = "sub_category_key", length = 150, nullable = false)
+    private String subCategoryKey;
+
+    @Column(name = "orders", nullable = false)
+    private long orders;
+
+    public SalesDailyOrderCountEntity() {}
+
+    public Long getCountId() { return countId; }
+    public void setCountId(Long countId) { this.countId = countId; }
+
+    public LocalDate getSaleDate() { return saleDate; }
+    public void setSaleDate(LocalDate saleDate) { this.saleDate = saleDate; }
+
+    public String getCategoryKey() { return categoryKey; }
+    public void setCategoryKey(String categoryKey) { this.categoryKey = categoryKey; }
+
+    public String getSubCategoryKey() { return subCategoryKey; }
+    public void setSubCategoryKey(String subCategoryKey) { this.subCategoryKey = subCategoryKey; }
+
+    public long getOrders() { return orders; }
+    public void setOrders(long orders) { this.orders = orders; }
+}
@@ -0,0 +1,85 @@
+package com.gn.pharmacy.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales per day x category x sub-category x item, excluding cancelled orders. Maintained with
+ * upserts in the same transaction as the order write (see SalesRollupService), rebuilt from the
+ * order tables on demand; the entity defines the table and serves report queries.
+ */
+@Entity
+@Table(name = "sales_daily_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_rollup_key",
+                columnNames = {"sale_date", "item_type", "item_id", "category", "sub_category"})
+})
+public class SalesDailyRollupEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    // PRODUCT, MBP or UNKNOWN (item_id 0)
+    @Column(name = "item_type", length = 10, nullable = false)
+    private String itemType;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    // '' when the item has no (sub-)category
+    @Column(name = "category", length = 150, nullable = false)
+    private String category;
+
+    @Column(name = "sub_category", length = 150, nullable = false)
+    private String subCategory;
+
+    @Column(name = "item_name")
+    private String itemName;
+
+    @Column(name = "order_lines", nullable = false)
+    private long orderLines;
+
+    @Column(name = "units", nullable = false)
+    private long units;
+
+    @Column(name = "revenue", precision = 19, scale = 2, nullable = false)
+    private BigDecimal revenue;
+
+    public SalesDailyRollupEntity() {}
+
+    public Long getRollupId() { return rollupId; }
+    public void setRollupId(Long rollupId) { this.rollupId = rollupId; }
+
+    public LocalDate getSaleDate() { return saleDate; }
+    public void setSaleDate(LocalDate saleDate) { this.saleDate = saleDate; }
+
+    public String getItemType() { return itemType; }
+    public void setItemType(String itemType) { this.itemType = itemType; }
+
+    public Long getItemId() { return itemId; }
+    public void setItemId(Long itemId) { this.itemId = itemId; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getSubCategory() { return subCategory; }
+    public void setSubCategory(String subCategory) { this.subCategory = subCategory; }
+
+    public String getItemName() { return itemName; }
+    public void setItemName(String itemName) { this.itemName = itemName; }
+
+    public long getOrderLines() { return orderLines; }
+    public void setOrderLines(long orderLines) { this.orderLines = orderLines; }
+
+    public long getUnits() { return units; }
+    public void setUnits(long units) { this.units = units; }
+
+    public BigDecimal getRevenue() { return revenue; }
+    public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+}
@@ -0,0 +1,66 @@
+package com.gn.pharmacy.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only stock ledger row. Rows are only ever inserted (see StockLedgerService);
+ * inventory_id is kept as a plain column so history survives batch deletion.
+ */
+@Entity
+@Immutable
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_mov_product", columnList = "product_id, movement_id"),
+        @Index(name = "idx_stock_mov_mbp", columnList = "mbp_id, movement_id"),
+        @Index(name = "idx_stock_mov_occurred", columnList = "occurred_at")
+})
+public class StockMovementEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "movement_id")
+    private Long movementId;
+
+    @Column(name = "inventory_id")
+    private Long inventoryId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "mbp_id")
+    private Long mbpId;
+
+    @Column(name = "batch_no")
+    private String batchNo;
+
+    @Column(name = "size", length = 50)
+    private String size;
+
+    @Column(name = "quantity_delta", nullable = false)
+    private int quantityDelta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", length = 30, nullable = false)
+    private StockMovementReason reason;
+
+    @Column(name = "reference", length = 100)
+    private String reference;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    public StockMovementEntity() {}
+
+    public Long getMovementId() { return movementId; }
+    public Long getInventoryId() { return inventoryId; }
+    public Long getProductId() { return productId; }
+    public Long getMbpId() { return mbpId; }
+    public String getBatchNo() { return batchNo; }
+    public String getSize() { return size; }
+    public int getQuantityDelta() { return quantityDelta; }
+    public StockMovementReason getReason() { return reason; }
+    public String getReference() { return reference; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
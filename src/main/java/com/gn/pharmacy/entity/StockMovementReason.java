@@ -0,0 +1,10 @@
+package com.gn.pharmacy.entity;
+
+public enum StockMovementReason {
+    ORDER,          // deducted by order placement
+    CANCEL,         // restored by order cancellation
+    RESTOCK,        // new batch added
+    ADJUSTMENT,     // batch variants edited by admin
+    BATCH_DELETED,  // batch removed with stock still on hand
+    IMPORT          // batch created by bulk inventory import
+}
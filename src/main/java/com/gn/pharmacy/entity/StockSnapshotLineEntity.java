@@ -0,0 +1,53 @@
+package com.gn.pharmacy.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * One variant's on-hand quantity at the time of a snapshot. Written set-based by the snapshot job.
+ */
+@Entity
+@Immutable
+@Table(name = "stock_snapshot_lines", indexes = {
+        @Index(name = "idx_snap_line_product", columnList = "snapshot_id, product_id"),
+        @Index(name = "idx_snap_line_mbp", columnList = "snapshot_id, mbp_id")
+})
+public class StockSnapshotLineEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "line_id")
+    private Long lineId;
+
+    @Column(name = "snapshot_id", nullable = false)
+    private Long snapshotId;
+
+    @Column(name = "inventory_id")
+    private Long inventoryId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "mbp_id")
+    private Long mbpId;
+
+    @Column(name = "batch_no")
+    private String batchNo;
+
+    @Column(name = "size", length = 50)
+    private String size;
+
+    @Column(name = "quantity")
+    private Integer quantity;
+
+    public StockSnapshotLineEntity() {}
+
+    public Long getLineId() { return lineId; }
+    public Long getSnapshotId() { return snapshotId; }
+    public Long getInventoryId() { return inventoryId; }
+    public Long getProductId() { return productId; }
+    public Long getMbpId() { return mbpId; }
+    public String getBatchNo() { return batchNo; }
+    public String getSize() { return size; }
+    public Integer getQuantity() { return quantity; }
+}
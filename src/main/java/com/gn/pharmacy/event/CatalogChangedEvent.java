@@ -0,0 +1,18 @@
+package com.gn.pharmacy.event;
+
+/**
+ * Published when a product or MbP item is created, edited, approved / unapproved or deleted.
+ * Anything cached per category (catalog counts, dashboard distribution) is rebuilt from it.
+ */
+public record CatalogChangedEvent(
+        Long productId,
+        Long mbpId
+) {
+    public static CatalogChangedEvent ofProduct(Long productId) {
+        return new CatalogChangedEvent(productId, null);
+    }
+
+    public static CatalogChangedEvent ofMbp(Long mbpId) {
+        return new CatalogChangedEvent(null, mbpId);
+    }
+}
@@ -0,0 +1,23 @@
+package com.gn.pharmacy.event;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published when orders of these users were created, edited, cancelled, deleted or changed status.
+ * After commit the users' customer_stats rows are recomputed. Guest orders (no user) are not tracked.
+ */
+public record CustomerOrdersChangedEvent(
+        Set<Long> userIds
+) {
+    public static CustomerOrdersChangedEvent of(Collection<Long> userIds) {
+        return new CustomerOrdersChangedEvent(userIds == null ? Set.of() :
+                userIds.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet()));
+    }
+
+    public boolean isEmpty() {
+        return userIds.isEmpty();
+    }
+}
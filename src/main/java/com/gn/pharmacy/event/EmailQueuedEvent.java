@@ -0,0 +1,8 @@
+package com.gn.pharmacy.event;
+
+/**
+ * Published when a row is added to email_outbox. The dispatcher listens after commit so the message
+ * goes out right away instead of waiting for the next poll.
+ */
+public record EmailQueuedEvent(Long outboxId) {
+}
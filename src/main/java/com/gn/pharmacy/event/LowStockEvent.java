@@ -0,0 +1,22 @@
+package com.gn.pharmacy.event;
+
+/**
+ * Emitted by the low-stock tracker when an item enters the at-risk set, moves to a
+ * different alert level, or recovers above its threshold. Subscribe with
+ * {@code @EventListener} / {@code @TransactionalEventListener}.
+ */
+public record LowStockEvent(
+        Type type,
+        String itemType,        // "PRODUCT" or "MBP"
+        Long itemId,
+        String productName,
+        String sku,
+        int currentStock,
+        int threshold,
+        String alertLevel,      // "Out", "Critical", "Low" or null when RECOVERED
+        String previousLevel
+) {
+    public enum Type {
+        ENTERED, LEVEL_CHANGED, RECOVERED
+    }
+}
@@ -0,0 +1,21 @@
+package com.gn.pharmacy.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published when orders start counting as sales (sign 1, order placed) or stop (sign -1, cancelled).
+ * In-memory sales trackers apply the orders' lines after commit.
+ */
+public record OrderSalesChangedEvent(
+        List<Long> orderIds,
+        int sign
+) {
+    public static OrderSalesChangedEvent placed(Collection<Long> orderIds) {
+        return new OrderSalesChangedEvent(List.copyOf(orderIds), 1);
+    }
+
+    public static OrderSalesChangedEvent cancelled(Collection<Long> orderIds) {
+        return new OrderSalesChangedEvent(List.copyOf(orderIds), -1);
+    }
+}
@@ -0,0 +1,33 @@
+package com.gn.pharmacy.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published whenever variant quantities of one or more products / MbP items change
+ * (order placement, cancellation, batch add / update / delete, threshold change).
+ * Listeners re-evaluate only the items listed here instead of scanning all inventory.
+ */
+public record StockChangedEvent(
+        Set<Long> productIds,
+        Set<Long> mbpIds
+) {
+    public static StockChangedEvent of(Collection<Long> productIds, Collection<Long> mbpIds) {
+        return new StockChangedEvent(
+                productIds != null ? Set.copyOf(productIds) : Set.of(),
+                mbpIds != null ? Set.copyOf(mbpIds) : Set.of()
+        );
+    }
+
+    public static StockChangedEvent ofProduct(Long productId) {
+        return new StockChangedEvent(Set.of(productId), Set.of());
+    }
+
+    public static StockChangedEvent ofMbp(Long mbpId) {
+        return new StockChangedEvent(Set.of(), Set.of(mbpId));
+    }
+
+    public boolean isEmpty() {
+        return productIds.isEmpty() && mbpIds.isEmpty();
+    }
+}
@@ -5,10 +5,13 @@ import com.gn.pharmacy.entity.MbPEntity;
 import com.gn.pharmacy.entity.ProductEntity;
 import com.gn.pharmacy.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,4 +41,40 @@ public interface CartItemRepository extends JpaRepository<CartItemEntity, Long>
     int countByUser(UserEntity user);
 
     long countByUserUserId(Long userId);
-}
\ No newline at end of file
+
+    // ==================== STOCK HOLDS ====================
+
+    // Active holds other users have on a product size (size compared the same way as inventory variants)
+    @Query("SELECT COALESCE(SUM(c.heldQuantity), 0) FROM CartItemEntity c " +
+            "WHERE c.product.productId = :productId AND LOWER(COALESCE(c.selectedSize, '')) = :size " +
+            "AND c.holdExpiresAt > :now AND c.user.userId <> :userId")
+    long sumActiveProductHoldsExcludingUser(@Param("productId") Long productId, @Param("size") String size,
+                                            @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT COALESCE(SUM(c.heldQuantity), 0) FROM CartItemEntity c " +
+            "WHERE c.mbp.id = :mbpId AND LOWER(COALESCE(c.selectedSize, '')) = :size " +
+            "AND c.holdExpiresAt > :now AND c.user.userId <> :userId")
+    long sumActiveMbpHoldsExcludingUser(@Param("mbpId") Long mbpId, @Param("size") String size,
+                                        @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Sweep: one indexed range update instead of loading expired rows
+    @Modifying
+    @Query("UPDATE CartItemEntity c SET c.heldQuantity = 0, c.holdExpiresAt = null WHERE c.holdExpiresAt <= :now")
+    int releaseExpiredHolds(@Param("now") LocalDateTime now);
+
+    // Set-based hold lookups for order placement: [itemId, normalized size, SUM(held)]
+    @Query("SELECT c.product.productId, LOWER(COALESCE(c.selectedSize, '')), SUM(c.heldQuantity) FROM CartItemEntity c " +
+            "WHERE c.product.productId IN :productIds AND c.holdExpiresAt > :now AND c.user.userId <> :userId " +
+            "GROUP BY c.product.productId, LOWER(COALESCE(c.selectedSize, ''))")
+    List<Object[]> sumActiveProductHoldsExcludingUser(@Param("productIds") Collection<Long> productIds,
+                                                      @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT c.mbp.id, LOWER(COALESCE(c.selectedSize, '')), SUM(c.heldQuantity) FROM CartItemEntity c " +
+            "WHERE c.mbp.id IN :mbpIds AND c.holdExpiresAt > :now AND c.user.userId <> :userId " +
+            "GROUP BY c.mbp.id, LOWER(COALESCE(c.selectedSize, ''))")
+    List<Object[]> sumActiveMbpHoldsExcludingUser(@Param("mbpIds") Collection<Long> mbpIds,
+                                                  @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT c FROM CartItemEntity c WHERE c.user.userId = :userId AND c.holdExpiresAt > :now AND c.heldQuantity > 0")
+    List<CartItemEntity> findActiveHoldsByUser(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,9 @@
+package com.gn.pharmacy.repository;
+
+import com.gn.pharmacy.entity.CustomerStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CustomerStatsRepository extends JpaRepository<CustomerStatsEntity, Long> {
+}
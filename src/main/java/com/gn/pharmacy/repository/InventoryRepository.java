@@ -12,6 +12,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -49,4 +50,66 @@ public interface InventoryRepository extends JpaRepository<InventoryEntity, Long
 
     List<InventoryEntity> findByMbp(MbPEntity mbp);
 
-   }
+
+    // ==================== LOW-STOCK TRACKER AGGREGATES ====================
+    // Row layout: [itemId, name, sku, lowStockThreshold, totalQuantity]; items without any batch sum to 0
+
+    @Query("SELECT p.productId, p.productName, p.sku, p.lowStockThreshold, COALESCE(SUM(v.quantity), 0) " +
+            "FROM ProductEntity p LEFT JOIN InventoryEntity i ON i.product = p LEFT JOIN i.variants v " +
+            "WHERE p.isDeleted = false " +
+            "GROUP BY p.productId, p.productName, p.sku, p.lowStockThreshold")
+    List<Object[]> sumStockPerProduct();
+
+    @Query("SELECT p.productId, p.productName, p.sku, p.lowStockThreshold, COALESCE(SUM(v.quantity), 0) " +
+            "FROM ProductEntity p LEFT JOIN InventoryEntity i ON i.product = p LEFT JOIN i.variants v " +
+            "WHERE p.isDeleted = false AND p.productId IN :productIds " +
+            "GROUP BY p.productId, p.productName, p.sku, p.lowStockThreshold")
+    List<Object[]> sumStockForProducts(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT m.id, m.title, m.sku, m.lowStockThreshold, COALESCE(SUM(v.quantity), 0) " +
+            "FROM MbPEntity m LEFT JOIN InventoryEntity i ON i.mbp = m LEFT JOIN i.variants v " +
+            "WHERE m.isDeleted = false " +
+            "GROUP BY m.id, m.title, m.sku, m.lowStockThreshold")
+    List<Object[]> sumStockPerMbp();
+
+    @Query("SELECT m.id, m.title, m.sku, m.lowStockThreshold, COALESCE(SUM(v.quantity), 0) " +
+            "FROM MbPEntity m LEFT JOIN InventoryEntity i ON i.mbp = m LEFT JOIN i.variants v " +
+            "WHERE m.isDeleted = false AND m.id IN :mbpIds " +
+            "GROUP BY m.id, m.title, m.sku, m.lowStockThreshold")
+    List<Object[]> sumStockForMbps(@Param("mbpIds") Collection<Long> mbpIds);
+
+    // Current stock of one size across all batches (cart holds are checked against this)
+    @Query("SELECT COALESCE(SUM(v.quantity), 0) FROM InventoryEntity i JOIN i.variants v " +
+            "WHERE i.product.productId = :productId AND LOWER(COALESCE(v.size, '')) = :size")
+    long sumProductSizeStock(@Param("productId") Long productId, @Param("size") String size);
+
+    @Query("SELECT COALESCE(SUM(v.quantity), 0) FROM InventoryEntity i JOIN i.variants v " +
+            "WHERE i.mbp.id = :mbpId AND LOWER(COALESCE(v.size, '')) = :size")
+    long sumMbpSizeStock(@Param("mbpId") Long mbpId, @Param("size") String size);
+
+    // Bulk import duplicate check: [parentId, batchNo] pairs that already exist
+    @Query("SELECT i.product.productId, i.batchNo FROM InventoryEntity i " +
+            "WHERE i.product.productId IN :productIds AND i.batchNo IN :batchNos")
+    List<Object[]> findExistingProductBatchNos(@Param("productIds") Collection<Long> productIds,
+                                               @Param("batchNos") Collection<String> batchNos);
+
+    @Query("SELECT i.mbp.id, i.batchNo FROM InventoryEntity i " +
+            "WHERE i.mbp.id IN :mbpIds AND i.batchNo IN :batchNos")
+    List<Object[]> findExistingMbpBatchNos(@Param("mbpIds") Collection<Long> mbpIds,
+                                           @Param("batchNos") Collection<String> batchNos);
+
+    // Order placement: all batches of the given items with their variants in one query
+    @Query("SELECT DISTINCT i FROM InventoryEntity i LEFT JOIN FETCH i.variants " +
+            "WHERE i.product.productId IN :productIds ORDER BY i.inventoryId")
+    List<InventoryEntity> findProductBatchesWithVariants(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT DISTINCT i FROM InventoryEntity i LEFT JOIN FETCH i.variants " +
+            "WHERE i.mbp.id IN :mbpIds ORDER BY i.inventoryId")
+    List<InventoryEntity> findMbpBatchesWithVariants(@Param("mbpIds") Collection<Long> mbpIds);
+
+    // Units on hand across every product / MbP batch (what summing getTotalCalculatedStock() over all items gave)
+    @Query(value = "SELECT COALESCE(SUM(v.quantity), 0) FROM inventory_variants v " +
+            "JOIN product_inventory i ON i.inventory_id = v.inventory_id " +
+            "WHERE i.product_id IS NOT NULL OR i.mbp_id IS NOT NULL", nativeQuery = true)
+    long sumAllUnitsOnHand();
+}
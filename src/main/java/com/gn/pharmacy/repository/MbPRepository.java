@@ -1,14 +1,17 @@
 package com.gn.pharmacy.repository;
 
 import com.gn.pharmacy.entity.MbPEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -112,4 +115,17 @@ public interface MbPRepository extends JpaRepository<MbPEntity, Long>,
 
 
     boolean existsByTitle(String productName);
-}
\ No newline at end of file
+
+    // Row lock that serializes stock holds and order deductions for one item
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM MbPEntity p WHERE p.id = :id")
+    Optional<MbPEntity> findByIdForUpdate(@Param("id") Long id);
+
+    // Bulk import: [sku, id] for the given SKUs
+    @Query("SELECT m.sku, m.id FROM MbPEntity m WHERE m.sku IN :skus AND m.isDeleted = false")
+    List<Object[]> findIdsBySkuIn(@Param("skus") Collection<String> skus);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM MbPEntity m WHERE m.id IN :ids ORDER BY m.id")
+    List<MbPEntity> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,15 @@
+package com.gn.pharmacy.repository;
+
+import com.gn.pharmacy.entity.OrderItemBatchAllocationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderItemBatchAllocationRepository extends JpaRepository<OrderItemBatchAllocationEntity, Long> {
+
+    List<OrderItemBatchAllocationEntity> findByOrderIdOrderByAllocationIdAsc(Long orderId);
+
+    List<OrderItemBatchAllocationEntity> findByOrderItemIdOrderByAllocationIdAsc(Long orderItemId);
+}
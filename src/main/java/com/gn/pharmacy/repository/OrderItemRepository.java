@@ -15,7 +15,7 @@ import java.util.List;
 public interface OrderItemRepository extends JpaRepository<OrderItemEntity, Long>, JpaSpecificationExecutor<OrderItemEntity> {
 
     @Query(value = """
-    SELECT 
+    SELECT
         COALESCE(p.product_name, m.title, 'Unknown Product') as product_name,
         SUM(oi.quantity) as total_quantity,
         SUM(oi.subtotal) as total_revenue
@@ -23,7 +23,7 @@ public interface OrderItemRepository extends JpaRepository<OrderItemEntity, Long
     LEFT JOIN products p ON oi.product_id = p.product_id
     LEFT JOIN mb_products m ON oi.mbp_id = m.id
     JOIN orders_table o ON oi.order_id = o.order_id
-    WHERE STR_TO_DATE(o.order_date, '%d/%m/%Y %h:%i %p') >= :fromDate
+    WHERE o.placed_at >= :fromDate
     GROUP BY COALESCE(p.product_name, m.title, 'Unknown Product')
     ORDER BY total_revenue DESC
     LIMIT :limit
@@ -32,4 +32,30 @@ public interface OrderItemRepository extends JpaRepository<OrderItemEntity, Long
             @Param("fromDate") LocalDateTime fromDate,
             @Param("limit") int limit
     );
-}
\ No newline at end of file
+
+    // Same ranking with archived lines unioned in, for windows that reach past the archive watermark
+    @Query(value = """
+    SELECT
+        COALESCE(p.product_name, m.title, 'Unknown Product') as product_name,
+        SUM(l.quantity) as total_quantity,
+        SUM(l.subtotal) as total_revenue
+    FROM (
+        SELECT oi.product_id, oi.mbp_id, oi.quantity, oi.subtotal
+        FROM order_items oi JOIN orders_table o ON oi.order_id = o.order_id
+        WHERE o.placed_at >= :fromDate
+        UNION ALL
+        SELECT ai.product_id, ai.mbp_id, ai.quantity, ai.subtotal
+        FROM order_items_archive ai JOIN orders_table_archive ao ON ai.order_id = ao.order_id
+        WHERE ao.placed_at >= :fromDate
+    ) l
+    LEFT JOIN products p ON l.product_id = p.product_id
+    LEFT JOIN mb_products m ON l.mbp_id = m.id
+    GROUP BY COALESCE(p.product_name, m.title, 'Unknown Product')
+    ORDER BY total_revenue DESC
+    LIMIT :limit
+    """, nativeQuery = true)
+    List<Object[]> findTopSellingIncludingArchive(
+            @Param("fromDate") LocalDateTime fromDate,
+            @Param("limit") int limit
+    );
+}
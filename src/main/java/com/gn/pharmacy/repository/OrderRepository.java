@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -18,16 +19,26 @@ public interface OrderRepository extends JpaRepository<OrderEntity, Long>, JpaSp
     // === ADD TO OrderRepository.java ===
     Page<OrderEntity> findByUser_UserId(Long userId, Pageable pageable);
 
+    long countByUser_UserId(Long userId);
+
 
 
     @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM OrderEntity o WHERE o.orderStatus = :status")
     Optional<BigDecimal> sumTotalAmountByStatus(@Param("status") String status);
 
-    // New: Works with orderDate as String (assuming format YYYY-MM-DD or similar)
+    // Half-open range on placed_at so the (placed_at, order_status) index is used
     @Query("SELECT COALESCE(SUM(o.totalAmount), 0) " +
             "FROM OrderEntity o " +
-            "WHERE SUBSTRING(o.orderDate, 1, 4) = :yearStr " +
-            "AND SUBSTRING(o.orderDate, 6, 2) = :monthStr")
-    Optional<BigDecimal> sumTotalAmountByMonth(@Param("yearStr") String yearStr, @Param("monthStr") String monthStr);
+            "WHERE o.placedAt >= :from AND o.placedAt < :to")
+    Optional<BigDecimal> sumTotalAmountBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Archive side of the sums above; callers add these only when the range reaches archived orders
+    @Query(value = "SELECT COALESCE(SUM(total_amount), 0) FROM orders_table_archive WHERE order_status = :status",
+            nativeQuery = true)
+    Optional<BigDecimal> sumArchivedTotalAmountByStatus(@Param("status") String status);
+
+    @Query(value = "SELECT COALESCE(SUM(total_amount), 0) FROM orders_table_archive " +
+            "WHERE placed_at >= :from AND placed_at < :to", nativeQuery = true)
+    Optional<BigDecimal> sumArchivedTotalAmountBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 
-}
\ No newline at end of file
+}
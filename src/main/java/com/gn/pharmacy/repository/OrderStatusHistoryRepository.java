@@ -0,0 +1,13 @@
+package com.gn.pharmacy.repository;
+
+import com.gn.pharmacy.entity.OrderStatusHistoryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderStatusHistoryRepository extends JpaRepository<OrderStatusHistoryEntity, Long> {
+
+    List<OrderStatusHistoryEntity> findByOrderIdOrderByChangedAtAscHistoryIdAsc(Long orderId);
+}
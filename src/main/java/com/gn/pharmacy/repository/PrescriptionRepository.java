@@ -34,7 +34,7 @@ public interface PrescriptionRepository extends JpaRepository<PrescriptionEntity
            SUM(oi.subtotal)
     FROM OrderItemEntity oi
     JOIN oi.order o
-    WHERE o.orderDate >= :from
+    WHERE o.placedAt >= :from
     GROUP BY COALESCE(oi.product.productId, oi.MbP.id)
     ORDER BY SUM(oi.subtotal) DESC
     """)
@@ -1,15 +1,18 @@
 package com.gn.pharmacy.repository;
 
 import com.gn.pharmacy.entity.ProductEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -104,4 +107,18 @@ public interface ProductRepository extends JpaRepository<ProductEntity, Long>,
 
     @Query("SELECT DISTINCT p.productSubCategory FROM ProductEntity p WHERE p.productCategory = :category AND p.isDeleted = false")
     List<String> findDistinctSubcategoriesByCategory(@Param("category") String category);
-}
\ No newline at end of file
+
+    // Row lock that serializes stock holds and order deductions for one item
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ProductEntity p WHERE p.productId = :id")
+    Optional<ProductEntity> findByIdForUpdate(@Param("id") Long id);
+
+    // Bulk import: [sku, productId] for the given SKUs
+    @Query("SELECT p.sku, p.productId FROM ProductEntity p WHERE p.sku IN :skus AND p.isDeleted = false")
+    List<Object[]> findIdsBySkuIn(@Param("skus") Collection<String> skus);
+
+    // Set-based variant for order placement; fixed lock order avoids deadlocks between concurrent orders
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM ProductEntity p WHERE p.productId IN :ids ORDER BY p.productId")
+    List<ProductEntity> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+}
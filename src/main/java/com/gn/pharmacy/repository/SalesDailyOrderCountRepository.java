@@ -0,0 +1,20 @@
+package com.gn.pharmacy.repository;
+
+import com.gn.pharmacy.entity.SalesDailyOrderCountEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface SalesDailyOrderCountRepository extends JpaRepository<SalesDailyOrderCountEntity, Long> {
+
+    // Keys are SalesDailyOrderCountEntity.ANY when the report is not filtered on that level
+    @Query("SELECT COALESCE(SUM(c.orders), 0) FROM SalesDailyOrderCountEntity c " +
+            "WHERE c.saleDate >= :from AND c.saleDate < :to " +
+            "AND c.categoryKey = :categoryKey AND c.subCategoryKey = :subCategoryKey")
+    long sumOrders(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                   @Param("categoryKey") String categoryKey, @Param("subCategoryKey") String subCategoryKey);
+}
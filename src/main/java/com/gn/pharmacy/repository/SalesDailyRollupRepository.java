@@ -0,0 +1,40 @@
+package com.gn.pharmacy.repository;
+
+import com.gn.pharmacy.entity.SalesDailyRollupEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// Half-open [from, to) on sale_date; null category / subCategory = no filter
+@Repository
+public interface SalesDailyRollupRepository extends JpaRepository<SalesDailyRollupEntity, Long> {
+
+    @Query("SELECT COALESCE(SUM(r.revenue), 0) FROM SalesDailyRollupEntity r " +
+            "WHERE r.saleDate >= :from AND r.saleDate < :to " +
+            "AND (:category IS NULL OR r.category = :category) " +
+            "AND (:subCategory IS NULL OR r.subCategory = :subCategory)")
+    BigDecimal sumRevenue(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                          @Param("category") String category, @Param("subCategory") String subCategory);
+
+    // [itemName, units], best seller first
+    @Query("SELECT r.itemName, SUM(r.units) FROM SalesDailyRollupEntity r " +
+            "WHERE r.saleDate >= :from AND r.saleDate < :to " +
+            "AND (:category IS NULL OR r.category = :category) " +
+            "AND (:subCategory IS NULL OR r.subCategory = :subCategory) " +
+            "GROUP BY r.itemName ORDER BY SUM(r.units) DESC")
+    List<Object[]> findTopItemsByUnits(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                       @Param("category") String category, @Param("subCategory") String subCategory,
+                                       Pageable pageable);
+
+    // [year, month, revenue] in calendar order
+    @Query("SELECT YEAR(r.saleDate), MONTH(r.saleDate), SUM(r.revenue) FROM SalesDailyRollupEntity r " +
+            "WHERE r.saleDate >= :from AND r.saleDate < :to " +
+            "GROUP BY YEAR(r.saleDate), MONTH(r.saleDate) ORDER BY YEAR(r.saleDate), MONTH(r.saleDate)")
+    List<Object[]> sumRevenueByMonth(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,42 @@
+package com.gn.pharmacy.repository;
+
+import com.gn.pharmacy.entity.StockMovementEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovementEntity, Long> {
+
+    Page<StockMovementEntity> findByProductIdOrderByMovementIdDesc(Long productId, Pageable pageable);
+
+    Page<StockMovementEntity> findByMbpIdOrderByMovementIdDesc(Long mbpId, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(m.movementId), 0) FROM StockMovementEntity m")
+    Long findMaxMovementId();
+
+    long countByMovementIdGreaterThan(Long movementId);
+
+    // Replay aggregates: [inventoryId, batchNo, size, SUM(delta), COUNT(*)]
+    @Query("SELECT m.inventoryId, m.batchNo, m.size, SUM(m.quantityDelta), COUNT(m) " +
+            "FROM StockMovementEntity m " +
+            "WHERE m.productId = :productId AND m.movementId > :afterId AND m.occurredAt <= :at " +
+            "GROUP BY m.inventoryId, m.batchNo, m.size")
+    List<Object[]> sumProductMovementsSince(@Param("productId") Long productId,
+                                            @Param("afterId") Long afterMovementId,
+                                            @Param("at") LocalDateTime at);
+
+    @Query("SELECT m.inventoryId, m.batchNo, m.size, SUM(m.quantityDelta), COUNT(m) " +
+            "FROM StockMovementEntity m " +
+            "WHERE m.mbpId = :mbpId AND m.movementId > :afterId AND m.occurredAt <= :at " +
+            "GROUP BY m.inventoryId, m.batchNo, m.size")
+    List<Object[]> sumMbpMovementsSince(@Param("mbpId") Long mbpId,
+                                        @Param("afterId") Long afterMovementId,
+                                        @Param("at") LocalDateTime at);
+}
@@ -0,0 +1,22 @@
+package com.gn.pharmacy.repository;
+
+import com.gn.pharmacy.entity.StockSnapshotLineEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockSnapshotLineRepository extends JpaRepository<StockSnapshotLineEntity, Long> {
+
+    List<StockSnapshotLineEntity> findBySnapshotIdAndProductId(Long snapshotId, Long productId);
+
+    List<StockSnapshotLineEntity> findBySnapshotIdAndMbpId(Long snapshotId, Long mbpId);
+
+    @Modifying
+    @Query("DELETE FROM StockSnapshotLineEntity l WHERE l.snapshotId = :snapshotId")
+    int deleteBySnapshotId(@Param("snapshotId") Long snapshotId);
+}
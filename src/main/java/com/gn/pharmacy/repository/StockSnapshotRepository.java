@@ -0,0 +1,20 @@
+package com.gn.pharmacy.repository;
+
+import com.gn.pharmacy.entity.StockSnapshotEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshotEntity, Long> {
+
+    // Nearest snapshot at or before the requested point in time
+    Optional<StockSnapshotEntity> findFirstByTakenAtLessThanEqualOrderByTakenAtDesc(LocalDateTime at);
+
+    Optional<StockSnapshotEntity> findFirstByOrderByTakenAtDesc();
+
+    List<StockSnapshotEntity> findByTakenAtBeforeOrderByTakenAtAsc(LocalDateTime before);
+}
@@ -0,0 +1,40 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.inventory.BatchRecallLineDto;
+import com.gn.pharmacy.dto.inventory.BatchRecallSummaryDto;
+
+import java.io.OutputStream;
+import java.util.List;
+
+public interface BatchTraceabilityService {
+
+    // Appends allocations in the caller's transaction (JDBC batch insert)
+    void recordAllocations(List<Allocation> allocations);
+
+    /**
+     * Re-points the order's allocations at its current order items after the lines were rewritten
+     * (update/patch delete and re-insert them), matching on product / MBP and size. Allocations whose
+     * item was dropped from the order keep their old item id. Runs in the caller's transaction.
+     */
+    void reassignOrderItems(Long orderId);
+
+    BatchRecallSummaryDto getRecallSummary(String batchNo, Long productId, Long mbpId, boolean includeCancelled);
+
+    List<BatchRecallLineDto> getRecallLines(String batchNo, Long productId, Long mbpId, boolean includeCancelled,
+                                            int page, int size);
+
+    // Writes every recall line as CSV, streaming rows from the database instead of loading them
+    void exportRecallCsv(String batchNo, Long productId, Long mbpId, boolean includeCancelled, OutputStream out);
+
+    record Allocation(
+            Long orderId,
+            Long orderItemId,
+            Long userId,
+            Long inventoryId,
+            Long productId,
+            Long mbpId,
+            String batchNo,
+            String size,
+            int quantity
+    ) {}
+}
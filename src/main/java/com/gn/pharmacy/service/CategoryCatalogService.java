@@ -0,0 +1,12 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.reports.CategoryCatalogDto;
+
+public interface CategoryCatalogService {
+
+    // Products and MbP items counted per category / subcategory; cached until the next catalog write
+    CategoryCatalogDto getCatalog();
+
+    // Drops the cached catalog; the next read rebuilds it
+    void invalidate();
+}
@@ -0,0 +1,23 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.reports.CustomerStatsDto;
+
+import java.util.Collection;
+
+public interface CustomerStatsService {
+
+    // Lifetime figures for one user; computed on the spot if the user has no row yet
+    CustomerStatsDto getStats(Long userId);
+
+    /**
+     * Recomputes the rows of the given users from their hot and archived orders in one upsert.
+     * Runs inside the caller's transaction when there is one.
+     */
+    void refresh(Collection<Long> userIds);
+
+    /**
+     * Recomputes every user's row, in user id chunks processed in parallel, each chunk in its own
+     * transaction, and drops rows of users that no longer exist. Returns the number of users covered.
+     */
+    long reconcile();
+}
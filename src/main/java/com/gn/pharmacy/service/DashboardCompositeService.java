@@ -0,0 +1,15 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.dashboard.DashboardAllDto;
+
+public interface DashboardCompositeService {
+
+    // summary, monthly revenue, category distribution, recent prescriptions, low stock, top selling, expiry
+    int WIDGET_COUNT = 7;
+
+    /**
+     * Computes every dashboard widget live and concurrently. Each widget gets the configured timeout;
+     * the response is returned with whatever finished, and the rest are reported in errors.
+     */
+    DashboardAllDto getAll(int year, int recentPrescriptions, int lowStockItems, int topSelling, int topSellingMonths);
+}
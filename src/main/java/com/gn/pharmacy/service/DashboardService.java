@@ -2,11 +2,14 @@ package com.gn.pharmacy.service;
 
 import com.gn.pharmacy.dto.dashboard.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface DashboardService {
     DashboardSummaryDto getDashboardSummary();
     MonthlyRevenueDto getMonthlyRevenue(int year);
+    // granularity: day, week or month; from / to inclusive
+    RevenueSeriesDto getRevenueSeries(LocalDate from, LocalDate to, String granularity);
     CategoryDistributionDto getCategoryDistribution();
     List<RecentPrescriptionDto> getRecentPrescriptions(int limit);
     List<LowStockDto> getLowStockItems(int limit);
@@ -0,0 +1,15 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.dashboard.DashboardSnapshotDto;
+
+public interface DashboardSnapshotService {
+
+    /**
+     * Latest snapshot from memory. A snapshot older than the configured max age is still returned,
+     * with a background refresh started; only the very first call before warm-up waits for a build.
+     */
+    DashboardSnapshotDto getSnapshot();
+
+    // Schedules a background rebuild (coalesced with any refresh already pending)
+    void requestRefresh();
+}
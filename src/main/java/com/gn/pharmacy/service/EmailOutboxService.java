@@ -0,0 +1,23 @@
+package com.gn.pharmacy.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxService {
+
+    /**
+     * Queues the email inside the caller's transaction; nothing is sent unless that transaction commits,
+     * and the caller never waits for SMTP. The message is dropped instead of sent or retried once the OTP
+     * expires.
+     */
+    void enqueueOtpEmail(String toEmail, String subject, String otp, LocalDateTime expiresAt);
+
+    void enqueueOrderConfirmation(String toEmail, String customerName, String orderId,
+                                  BigDecimal totalAmount, List<String> productNames, String mobile);
+
+    /**
+     * Claims due messages and sends them. Returns the number of messages claimed.
+     */
+    int dispatchDue();
+}
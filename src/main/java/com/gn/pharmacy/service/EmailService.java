@@ -1,12 +1,22 @@
 package com.gn.pharmacy.service;
 
 
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
 import java.math.BigDecimal;
 import java.util.List;
 
 public interface EmailService {
     void sendOtpEmail(String toEmail, String otp, String message);
 
+    // Builders used by the outbox dispatcher, which sends many messages over one SMTP session
+    MimeMessage createOtpMessage(String toEmail, String subject, String otp) throws MessagingException;
+
+    MimeMessage createOrderConfirmationMessage(String toEmail, String customerName, String orderId,
+                                               BigDecimal totalAmount, List<String> productNames,
+                                               String mobile) throws MessagingException;
+
     public void sendOrderConfirmationEmail(String toEmail, String customerName,
                                            String orderId,
                                            BigDecimal totalAmount,
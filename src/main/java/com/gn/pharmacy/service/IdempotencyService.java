@@ -0,0 +1,17 @@
+package com.gn.pharmacy.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Runs action at most once per (scope, key). A replay with the same request returns the stored response;
+     * concurrent duplicates wait for the first execution. The action runs in a transaction that also marks
+     * the key completed, so the result and the key commit together.
+     */
+    <T> Result<T> execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action);
+
+    int purgeExpired();
+
+    record Result<T>(T body, boolean replayed) {}
+}
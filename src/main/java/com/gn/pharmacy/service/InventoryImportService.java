@@ -0,0 +1,10 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.inventory.InventoryImportResultDto;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface InventoryImportService {
+
+    // Streams a .csv or .xlsx file (one row per batch variant) into inventory batches, committing in chunks
+    InventoryImportResultDto importBatches(MultipartFile file);
+}
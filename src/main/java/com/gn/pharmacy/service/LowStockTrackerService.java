@@ -0,0 +1,24 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.dashboard.LowStockDto;
+import com.gn.pharmacy.event.StockChangedEvent;
+
+import java.util.List;
+
+public interface LowStockTrackerService {
+
+    // Lowest-stock items first, served from the in-memory at-risk set
+    List<LowStockDto> getLowStockItems(int limit);
+
+    long countLowStockItems();
+
+    // Re-evaluates only the items referenced by the event
+    void onStockChanged(StockChangedEvent event);
+
+    // Full reload from the database (startup / manual resync)
+    void rebuild();
+
+    void updateProductThreshold(Long productId, Integer threshold);
+
+    void updateMbpThreshold(Long mbpId, Integer threshold);
+}
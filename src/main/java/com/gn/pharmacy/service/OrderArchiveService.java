@@ -0,0 +1,31 @@
+package com.gn.pharmacy.service;
+
+import java.time.LocalDateTime;
+
+public interface OrderArchiveService {
+
+    String ORDERS_ARCHIVE = "orders_table_archive";
+    String ORDER_ITEMS_ARCHIVE = "order_items_archive";
+    String EXCHANGES_ARCHIVE = "order_item_exchanges_archive";
+
+    /**
+     * Moves closed orders older than orders.archive.after-months (with their items and exchanges)
+     * into the archive tables, one chunk per transaction. Returns the number of orders moved.
+     */
+    int archiveClosedOrders();
+
+    /**
+     * True when a query starting at from (null = unbounded) can hit archived orders and must read
+     * the archive tables as well.
+     */
+    boolean rangeIncludesArchive(LocalDateTime from);
+
+    boolean userHasArchivedOrders(Long userId);
+
+    /**
+     * Moves the archived order holding orderItemId (with its items and exchanges) back into the hot
+     * tables, in the caller's transaction, so it can be changed again (e.g. an exchange on a delivered
+     * order). Returns false when no archived order has that item.
+     */
+    boolean restoreOrderOfItem(Long orderItemId);
+}
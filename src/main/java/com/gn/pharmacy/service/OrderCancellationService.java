@@ -0,0 +1,15 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.order.OrderCancellationResultDto;
+
+import java.util.List;
+
+public interface OrderCancellationService {
+
+    /**
+     * Cancels every listed order that may still be cancelled and puts its stock back, all in one
+     * transaction. Restorations are planned up front and applied as one grouped update per batch
+     * variant. Orders that can't be cancelled are reported and left untouched.
+     */
+    OrderCancellationResultDto cancelOrders(List<Long> orderIds, String changedBy, String note);
+}
@@ -0,0 +1,16 @@
+package com.gn.pharmacy.service;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface OrderExportService {
+
+    enum Format { CSV, NDJSON }
+
+    /**
+     * Writes one line per order item (orders without items get one line with empty item columns),
+     * streaming rows from a forward-only cursor straight to out. Dates are inclusive placed_at days;
+     * any filter may be null.
+     */
+    void exportOrderLines(Format format, LocalDate from, LocalDate to, String status, OutputStream out);
+}
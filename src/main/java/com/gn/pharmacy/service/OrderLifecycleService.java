@@ -0,0 +1,26 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.order.OrderStatusHistoryDto;
+import com.gn.pharmacy.dto.order.OrderStatusTransitionResultDto;
+import com.gn.pharmacy.entity.OrderStatus;
+
+import java.util.List;
+
+public interface OrderLifecycleService {
+
+    /**
+     * Moves every listed order that is in a legal source state to target with set-based UPDATEs and
+     * records one history row per moved order. Orders in any other state are reported, not touched.
+     */
+    OrderStatusTransitionResultDto transition(List<Long> orderIds, OrderStatus target, String changedBy, String note);
+
+    /**
+     * Single-order variant; throws when the transition is not allowed from the order's current state.
+     */
+    OrderStatusTransitionResultDto transition(Long orderId, OrderStatus target, String changedBy, String note);
+
+    // For status changes made elsewhere (e.g. cancelOrder), inside the caller's transaction
+    void recordTransition(Long orderId, String fromStatus, String toStatus, String changedBy, String note);
+
+    List<OrderStatusHistoryDto> getHistory(Long orderId);
+}
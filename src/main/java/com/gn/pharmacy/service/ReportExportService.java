@@ -0,0 +1,19 @@
+package com.gn.pharmacy.service;
+
+import java.io.OutputStream;
+
+public interface ReportExportService {
+
+    /**
+     * Each export writes one .xlsx workbook straight to out. Rows are streamed from the database and
+     * only a small window of them is held in memory, so the range size is not limited by heap.
+     * Filters take the same values as the matching paged report in ReportsService.
+     */
+    void exportSales(String from, String to, String category, String subcategory, OutputStream out);
+
+    void exportInventory(String category, String subcategory, boolean lowStockOnly, OutputStream out);
+
+    void exportCustomers(String from, String to, OutputStream out);
+
+    void exportFinancial(String from, String to, String groupBy, OutputStream out);
+}
@@ -8,7 +8,8 @@ public interface ReportsService {
 
     List<CategoryDto> getAllCategories();
 
-    PagedSalesReportDto getSalesReport(String from, String to, String category, String subcategory, int page, int limit);
+    // cursor: nextCursor of the previous page (keyset paging); null pages by number
+    PagedSalesReportDto getSalesReport(String from, String to, String category, String subcategory, int page, int limit, String cursor);
 
     PagedInventoryReportDto getInventoryReport(String from, String to, String category, String subcategory, boolean lowStockOnly, int page, int limit);
 
@@ -0,0 +1,20 @@
+package com.gn.pharmacy.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface SalesRollupService {
+
+    /**
+     * Adds (sign 1) or removes (sign -1) the current lines of the given orders to / from the daily
+     * rollups, inside the caller's transaction. Cancelled orders and orders without placed_at
+     * contribute nothing, so callers remove before a change and add after it.
+     */
+    void apply(Collection<Long> orderIds, int sign);
+
+    /**
+     * Recomputes the rollups for [from, to] (inclusive days, null = everything) from the hot and
+     * archived order tables, one month per transaction. Returns the number of rollup rows written.
+     */
+    long rebuild(LocalDate from, LocalDate to);
+}
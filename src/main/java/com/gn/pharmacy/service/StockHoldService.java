@@ -0,0 +1,49 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.entity.CartItemEntity;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+
+public interface StockHoldService {
+
+    // Saves the cart item with a hold on its full quantity; with allowPartial the hold is capped at what is available
+    CartItemEntity saveWithHold(CartItemEntity item, boolean allowPartial);
+
+    // Stock of one size minus other users' active holds; call inside a transaction holding the item's row lock
+    long availableForUser(Long userId, Long productId, Long mbpId, String size);
+
+    // Other users' active holds per item size, for all given items in one query per table
+    Map<ItemSize, Long> heldByOthers(Long userId, Collection<Long> productIds, Collection<Long> mbpIds);
+
+    // Converts the user's active holds into deductions; returns how many of the requested units each hold covered
+    Map<ItemSize, Integer> consumeHolds(Long userId, Map<ItemSize, Integer> quantities);
+
+    int releaseExpiredHolds();
+
+    // Product or MBP item plus size, with the size compared case-insensitively and null == ""
+    record ItemSize(Long productId, Long mbpId, String size) {
+        public static ItemSize of(Long productId, Long mbpId, String size) {
+            return new ItemSize(productId, mbpId, normalizeSize(size));
+        }
+
+        // How sizes are compared everywhere stock is matched: trimmed, lower-case, null / blank = no size
+        public static String normalizeSize(String size) {
+            return size != null ? size.trim().toLowerCase(Locale.ROOT) : "";
+        }
+    }
+
+    class InsufficientStockException extends RuntimeException {
+        private final long available;
+
+        public InsufficientStockException(String message, long available) {
+            super(message);
+            this.available = available;
+        }
+
+        public long getAvailable() {
+            return available;
+        }
+    }
+}
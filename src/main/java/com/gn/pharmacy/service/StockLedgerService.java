@@ -0,0 +1,36 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.inventory.StockAtTimeDto;
+import com.gn.pharmacy.dto.inventory.StockMovementDto;
+import com.gn.pharmacy.entity.StockMovementReason;
+import org.springframework.data.domain.Page;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockLedgerService {
+
+    // Appends movements in the caller's transaction (JDBC batch insert)
+    void record(List<Movement> movements);
+
+    StockAtTimeDto getStockAt(Long productId, Long mbpId, LocalDateTime at);
+
+    Page<StockMovementDto> getMovements(Long productId, Long mbpId, int page, int size);
+
+    // Full snapshot of current variant quantities; returns the snapshot id
+    Long takeSnapshot();
+
+    // Thins out old snapshots so replay stays bounded without touching the ledger itself
+    int compactSnapshots();
+
+    record Movement(
+            Long inventoryId,
+            Long productId,
+            Long mbpId,
+            String batchNo,
+            String size,
+            int quantityDelta,
+            StockMovementReason reason,
+            String reference
+    ) {}
+}
@@ -0,0 +1,23 @@
+package com.gn.pharmacy.service;
+
+import com.gn.pharmacy.dto.dashboard.TopSellingDto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface TopSellerTrackerService {
+
+    /**
+     * Top sellers by revenue for sales from the given day up to now, answered from the in-memory
+     * per-day summaries. Empty when the window reaches past the retained days or the tracker has not
+     * been built yet - callers then query the database.
+     */
+    Optional<List<TopSellingDto>> topSellers(LocalDate from, int limit);
+
+    /**
+     * Rebuilds the retained days from the daily sales rollups and swaps them in. Returns the number
+     * of (day, item) rows read.
+     */
+    long reconcile();
+}
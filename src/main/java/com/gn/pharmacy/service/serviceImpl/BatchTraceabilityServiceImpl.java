@@ -0,0 +1,254 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.inventory.BatchRecallLineDto;
+import com.gn.pharmacy.dto.inventory.BatchRecallSummaryDto;
+import com.gn.pharmacy.service.BatchTraceabilityService;
+import com.gn.pharmacy.service.OrderArchiveService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Batch allocations are written next to the stock deduction in createOrder; recall queries start from the
+ * (batch_no, order_id) index and join orders / order items by primary key, so cost grows with the number of
+ * recipients of the batch, not with the size of the order tables.
+ */
+@Service
+public class BatchTraceabilityServiceImpl implements BatchTraceabilityService {
+
+    private static final String INSERT_ALLOCATION_SQL =
+            "INSERT INTO order_item_batch_allocations (order_id, order_item_id, user_id, inventory_id, product_id, mbp_id, " +
+                    "batch_no, size, quantity, allocated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Allocations outlive archival and deletion, so an order is looked up in the hot table and the archive;
+    // at most one of the two joins matches (none once the order is deleted). Both are primary-key lookups.
+    private static final String ORDER_JOINS =
+            "LEFT JOIN orders_table o ON o.order_id = a.order_id " +
+                    "LEFT JOIN " + OrderArchiveService.ORDERS_ARCHIVE + " ao ON o.order_id IS NULL AND ao.order_id = a.order_id ";
+
+    // Status shown for allocations whose order has since been deleted; they still count for a recall
+    private static final String DELETED_ORDER = "DELETED";
+
+    private static final String RECALL_SELECT =
+            "SELECT a.order_id, a.order_item_id, COALESCE(o.order_date, ao.order_date) AS order_date, " +
+                    "CASE WHEN o.order_id IS NULL AND ao.order_id IS NULL THEN '" + DELETED_ORDER + "' " +
+                    "ELSE COALESCE(o.order_status, ao.order_status) END AS order_status, a.user_id, " +
+                    "COALESCE(o.customer_first_name, ao.customer_first_name) AS customer_first_name, " +
+                    "COALESCE(o.customer_last_name, ao.customer_last_name) AS customer_last_name, " +
+                    "COALESCE(o.customer_email, ao.customer_email) AS customer_email, " +
+                    "COALESCE(o.customer_phone, ao.customer_phone) AS customer_phone, " +
+                    "COALESCE(oi.item_name, aoi.item_name) AS item_name, " +
+                    "a.product_id, a.mbp_id, a.batch_no, a.size, a.quantity, a.allocated_at " +
+                    "FROM order_item_batch_allocations a " +
+                    ORDER_JOINS +
+                    "LEFT JOIN order_items oi ON oi.order_item_id = a.order_item_id " +
+                    "LEFT JOIN " + OrderArchiveService.ORDER_ITEMS_ARCHIVE + " aoi ON oi.order_item_id IS NULL " +
+                    "AND aoi.order_item_id = a.order_item_id ";
+
+    private static final String RECALL_SUMMARY_SELECT =
+            "SELECT COUNT(DISTINCT a.order_id), COUNT(DISTINCT a.user_id), COALESCE(SUM(a.quantity), 0) " +
+                    "FROM order_item_batch_allocations a " +
+                    ORDER_JOINS;
+
+    // Allocations of an order whose order item no longer exists
+    private static final String ORPHANED_ALLOCATIONS_SQL =
+            "SELECT a.allocation_id, a.product_id, a.mbp_id, a.size FROM order_item_batch_allocations a " +
+                    "WHERE a.order_id = ? AND NOT EXISTS (SELECT 1 FROM order_items oi WHERE oi.order_item_id = a.order_item_id) " +
+                    "ORDER BY a.allocation_id";
+
+    private static final String CSV_HEADER =
+            "Order ID,Order Item ID,Order Date,Order Status,User ID,Customer Name,Email,Phone,Item,Product ID,MBP ID," +
+                    "Batch No,Size,Quantity,Allocated At";
+
+    private static final RowMapper<BatchRecallLineDto> LINE_MAPPER = (rs, rowNum) -> {
+        String firstName = rs.getString("customer_first_name");
+        String lastName = rs.getString("customer_last_name");
+        String customerName = ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+        Timestamp allocatedAt = rs.getTimestamp("allocated_at");
+        return new BatchRecallLineDto(
+                rs.getLong("order_id"),
+                rs.getLong("order_item_id"),
+                rs.getString("order_date"),
+                rs.getString("order_status"),
+                rs.getObject("user_id", Long.class),
+                customerName,
+                rs.getString("customer_email"),
+                rs.getString("customer_phone"),
+                rs.getString("item_name"),
+                rs.getObject("product_id", Long.class),
+                rs.getObject("mbp_id", Long.class),
+                rs.getString("batch_no"),
+                rs.getString("size"),
+                rs.getInt("quantity"),
+                allocatedAt != null ? allocatedAt.toLocalDateTime() : null
+        );
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows one by one instead of buffering the result set
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public BatchTraceabilityServiceImpl(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Override
+    @Transactional
+    public void recordAllocations(List<Allocation> allocations) {
+        if (allocations.isEmpty()) return;
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ALLOCATION_SQL, allocations, allocations.size(), (ps, a) -> {
+            ps.setLong(1, a.orderId());
+            ps.setLong(2, a.orderItemId());
+            ps.setObject(3, a.userId(), Types.BIGINT);
+            ps.setObject(4, a.inventoryId(), Types.BIGINT);
+            ps.setObject(5, a.productId(), Types.BIGINT);
+            ps.setObject(6, a.mbpId(), Types.BIGINT);
+            ps.setString(7, a.batchNo());
+            ps.setString(8, a.size());
+            ps.setInt(9, a.quantity());
+            ps.setTimestamp(10, now);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void reassignOrderItems(Long orderId) {
+        List<Object[]> orphans = jdbcTemplate.query(ORPHANED_ALLOCATIONS_SQL, (rs, rowNum) -> new Object[]{
+                rs.getLong("allocation_id"), rs.getObject("product_id", Long.class),
+                rs.getObject("mbp_id", Long.class), rs.getString("size")}, orderId);
+        if (orphans.isEmpty()) return;
+
+        List<Object[]> lines = jdbcTemplate.query(
+                "SELECT order_item_id, product_id, mbp_id, size_variant FROM order_items WHERE order_id = ? ORDER BY order_item_id",
+                (rs, rowNum) -> new Object[]{rs.getLong("order_item_id"), rs.getObject("product_id", Long.class),
+                        rs.getObject("mbp_id", Long.class), rs.getString("size_variant")}, orderId);
+
+        List<Object[]> updates = new ArrayList<>();
+        for (Object[] orphan : orphans) {
+            Long match = null;
+            for (Object[] line : lines) {
+                if (!Objects.equals(line[1], orphan[1]) || !Objects.equals(line[2], orphan[2])) continue;
+                if (sameSize((String) line[3], (String) orphan[3])) {
+                    match = (Long) line[0];
+                    break;
+                }
+                if (match == null) match = (Long) line[0];
+            }
+            if (match != null) updates.add(new Object[]{match, orphan[0]});
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE order_item_batch_allocations SET order_item_id = ? WHERE allocation_id = ?", updates);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BatchRecallSummaryDto getRecallSummary(String batchNo, Long productId, Long mbpId, boolean includeCancelled) {
+        List<Object> params = new ArrayList<>();
+        String where = recallWhere(batchNo, productId, mbpId, includeCancelled, params);
+        return jdbcTemplate.queryForObject(RECALL_SUMMARY_SELECT + where,
+                (rs, rowNum) -> new BatchRecallSummaryDto(batchNo, rs.getLong(1), rs.getLong(2), rs.getLong(3)),
+                params.toArray());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BatchRecallLineDto> getRecallLines(String batchNo, Long productId, Long mbpId, boolean includeCancelled,
+                                                   int page, int size) {
+        List<Object> params = new ArrayList<>();
+        String where = recallWhere(batchNo, productId, mbpId, includeCancelled, params);
+        params.add(size);
+        params.add((long) page * size);
+        return jdbcTemplate.query(RECALL_SELECT + where + "ORDER BY a.order_id DESC, a.allocation_id LIMIT ? OFFSET ?",
+                LINE_MAPPER, params.toArray());
+    }
+
+    @Override
+    public void exportRecallCsv(String batchNo, Long productId, Long mbpId, boolean includeCancelled, OutputStream out) {
+        List<Object> params = new ArrayList<>();
+        String where = recallWhere(batchNo, productId, mbpId, includeCancelled, params);
+
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            streamingJdbcTemplate.query(RECALL_SELECT + where + "ORDER BY a.order_id, a.allocation_id", rs -> {
+                BatchRecallLineDto line = LINE_MAPPER.mapRow(rs, 0);
+                try {
+                    writer.write(toCsv(line));
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, params.toArray());
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String recallWhere(String batchNo, Long productId, Long mbpId, boolean includeCancelled,
+                                      List<Object> params) {
+        if (batchNo == null || batchNo.isBlank()) {
+            throw new IllegalArgumentException("Batch number is required");
+        }
+        StringBuilder where = new StringBuilder("WHERE a.batch_no = ? ");
+        params.add(batchNo.trim());
+        // Batch numbers are only unique per item, so callers can narrow to one product / MBP
+        if (productId != null) {
+            where.append("AND a.product_id = ? ");
+            params.add(productId);
+        }
+        if (mbpId != null) {
+            where.append("AND a.mbp_id = ? ");
+            params.add(mbpId);
+        }
+        if (!includeCancelled) {
+            where.append("AND (COALESCE(o.order_status, ao.order_status) IS NULL " +
+                    "OR COALESCE(o.order_status, ao.order_status) <> 'CANCELLED') ");
+        }
+        return where.toString();
+    }
+
+    private static boolean sameSize(String a, String b) {
+        String left = a == null ? "" : a.trim();
+        String right = b == null ? "" : b.trim();
+        return left.equalsIgnoreCase(right);
+    }
+
+    private static String toCsv(BatchRecallLineDto line) {
+        return String.join(",",
+                csv(line.orderId()), csv(line.orderItemId()), csv(line.orderDate()), csv(line.orderStatus()),
+                csv(line.userId()), csv(line.customerName()), csv(line.customerEmail()), csv(line.customerPhone()),
+                csv(line.itemName()), csv(line.productId()), csv(line.mbpId()), csv(line.batchNo()), csv(line.size()),
+                csv(line.quantity()), csv(line.allocatedAt()));
+    }
+
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,109 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.reports.CategoryCatalogDto;
+import com.gn.pharmacy.dto.reports.CategoryCountsDto;
+import com.gn.pharmacy.event.CatalogChangedEvent;
+import com.gn.pharmacy.service.CategoryCatalogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Category catalog built from two GROUP BY queries (products, mb_products) instead of loading entities,
+ * and kept in memory until a catalog write invalidates it. Readers cost one map lookup; the rebuild
+ * cost depends on the number of distinct categories, not on rows loaded into the JVM.
+ */
+@Service
+public class CategoryCatalogServiceImpl implements CategoryCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryCatalogServiceImpl.class);
+
+    static final String UNCATEGORIZED = "Uncategorized";
+
+    private static final String COUNTS_SQL =
+            "SELECT %1$s, %2$s, COUNT(*), " +
+                    "SUM(CASE WHEN is_approved = TRUE AND is_deleted = FALSE THEN 1 ELSE 0 END), " +
+                    "SUM(CASE WHEN is_approved = TRUE THEN 1 ELSE 0 END), " +
+                    "SUM(CASE WHEN is_deleted = TRUE THEN 1 ELSE 0 END) " +
+                    "FROM %3$s GROUP BY %1$s, %2$s";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicReference<CategoryCatalogDto> cached = new AtomicReference<>();
+    // Bumped on every invalidation so a rebuild that raced with a write is not cached
+    private final AtomicLong version = new AtomicLong();
+
+    public CategoryCatalogServiceImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public CategoryCatalogDto getCatalog() {
+        CategoryCatalogDto current = cached.get();
+        return current != null ? current : rebuild();
+    }
+
+    @Override
+    public void invalidate() {
+        version.incrementAndGet();
+        cached.set(null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidate();
+    }
+
+    private synchronized CategoryCatalogDto rebuild() {
+        CategoryCatalogDto current = cached.get();
+        if (current != null) {
+            return current;
+        }
+        long startedAt = version.get();
+        long start = System.currentTimeMillis();
+
+        // category -> subcategory -> [total, active, approved, deleted]; null subcategory is kept under ""
+        Map<String, Map<String, long[]>> counts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        collect(String.format(COUNTS_SQL, "product_category", "product_sub_category", "products"), counts);
+        collect(String.format(COUNTS_SQL, "category", "sub_category", "mb_products"), counts);
+
+        List<CategoryCatalogDto.CategoryEntry> categories = new ArrayList<>(counts.size());
+        counts.forEach((category, subs) -> {
+            long[] totals = new long[4];
+            List<CategoryCountsDto> subcategories = new ArrayList<>();
+            subs.forEach((sub, c) -> {
+                for (int i = 0; i < totals.length; i++) totals[i] += c[i];
+                if (!sub.isEmpty()) subcategories.add(toDto(sub, c));
+            });
+            categories.add(new CategoryCatalogDto.CategoryEntry(toDto(category, totals), subcategories));
+        });
+        CategoryCatalogDto built = new CategoryCatalogDto(LocalDateTime.now(), List.copyOf(categories));
+
+        if (version.get() == startedAt) {
+            cached.set(built);
+        }
+        logger.debug("Category catalog rebuilt: {} categories in {} ms", categories.size(), System.currentTimeMillis() - start);
+        return built;
+    }
+
+    private void collect(String sql, Map<String, Map<String, long[]>> counts) {
+        jdbcTemplate.query(sql, rs -> {
+            String category = rs.getString(1);
+            String sub = rs.getString(2);
+            long[] c = counts
+                    .computeIfAbsent(category != null ? category : UNCATEGORIZED, k -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER))
+                    .computeIfAbsent(sub != null ? sub : "", k -> new long[4]);
+            for (int i = 0; i < 4; i++) c[i] += rs.getLong(3 + i);
+        });
+    }
+
+    private static CategoryCountsDto toDto(String name, long[] c) {
+        return new CategoryCountsDto(name, c[0], c[1], c[2], c[3]);
+    }
+}
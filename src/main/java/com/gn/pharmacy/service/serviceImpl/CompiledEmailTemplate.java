@@ -0,0 +1,91 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTML email template parsed once into literal segments and named slots. {@code {{name}}} is
+ * HTML-escaped, {@code {{{name}}}} is inserted as-is (for fragments the caller already rendered).
+ * Rendering is a single StringBuilder pass - no parsing, regex or I/O per message.
+ */
+final class CompiledEmailTemplate {
+
+    private final String[] literals;    // literals.length == slots.length + 1
+    private final String[] slots;
+    private final boolean[] escaped;
+    private final int literalLength;
+
+    private CompiledEmailTemplate(List<String> literals, List<String> slots, List<Boolean> escaped) {
+        this.literals = literals.toArray(new String[0]);
+        this.slots = slots.toArray(new String[0]);
+        this.escaped = new boolean[escaped.size()];
+        for (int i = 0; i < escaped.size(); i++) this.escaped[i] = escaped.get(i);
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    static CompiledEmailTemplate fromClasspath(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Email template not found: " + path, e);
+        }
+    }
+
+    static CompiledEmailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) break;
+            boolean raw = source.startsWith("{{{", open);
+            String closeToken = raw ? "}}}" : "}}";
+            int nameStart = open + (raw ? 3 : 2);
+            int close = source.indexOf(closeToken, nameStart);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            literals.add(source.substring(pos, open));
+            slots.add(source.substring(nameStart, close).trim());
+            escaped.add(!raw);
+            pos = close + closeToken.length();
+        }
+        literals.add(source.substring(pos));
+        return new CompiledEmailTemplate(literals, slots, escaped);
+    }
+
+    String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder(literalLength + slots.length * 32);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(slots[i]);
+            if (value == null) continue;
+            if (escaped[i]) appendEscaped(out, value.toString());
+            else out.append(value);
+        }
+        return out.append(literals[slots.length]).toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.reports.CustomerStatsDto;
+import com.gn.pharmacy.entity.CustomerStatsEntity;
+import com.gn.pharmacy.event.CustomerOrdersChangedEvent;
+import com.gn.pharmacy.repository.CustomerStatsRepository;
+import com.gn.pharmacy.repository.UserRepository;
+import com.gn.pharmacy.service.CustomerStatsService;
+import com.gn.pharmacy.service.OrderArchiveService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * customer_stats maintenance. A user's row is always recomputed from that user's orders (indexed on
+ * user_id, hot and archive) rather than adjusted by deltas, so a missed or repeated event can't make
+ * it drift - the next refresh or the nightly reconcile puts it right. Order writes only publish
+ * CustomerOrdersChangedEvent; the refresh runs after their commit in its own transaction.
+ */
+@Service
+@Lazy(false)
+public class CustomerStatsServiceImpl implements CustomerStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerStatsServiceImpl.class);
+
+    private static final String NOT_CANCELLED = "(o.order_status IS NULL OR o.order_status <> 'CANCELLED')";
+
+    // %1$s orders table, %2$s condition on o.user_id
+    private static final String ORDERS_BRANCH =
+            "SELECT o.user_id, o.order_status, o.total_amount, o.placed_at FROM %1$s o WHERE %2$s";
+
+    // %1$s orders table, %2$s items table, %3$s condition on o.user_id
+    private static final String LINES_BRANCH =
+            "SELECT o.user_id, COALESCE(NULLIF(oi.item_category, ''), p.product_category, m.category) AS category " +
+                    "FROM %2$s oi JOIN %1$s o ON o.order_id = oi.order_id " +
+                    "LEFT JOIN products p ON p.product_id = oi.product_id " +
+                    "LEFT JOIN mb_products m ON m.id = oi.mbp_id " +
+                    "WHERE " + NOT_CANCELLED + " AND %3$s";
+
+    // %1$s orders union, %2$s lines union, %3$s condition on u.user_id
+    private static final String UPSERT_SQL =
+            "INSERT INTO customer_stats (user_id, order_count, cancelled_count, completed_count, lifetime_value, " +
+                    "first_order_at, last_order_at, favourite_category, updated_at) " +
+                    "SELECT u.user_id, COALESCE(s.order_count, 0), COALESCE(s.cancelled_count, 0), " +
+                    "COALESCE(s.completed_count, 0), COALESCE(s.lifetime_value, 0), s.first_order_at, s.last_order_at, " +
+                    "f.category, NOW() " +
+                    "FROM users_table u " +
+                    "LEFT JOIN (SELECT x.user_id, " +
+                    "SUM(CASE WHEN x.order_status = 'CANCELLED' THEN 0 ELSE 1 END) AS order_count, " +
+                    "SUM(CASE WHEN x.order_status = 'CANCELLED' THEN 1 ELSE 0 END) AS cancelled_count, " +
+                    "SUM(CASE WHEN x.order_status IN ('DELIVERED', 'COMPLETED') THEN 1 ELSE 0 END) AS completed_count, " +
+                    "SUM(CASE WHEN x.order_status = 'CANCELLED' THEN 0 ELSE COALESCE(x.total_amount, 0) END) AS lifetime_value, " +
+                    "MIN(CASE WHEN x.order_status = 'CANCELLED' THEN NULL ELSE x.placed_at END) AS first_order_at, " +
+                    "MAX(CASE WHEN x.order_status = 'CANCELLED' THEN NULL ELSE x.placed_at END) AS last_order_at " +
+                    "FROM (%1$s) x GROUP BY x.user_id) s ON s.user_id = u.user_id " +
+                    "LEFT JOIN (SELECT r.user_id, r.category FROM (" +
+                    "SELECT l.user_id, l.category, " +
+                    "ROW_NUMBER() OVER (PARTITION BY l.user_id ORDER BY COUNT(*) DESC, l.category) AS rn " +
+                    "FROM (%2$s) l WHERE l.category IS NOT NULL GROUP BY l.user_id, l.category) r " +
+                    "WHERE r.rn = 1) f ON f.user_id = u.user_id " +
+                    "WHERE %3$s " +
+                    "ON DUPLICATE KEY UPDATE order_count = VALUES(order_count), cancelled_count = VALUES(cancelled_count), " +
+                    "completed_count = VALUES(completed_count), lifetime_value = VALUES(lifetime_value), " +
+                    "first_order_at = VALUES(first_order_at), last_order_at = VALUES(last_order_at), " +
+                    "favourite_category = VALUES(favourite_category), updated_at = VALUES(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerStatsRepository customerStatsRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate newTransaction;
+    private final ExecutorService reconcilePool;
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    @Value("${customers.stats.reconcile-chunk-size:2000}")
+    private int chunkSize;
+
+    @Value("${customers.stats.build-on-startup:true}")
+    private boolean buildOnStartup;
+
+    public CustomerStatsServiceImpl(JdbcTemplate jdbcTemplate, CustomerStatsRepository customerStatsRepository,
+                                    UserRepository userRepository, PlatformTransactionManager transactionManager,
+                                    @Value("${customers.stats.reconcile-threads:4}") int reconcileThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerStatsRepository = customerStatsRepository;
+        this.userRepository = userRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger counter = new AtomicInteger();
+        this.reconcilePool = Executors.newFixedThreadPool(Math.max(1, reconcileThreads), runnable -> {
+            Thread thread = new Thread(runnable, "customer-stats-reconcile-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconcilePool.shutdown();
+    }
+
+    // After the archive tables exist (OrderArchiveServiceImpl, @Order(20)) so the first build sees both
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(40)
+    public void buildIfEmpty() {
+        if (!buildOnStartup || customerStatsRepository.count() > 0) return;
+        long users = reconcile();
+        if (users > 0) {
+            logger.info("Initial customer stats build covered {} users", users);
+        }
+    }
+
+    @Scheduled(cron = "${customers.stats.reconcile-cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (IllegalStateException e) {
+            logger.info("Skipping scheduled customer stats reconcile: {}", e.getMessage());
+        }
+    }
+
+    // Failures are only logged: the order is already committed and the reconcile repairs the row
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerOrdersChanged(CustomerOrdersChangedEvent event) {
+        if (event.isEmpty()) return;
+        try {
+            newTransaction.executeWithoutResult(status -> refresh(event.userIds()));
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh customer stats for users {}: {}", event.userIds(), e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional
+    public CustomerStatsDto getStats(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found with ID: " + userId);
+        }
+        CustomerStatsEntity stats = customerStatsRepository.findById(userId).orElse(null);
+        if (stats == null) {
+            refresh(List.of(userId));
+            stats = customerStatsRepository.findById(userId)
+                    .orElseThrow(() -> new IllegalStateException("Customer stats missing for user " + userId));
+        }
+        return new CustomerStatsDto(stats.getUserId(), stats.getOrderCount(), stats.getCancelledCount(),
+                stats.getCompletedCount(), stats.getLifetimeValue(), stats.getFirstOrderAt(), stats.getLastOrderAt(),
+                stats.getFavouriteCategory(), stats.getUpdatedAt());
+    }
+
+    @Override
+    @Transactional
+    public void refresh(Collection<Long> userIds) {
+        List<Long> ids = userIds == null ? List.of() :
+                userIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        if (ids.isEmpty()) return;
+        String in = " IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")";
+        List<Object> params = new ArrayList<>();
+        for (int i = 0; i < 5; i++) params.addAll(ids);
+        jdbcTemplate.update(upsert("o.user_id" + in, "u.user_id" + in), params.toArray());
+    }
+
+    @Override
+    public long reconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            throw new IllegalStateException("A customer stats reconcile is already running");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(user_id) AS lo, MAX(user_id) AS hi FROM users_table");
+            if (bounds.get("lo") == null) {
+                jdbcTemplate.update("DELETE FROM customer_stats");
+                return 0;
+            }
+            long lo = ((Number) bounds.get("lo")).longValue();
+            long hi = ((Number) bounds.get("hi")).longValue();
+            String sql = upsert("o.user_id BETWEEN ? AND ?", "u.user_id BETWEEN ? AND ?");
+
+            // Chunks cover disjoint user id ranges, so parallel upserts never touch the same rows
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long from = lo; from <= hi; from += chunkSize) {
+                long first = from;
+                long last = Math.min(from + chunkSize - 1, hi);
+                Object[] params = new Object[10];
+                for (int i = 0; i < 10; i += 2) {
+                    params[i] = first;
+                    params[i + 1] = last;
+                }
+                chunks.add(reconcilePool.submit(() -> newTransaction.execute(status -> jdbcTemplate.update(sql, params))));
+            }
+            long rows = 0;
+            for (Future<Integer> chunk : chunks) {
+                rows += chunk.get();
+            }
+            int removed = jdbcTemplate.update(
+                    "DELETE FROM customer_stats WHERE user_id NOT IN (SELECT user_id FROM users_table)");
+
+            long users = userRepository.count();
+            logger.info("Reconciled customer stats for {} users in {} chunks ({} upsert rows, {} stale rows removed) in {} ms",
+                    users, chunks.size(), rows, removed, System.currentTimeMillis() - started);
+            return users;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Customer stats reconcile interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Customer stats reconcile failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    private static String upsert(String orderCondition, String userCondition) {
+        String orders = String.format(ORDERS_BRANCH, "orders_table", orderCondition) + " UNION ALL " +
+                String.format(ORDERS_BRANCH, OrderArchiveService.ORDERS_ARCHIVE, orderCondition);
+        String lines = String.format(LINES_BRANCH, "orders_table", "order_items", orderCondition) + " UNION ALL " +
+                String.format(LINES_BRANCH, OrderArchiveService.ORDERS_ARCHIVE, OrderArchiveService.ORDER_ITEMS_ARCHIVE, orderCondition);
+        return String.format(UPSERT_SQL, orders, lines, userCondition);
+    }
+}
@@ -0,0 +1,92 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.dashboard.*;
+import com.gn.pharmacy.service.DashboardCompositeService;
+import com.gn.pharmacy.service.DashboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Fan-out for /api/dashboard/all. Every request gets its own virtual-thread executor as a scope: one
+ * virtual thread per widget (each calls DashboardService through its proxy, so each keeps its own
+ * read-only transaction), all joined against one deadline. On leaving the scope anything still running
+ * is interrupted and abandoned rather than awaited, so a stuck widget costs its slot, not the response.
+ * The JDBC pool still bounds how many widgets hit the database at once.
+ */
+@Service
+public class DashboardCompositeServiceImpl implements DashboardCompositeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardCompositeServiceImpl.class);
+
+    private final DashboardService dashboardService;
+
+    @Value("${dashboard.all.widget-timeout-ms:3000}")
+    private long widgetTimeoutMs;
+
+    public DashboardCompositeServiceImpl(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    @Override
+    public DashboardAllDto getAll(int year, int recentPrescriptions, int lowStockItems, int topSelling, int topSellingMonths) {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(widgetTimeoutMs);
+        Map<String, String> errors = new LinkedHashMap<>();
+
+        ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<DashboardSummaryDto> summary = scope.submit(dashboardService::getDashboardSummary);
+            Future<MonthlyRevenueDto> revenue = scope.submit(() -> dashboardService.getMonthlyRevenue(year));
+            Future<CategoryDistributionDto> categories = scope.submit(dashboardService::getCategoryDistribution);
+            Future<List<RecentPrescriptionDto>> prescriptions =
+                    scope.submit(() -> dashboardService.getRecentPrescriptions(recentPrescriptions));
+            Future<List<LowStockDto>> lowStock = scope.submit(() -> dashboardService.getLowStockItems(lowStockItems));
+            Future<List<TopSellingDto>> top =
+                    scope.submit(() -> dashboardService.getTopSellingProducts(topSelling, topSellingMonths));
+            Future<ExpirySummaryDto> expiry = scope.submit(dashboardService::getExpirySummary);
+
+            DashboardSummaryDto summaryValue = join("summary", summary, deadline, errors);
+            MonthlyRevenueDto revenueValue = join("monthlyRevenue", revenue, deadline, errors);
+            CategoryDistributionDto categoriesValue = join("categoryDistribution", categories, deadline, errors);
+            List<RecentPrescriptionDto> prescriptionsValue = join("recentPrescriptions", prescriptions, deadline, errors);
+            List<LowStockDto> lowStockValue = join("lowStockItems", lowStock, deadline, errors);
+            List<TopSellingDto> topValue = join("topSelling", top, deadline, errors);
+            ExpirySummaryDto expiryValue = join("expirySummary", expiry, deadline, errors);
+
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (!errors.isEmpty()) {
+                logger.warn("Dashboard fan-out finished in {} ms with {} failed widgets: {}", elapsed, errors.size(), errors);
+            }
+            return new DashboardAllDto(LocalDateTime.now(), elapsed, summaryValue, revenueValue, categoriesValue,
+                    prescriptionsValue, lowStockValue, topValue, expiryValue, Map.copyOf(errors));
+        } finally {
+            scope.shutdownNow();
+        }
+    }
+
+    private <T> T join(String widget, Future<T> future, long deadlineNanos, Map<String, String> errors) {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            errors.put(widget, "Timed out after " + widgetTimeoutMs + " ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("Dashboard widget {} failed: {}", widget, cause.getMessage(), cause);
+            errors.put(widget, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            errors.put(widget, "Interrupted");
+        }
+        return null;
+    }
+}
@@ -1,19 +1,28 @@
 package com.gn.pharmacy.service.serviceImpl;
 
 import com.gn.pharmacy.dto.dashboard.*;
+import com.gn.pharmacy.dto.reports.CategoryCatalogDto;
 import com.gn.pharmacy.entity.*;
 import com.gn.pharmacy.repository.*;
+import com.gn.pharmacy.service.CategoryCatalogService;
 import com.gn.pharmacy.service.DashboardService;
+import com.gn.pharmacy.service.LowStockTrackerService;
+import com.gn.pharmacy.service.OrderArchiveService;
+import com.gn.pharmacy.service.TopSellerTrackerService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -27,48 +36,51 @@ public class DashboardServiceImpl implements DashboardService {
     private final MbPRepository mbpRepository;
     private final PrescriptionRepository prescriptionRepository;
     private final InventoryRepository inventoryRepository;
+    private final LowStockTrackerService lowStockTracker;
+    private final OrderArchiveService orderArchiveService;
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryCatalogService categoryCatalogService;
+    private final TopSellerTrackerService topSellerTracker;
+
+    @Value("${dashboard.revenue-series.max-days:400}")
+    private int maxSeriesDays;
 
     public DashboardServiceImpl(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
-                                ProductRepository productRepository, MbPRepository mbpRepository, PrescriptionRepository prescriptionRepository, InventoryRepository inventoryRepository) {
+                                ProductRepository productRepository, MbPRepository mbpRepository, PrescriptionRepository prescriptionRepository, InventoryRepository inventoryRepository,
+                                LowStockTrackerService lowStockTracker, OrderArchiveService orderArchiveService,
+                                JdbcTemplate jdbcTemplate, CategoryCatalogService categoryCatalogService,
+                                TopSellerTrackerService topSellerTracker) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.productRepository = productRepository;
         this.mbpRepository = mbpRepository;
         this.prescriptionRepository = prescriptionRepository;
         this.inventoryRepository = inventoryRepository;
+        this.lowStockTracker = lowStockTracker;
+        this.orderArchiveService = orderArchiveService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryCatalogService = categoryCatalogService;
+        this.topSellerTracker = topSellerTracker;
     }
 
     @Override
     public DashboardSummaryDto getDashboardSummary() {
         BigDecimal totalProfit = orderRepository.sumTotalAmountByStatus("COMPLETED").orElse(BigDecimal.ZERO);
+        if (orderArchiveService.rangeIncludesArchive(null)) {
+            totalProfit = totalProfit.add(orderRepository.sumArchivedTotalAmountByStatus("COMPLETED").orElse(BigDecimal.ZERO));
+        }
         long totalPrescriptions = prescriptionRepository.count();
 
-        long totalInventoryItems = productRepository.findAll().stream()
-                .mapToLong(p -> Optional.ofNullable(p.getTotalCalculatedStock()).orElse(0))
-                .sum() +
-                mbpRepository.findAll().stream()
-                        .mapToLong(m -> Optional.ofNullable(m.getTotalCalculatedStock()).orElse(0))
-                        .sum();
+        long totalInventoryItems = inventoryRepository.sumAllUnitsOnHand();
 
-        // FIXED: Use variant sum instead of getQuantity()
-        long lowStockItems = inventoryRepository.findAll().stream()
-                .filter(batch -> batch.getVariants().stream()
-                        .mapToInt(v -> v.getQuantity() != null ? v.getQuantity() : 0)
-                        .sum() < 20)
-                .count();
+        // Served from the event-driven tracker instead of scanning every batch
+        long lowStockItems = lowStockTracker.countLowStockItems();
 
         YearMonth current = YearMonth.now();
         YearMonth last = current.minusMonths(1);
 
-        BigDecimal currentMonthProfit = orderRepository.sumTotalAmountByMonth(
-                String.valueOf(current.getYear()),
-                String.format("%02d", current.getMonthValue())
-        ).orElse(BigDecimal.ZERO);
-
-        BigDecimal lastMonthProfit = orderRepository.sumTotalAmountByMonth(
-                String.valueOf(last.getYear()),
-                String.format("%02d", last.getMonthValue())
-        ).orElse(BigDecimal.ZERO);
+        BigDecimal currentMonthProfit = sumForMonth(current);
+        BigDecimal lastMonthProfit = sumForMonth(last);
 
         String trend = currentMonthProfit.compareTo(lastMonthProfit) >= 0 ? "up" : "down";
         double change = lastMonthProfit.compareTo(BigDecimal.ZERO) == 0 ? 0 :
@@ -83,23 +95,90 @@ public class DashboardServiceImpl implements DashboardService {
     @Override
     public MonthlyRevenueDto getMonthlyRevenue(int year) {
         List<String> months = List.of("Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec");
+        RevenueSeriesDto series = getRevenueSeries(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31), "month");
+        return new MonthlyRevenueDto(months, series.revenues());
+    }
+
+    // Bucket start date per granularity, computed in SQL so one grouped query returns the whole series
+    private static final Map<String, String> BUCKET_EXPRESSIONS = Map.of(
+            "day", "DATE(placed_at)",
+            "week", "DATE_SUB(DATE(placed_at), INTERVAL WEEKDAY(placed_at) DAY)",
+            "month", "DATE_SUB(DATE(placed_at), INTERVAL DAYOFMONTH(placed_at) - 1 DAY)"
+    );
+
+    private static final String REVENUE_SERIES_SQL =
+            "SELECT %s AS bucket, COALESCE(SUM(total_amount), 0) FROM %s " +
+                    "WHERE placed_at >= ? AND placed_at < ? GROUP BY bucket";
+
+    @Override
+    public RevenueSeriesDto getRevenueSeries(LocalDate from, LocalDate to, String granularity) {
+        String unit = granularity != null ? granularity.trim().toLowerCase(Locale.ROOT) : "";
+        String bucket = BUCKET_EXPRESSIONS.get(unit);
+        if (bucket == null) {
+            throw new IllegalArgumentException("granularity must be day, week or month");
+        }
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("from and to are required and from must not be after to");
+        }
+        if (unit.equals("day") && ChronoUnit.DAYS.between(from, to) >= maxSeriesDays) {
+            throw new IllegalArgumentException("Daily series are limited to " + maxSeriesDays + " days");
+        }
 
+        LocalDateTime start = from.atStartOfDay();
+        Timestamp startTs = Timestamp.valueOf(start);
+        Timestamp endTs = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+        Map<LocalDate, BigDecimal> sums = new HashMap<>();
+        List<String> tables = orderArchiveService.rangeIncludesArchive(start)
+                ? List.of("orders_table", OrderArchiveService.ORDERS_ARCHIVE)
+                : List.of("orders_table");
+        for (String table : tables) {
+            jdbcTemplate.query(String.format(REVENUE_SERIES_SQL, bucket, table), rs -> {
+                sums.merge(rs.getDate(1).toLocalDate(), rs.getBigDecimal(2), BigDecimal::add);
+            }, startTs, endTs);
+        }
+        return fillSeries(unit, from, to, sums);
+    }
+
+    // One label per bucket from the bucket holding from up to to, with 0 for buckets that had no orders
+    static RevenueSeriesDto fillSeries(String unit, LocalDate from, LocalDate to, Map<LocalDate, BigDecimal> sums) {
+        LocalDate first = switch (unit) {
+            case "week" -> from.with(DayOfWeek.MONDAY);
+            case "month" -> from.withDayOfMonth(1);
+            default -> from;
+        };
+        List<String> labels = new ArrayList<>();
         List<BigDecimal> revenues = new ArrayList<>();
-        String yearStr = String.valueOf(year);
-        for (int i = 1; i <= 12; i++) {
-            String monthStr = String.format("%02d", i);
-            BigDecimal amount = orderRepository.sumTotalAmountByMonth(yearStr, monthStr).orElse(BigDecimal.ZERO);
-            revenues.add(amount);
+        for (LocalDate d = first; !d.isAfter(to); d = switch (unit) {
+            case "week" -> d.plusWeeks(1);
+            case "month" -> d.plusMonths(1);
+            default -> d.plusDays(1);
+        }) {
+            labels.add(d.toString());
+            revenues.add(sums.getOrDefault(d, BigDecimal.ZERO));
+        }
+        return new RevenueSeriesDto(unit, from, to, labels, revenues);
+    }
+
+    private BigDecimal sumForMonth(YearMonth month) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        BigDecimal sum = orderRepository.sumTotalAmountBetween(from, to).orElse(BigDecimal.ZERO);
+        if (orderArchiveService.rangeIncludesArchive(from)) {
+            sum = sum.add(orderRepository.sumArchivedTotalAmountBetween(from, to).orElse(BigDecimal.ZERO));
         }
-        return new MonthlyRevenueDto(months, revenues);
+        return sum;
     }
 
     @Override
     public CategoryDistributionDto getCategoryDistribution() {
-        Map<String, Long> map = new HashMap<>();
-        productRepository.findAll().forEach(p -> map.merge(p.getProductCategory() != null ? p.getProductCategory() : "Uncategorized", 1L, Long::sum));
-        mbpRepository.findAll().forEach(m -> map.merge(m.getCategory() != null ? m.getCategory() : "Mother & Baby", 1L, Long::sum));
-        return new CategoryDistributionDto(new ArrayList<>(map.keySet()), new ArrayList<>(map.values()));
+        // Same totals as before (every row, deleted included), read from the cached grouped counts
+        List<String> categories = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        for (CategoryCatalogDto.CategoryEntry entry : categoryCatalogService.getCatalog().categories()) {
+            categories.add(entry.counts().name());
+            counts.add(entry.counts().total());
+        }
+        return new CategoryDistributionDto(categories, counts);
     }
 
     @Override
@@ -119,32 +198,23 @@ public class DashboardServiceImpl implements DashboardService {
 
     @Override
     public List<LowStockDto> getLowStockItems(int limit) {
-        return inventoryRepository.findAll().stream()
-                // FIXED: Use variant sum instead of getQuantity()
-                .filter(b -> b.getVariants().stream()
-                        .mapToInt(v -> v.getQuantity() != null ? v.getQuantity() : 0)
-                        .sum() < 30)
-                .sorted(Comparator.comparingInt(b -> b.getVariants().stream()
-                        .mapToInt(v -> v.getQuantity() != null ? v.getQuantity() : 0)
-                        .sum()))
-                .limit(limit)
-                .map(b -> {
-                    String name = b.getProduct() != null ? b.getProduct().getProductName() : b.getMbp() != null ? b.getMbp().getTitle() : "Unknown";
-                    String sku = b.getProduct() != null ? b.getProduct().getSku() : b.getMbp() != null ? b.getMbp().getSku() : "";
-                    int totalQty = b.getVariants().stream()
-                            .mapToInt(v -> v.getQuantity() != null ? v.getQuantity() : 0)
-                            .sum();
-                    String level = totalQty == 0 ? "Out" : totalQty < 10 ? "Critical" : "Low";
-                    return new LowStockDto(name, sku, totalQty, level);
-                })
-                .toList();
+        return lowStockTracker.getLowStockItems(limit);
     }
 
     @Override
     public List<TopSellingDto> getTopSellingProducts(int limit, int months) {
         LocalDateTime fromDate = LocalDateTime.now().minusMonths(months);
 
-        return orderItemRepository.findTopSelling(fromDate, limit).stream()
+        // Day-aligned window from the in-memory summaries; the grouped query only when they cannot answer it
+        Optional<List<TopSellingDto>> tracked = topSellerTracker.topSellers(fromDate.toLocalDate(), limit);
+        if (tracked.isPresent()) {
+            return tracked.get();
+        }
+
+        List<Object[]> rows = orderArchiveService.rangeIncludesArchive(fromDate)
+                ? orderItemRepository.findTopSellingIncludingArchive(fromDate, limit)
+                : orderItemRepository.findTopSelling(fromDate, limit);
+        return rows.stream()
                 .map(row -> new TopSellingDto(
                         (String) row[0],               // product_name
                         ((Number) row[1]).longValue(), // total_quantity
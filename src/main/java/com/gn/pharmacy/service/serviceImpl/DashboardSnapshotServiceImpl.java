@@ -0,0 +1,161 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.dashboard.*;
+import com.gn.pharmacy.event.CatalogChangedEvent;
+import com.gn.pharmacy.event.StockChangedEvent;
+import com.gn.pharmacy.service.DashboardService;
+import com.gn.pharmacy.service.DashboardSnapshotService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Dashboard widgets precomputed off the request path. One refresher thread rebuilds the whole
+ * snapshot - on a fixed schedule, shortly after stock changes (debounced, so an order burst costs one
+ * rebuild) and when a reader finds it older than max-age - and swaps it in atomically. Readers never
+ * block on a rebuild and always see one consistent snapshot.
+ */
+@Service
+@Lazy(false)
+public class DashboardSnapshotServiceImpl implements DashboardSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardSnapshotServiceImpl.class);
+
+    private final DashboardService dashboardService;
+    private final AtomicReference<DashboardSnapshotDto> snapshot = new AtomicReference<>();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private final ScheduledExecutorService refresher;
+
+    @Value("${dashboard.snapshot.max-age-ms:120000}")
+    private long maxAgeMs;
+
+    @Value("${dashboard.snapshot.change-debounce-ms:2000}")
+    private long changeDebounceMs;
+
+    @Value("${dashboard.snapshot.recent-prescriptions:10}")
+    private int recentPrescriptions;
+
+    @Value("${dashboard.snapshot.low-stock-items:50}")
+    private int lowStockItems;
+
+    @Value("${dashboard.snapshot.top-selling:10}")
+    private int topSelling;
+
+    @Value("${dashboard.snapshot.top-selling-months:3}")
+    private int topSellingMonths;
+
+    public DashboardSnapshotServiceImpl(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-snapshot-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        schedule(0);
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.snapshot.refresh-interval-ms:60000}",
+            initialDelayString = "${dashboard.snapshot.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        schedule(0);
+    }
+
+    // Orders, cancellations and batch edits all publish this after commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        schedule(changeDebounceMs);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        schedule(changeDebounceMs);
+    }
+
+    @Override
+    public DashboardSnapshotDto getSnapshot() {
+        DashboardSnapshotDto current = snapshot.get();
+        if (current == null) {
+            return buildFirst();
+        }
+        if (Duration.between(current.generatedAt(), LocalDateTime.now()).toMillis() > maxAgeMs) {
+            schedule(0);     // serve the stale one now, the next reader gets the fresh one
+        }
+        return current;
+    }
+
+    @Override
+    public void requestRefresh() {
+        schedule(0);
+    }
+
+    private void schedule(long delayMs) {
+        if (refreshQueued.compareAndSet(false, true)) {
+            refresher.schedule(this::refresh, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh() {
+        // Cleared before building so a change arriving mid-build queues one more run
+        refreshQueued.set(false);
+        try {
+            snapshot.set(build());
+        } catch (RuntimeException e) {
+            logger.warn("Dashboard snapshot refresh failed, keeping the previous snapshot: {}", e.getMessage(), e);
+        }
+    }
+
+    // Only reached before the warm-up build finished; concurrent first readers share one build
+    private synchronized DashboardSnapshotDto buildFirst() {
+        DashboardSnapshotDto current = snapshot.get();
+        if (current == null) {
+            current = build();
+            snapshot.compareAndSet(null, current);
+        }
+        return current;
+    }
+
+    private DashboardSnapshotDto build() {
+        long started = System.currentTimeMillis();
+        LocalDateTime generatedAt = LocalDateTime.now();
+        int year = Year.now().getValue();
+
+        DashboardSummaryDto summary = dashboardService.getDashboardSummary();
+        MonthlyRevenueDto monthlyRevenue = dashboardService.getMonthlyRevenue(year);
+        CategoryDistributionDto categories = dashboardService.getCategoryDistribution();
+        List<RecentPrescriptionDto> prescriptions = dashboardService.getRecentPrescriptions(recentPrescriptions);
+        List<LowStockDto> lowStock = dashboardService.getLowStockItems(lowStockItems);
+        List<TopSellingDto> top = dashboardService.getTopSellingProducts(topSelling, topSellingMonths);
+        ExpirySummaryDto expiry = dashboardService.getExpirySummary();
+
+        long took = System.currentTimeMillis() - started;
+        logger.debug("Dashboard snapshot built in {} ms", took);
+        return new DashboardSnapshotDto(generatedAt, took, summary, year, monthlyRevenue, categories,
+                prescriptions, lowStock, topSellingMonths, top, expiry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,396 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gn.pharmacy.entity.EmailOutboxEntity;
+import com.gn.pharmacy.event.EmailQueuedEvent;
+import com.gn.pharmacy.repository.EmailOutboxRepository;
+import com.gn.pharmacy.service.EmailOutboxService;
+import com.gn.pharmacy.service.EmailService;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transactional email outbox. Callers only insert a row; after commit a single coordinator claims due
+ * rows (FOR UPDATE SKIP LOCKED, so several instances can run side by side) and hands them to a small
+ * sender pool. Each sender pushes its slice through one SMTP connection. Failures are retried with
+ * exponential backoff until mail.outbox.max-attempts, then parked as FAILED. Messages with an expiry
+ * (OTPs) are parked once it passes instead of being sent late, and a message that can't be rendered
+ * fails at once since a retry would render it the same way.
+ */
+@Service
+@Lazy(false)
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxServiceImpl.class);
+
+    private static final String TYPE_OTP = "OTP";
+    private static final String TYPE_ORDER_CONFIRMATION = "ORDER_CONFIRMATION";
+
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_SENDING = "SENDING";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final String CLAIM_SQL =
+            "SELECT outbox_id FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= ? " +
+                    "AND (expires_at IS NULL OR expires_at > ?) ORDER BY next_attempt_at, outbox_id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String MARK_SENT_SQL =
+            "UPDATE email_outbox SET status = 'SENT', sent_at = ?, payload = NULL, locked_until = NULL, last_error = NULL " +
+                    "WHERE outbox_id = ?";
+    private static final String MARK_RETRY_SQL =
+            "UPDATE email_outbox SET status = ?, next_attempt_at = ?, locked_until = NULL, last_error = ? WHERE outbox_id = ?";
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final JavaMailSender mailSender;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    // One coordinator claims and records; the sender pool only talks SMTP
+    private final ExecutorService coordinator;
+    private final ExecutorService senderPool;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean wakeUp = new AtomicBoolean(false);
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.messages-per-session:20}")
+    private int messagesPerSession;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${mail.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    @Value("${mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${mail.outbox.retain-sent-days:7}")
+    private int retainSentDays;
+
+    private record OutboxRow(Long id, String type, String recipient, String subject, String payload, int attempts,
+                             LocalDateTime expiresAt) {}
+
+    // permanent: retrying can't help (e.g. the template failed to render)
+    private record Outcome(OutboxRow row, String error, boolean permanent) {}
+
+    public EmailOutboxServiceImpl(EmailOutboxRepository outboxRepository, EmailService emailService,
+                                  JavaMailSender mailSender, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                  ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                                  @Value("${mail.outbox.dispatcher-threads:4}") int dispatcherThreads) {
+        this.outboxRepository = outboxRepository;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.coordinator = Executors.newSingleThreadExecutor(namedThreads("email-outbox-coordinator"));
+        this.senderPool = Executors.newFixedThreadPool(Math.max(1, dispatcherThreads), namedThreads("email-outbox-sender"));
+    }
+
+    // ==================== ENQUEUE ====================
+
+    @Override
+    @Transactional
+    public void enqueueOtpEmail(String toEmail, String subject, String otp, LocalDateTime expiresAt) {
+        enqueue(TYPE_OTP, toEmail, subject, Map.of("otp", otp), expiresAt);
+    }
+
+    @Override
+    @Transactional
+    public void enqueueOrderConfirmation(String toEmail, String customerName, String orderId,
+                                         BigDecimal totalAmount, List<String> productNames, String mobile) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("customerName", customerName);
+        payload.put("orderId", orderId);
+        payload.put("totalAmount", totalAmount);
+        payload.put("productNames", productNames);
+        payload.put("mobile", mobile);
+        enqueue(TYPE_ORDER_CONFIRMATION, toEmail, "Order Placed Successfully - Good Neews", payload, null);
+    }
+
+    private void enqueue(String type, String recipient, String subject, Map<String, Object> payload,
+                         LocalDateTime expiresAt) {
+        if (recipient == null || recipient.isBlank()) {
+            throw new IllegalArgumentException("Email recipient is required");
+        }
+        EmailOutboxEntity entity = new EmailOutboxEntity();
+        entity.setEmailType(type);
+        entity.setRecipient(recipient.trim());
+        entity.setSubject(subject);
+        try {
+            entity.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize email payload", e);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        entity.setStatus(STATUS_PENDING);
+        entity.setAttempts(0);
+        entity.setNextAttemptAt(now);
+        entity.setExpiresAt(expiresAt);
+        entity.setCreatedAt(now);
+        outboxRepository.save(entity);
+
+        eventPublisher.publishEvent(new EmailQueuedEvent(entity.getOutboxId()));
+    }
+
+    // ==================== DISPATCH ====================
+
+    // Fires after the enqueuing transaction commits (never for a rolled-back one)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailQueuedEvent event) {
+        triggerDispatch();
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:10000}")
+    public void poll() {
+        releaseExpiredLeases();
+        expireOverdue();
+        triggerDispatch();
+    }
+
+    // Coalesces wake-ups: at most one dispatch loop runs, and a wake-up during a run causes one more pass
+    private void triggerDispatch() {
+        wakeUp.set(true);
+        if (!running.compareAndSet(false, true)) return;
+        try {
+            coordinator.execute(() -> {
+                try {
+                    while (wakeUp.getAndSet(false)) {
+                        while (dispatchDue() >= batchSize) {
+                            // full batch - there may be more due
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Email outbox dispatch failed: {}", e.getMessage(), e);
+                } finally {
+                    running.set(false);
+                }
+                if (wakeUp.get()) triggerDispatch();
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);     // shutting down
+        }
+    }
+
+    @Override
+    public int dispatchDue() {
+        List<OutboxRow> claimed = claimBatch();
+        if (claimed.isEmpty()) return 0;
+
+        List<Callable<List<Outcome>>> sessions = new ArrayList<>();
+        for (int from = 0; from < claimed.size(); from += messagesPerSession) {
+            List<OutboxRow> slice = claimed.subList(from, Math.min(from + messagesPerSession, claimed.size()));
+            sessions.add(() -> sendSession(slice));
+        }
+
+        List<Outcome> outcomes = new ArrayList<>(claimed.size());
+        try {
+            for (Future<List<Outcome>> future : senderPool.invokeAll(sessions)) {
+                outcomes.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return claimed.size();      // leases expire and the rows are picked up again
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        recordOutcomes(outcomes);
+        return claimed.size();
+    }
+
+    private List<OutboxRow> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, Timestamp.valueOf(now),
+                    Timestamp.valueOf(now), batchSize);
+            if (ids.isEmpty()) return List.of();
+
+            String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+            List<Object> params = new ArrayList<>();
+            params.add(STATUS_SENDING);
+            params.add(Timestamp.valueOf(now.plusSeconds(leaseSeconds)));
+            params.addAll(ids);
+            jdbcTemplate.update("UPDATE email_outbox SET status = ?, locked_until = ?, attempts = attempts + 1 " +
+                    "WHERE outbox_id IN (" + in + ")", params.toArray());
+
+            return jdbcTemplate.query("SELECT outbox_id, email_type, recipient, subject, payload, attempts, expires_at " +
+                            "FROM email_outbox WHERE outbox_id IN (" + in + ") ORDER BY outbox_id",
+                    (rs, rowNum) -> {
+                        Timestamp expiresAt = rs.getTimestamp(7);
+                        return new OutboxRow(rs.getLong(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4), rs.getString(5), rs.getInt(6),
+                                expiresAt != null ? expiresAt.toLocalDateTime() : null);
+                    },
+                    ids.toArray());
+        });
+    }
+
+    // All messages of the slice go through one send() call, i.e. one SMTP connection
+    private List<Outcome> sendSession(List<OutboxRow> rows) {
+        List<Outcome> outcomes = new ArrayList<>(rows.size());
+        List<OutboxRow> sendable = new ArrayList<>(rows.size());
+        List<MimeMessage> messages = new ArrayList<>(rows.size());
+        for (OutboxRow row : rows) {
+            try {
+                messages.add(render(row));
+                sendable.add(row);
+            } catch (Exception e) {
+                outcomes.add(new Outcome(row, "Render failed: " + e.getMessage(), true));
+            }
+        }
+        if (messages.isEmpty()) return outcomes;
+
+        Map<Object, Exception> failed = Map.of();
+        String sessionError = null;
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+            if (failed.isEmpty()) sessionError = e.getMessage();
+        } catch (MailException e) {
+            sessionError = e.getMessage();     // connect / auth failure: nothing in this slice went out
+        }
+
+        for (int i = 0; i < sendable.size(); i++) {
+            Exception error = failed.get(messages.get(i));
+            String message = sessionError != null ? sessionError : (error != null ? error.getMessage() : null);
+            outcomes.add(new Outcome(sendable.get(i), message, false));
+        }
+        return outcomes;
+    }
+
+    private MimeMessage render(OutboxRow row) throws Exception {
+        Map<String, Object> payload = objectMapper.readValue(row.payload(), new TypeReference<>() {});
+        return switch (row.type()) {
+            case TYPE_OTP -> emailService.createOtpMessage(row.recipient(), row.subject(), (String) payload.get("otp"));
+            case TYPE_ORDER_CONFIRMATION -> {
+                Object total = payload.get("totalAmount");
+                @SuppressWarnings("unchecked")
+                List<String> productNames = (List<String>) payload.getOrDefault("productNames", List.of());
+                yield emailService.createOrderConfirmationMessage(row.recipient(),
+                        (String) payload.get("customerName"), (String) payload.get("orderId"),
+                        total != null ? new BigDecimal(total.toString()) : BigDecimal.ZERO,
+                        productNames, (String) payload.get("mobile"));
+            }
+            default -> throw new IllegalStateException("Unknown email type " + row.type());
+        };
+    }
+
+    private void recordOutcomes(List<Outcome> outcomes) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> sent = new ArrayList<>();
+        List<Object[]> retries = new ArrayList<>();
+        AtomicInteger parked = new AtomicInteger();
+
+        for (Outcome outcome : outcomes) {
+            OutboxRow row = outcome.row();
+            if (outcome.error() == null) {
+                sent.add(new Object[]{Timestamp.valueOf(now), row.id()});
+                continue;
+            }
+            LocalDateTime nextAttempt = now.plusSeconds(backoffSeconds(row.attempts(), backoffBaseSeconds, backoffMaxSeconds));
+            boolean giveUp = outcome.permanent() || row.attempts() >= maxAttempts
+                    || (row.expiresAt() != null && !nextAttempt.isBefore(row.expiresAt()));
+            if (giveUp) parked.incrementAndGet();
+            String error = outcome.error().length() > 1000 ? outcome.error().substring(0, 1000) : outcome.error();
+            retries.add(new Object[]{giveUp ? STATUS_FAILED : STATUS_PENDING, Timestamp.valueOf(nextAttempt), error, row.id()});
+            logger.warn("Email {} ({} to {}) attempt {} failed: {}", row.id(), row.type(), row.recipient(),
+                    row.attempts(), error);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) jdbcTemplate.batchUpdate(MARK_SENT_SQL, sent);
+            if (!retries.isEmpty()) jdbcTemplate.batchUpdate(MARK_RETRY_SQL, retries);
+        });
+
+        logger.info("Email outbox: {} sent, {} to retry, {} failed permanently",
+                sent.size(), retries.size() - parked.get(), parked.get());
+    }
+
+    // base * 2^(attempt-1), capped, with up to 20% jitter so a failed burst doesn't retry in lockstep
+    static long backoffSeconds(int attempts, long baseSeconds, long maxSeconds) {
+        long exp = baseSeconds << Math.min(Math.max(attempts - 1, 0), 20);
+        long capped = Math.min(exp, maxSeconds);
+        return capped + ThreadLocalRandom.current().nextLong(capped / 5 + 1);
+    }
+
+    // A lost lease counts as a failed attempt: rows out of attempts or past their expiry are parked, not re-queued
+    private void releaseExpiredLeases() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int released = jdbcTemplate.update(
+                "UPDATE email_outbox SET status = CASE WHEN attempts >= ? OR expires_at <= ? THEN 'FAILED' ELSE 'PENDING' END, " +
+                        "locked_until = NULL, last_error = 'Send lease expired' " +
+                        "WHERE status = 'SENDING' AND locked_until < ?", maxAttempts, now, now);
+        if (released > 0) {
+            logger.warn("Released {} email outbox rows whose send lease expired", released);
+        }
+    }
+
+    // The payload of an expired message (the OTP itself) is dropped along with it
+    private void expireOverdue() {
+        int expired = jdbcTemplate.update(
+                "UPDATE email_outbox SET status = 'FAILED', payload = NULL, last_error = 'Expired before delivery' " +
+                        "WHERE status = 'PENDING' AND expires_at <= ?", Timestamp.valueOf(LocalDateTime.now()));
+        if (expired > 0) {
+            logger.warn("Dropped {} email outbox rows that expired before they could be sent", expired);
+        }
+    }
+
+    @Scheduled(cron = "${mail.outbox.purge-cron:0 15 3 * * *}")
+    @Transactional
+    public void purgeSent() {
+        int removed = outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retainSentDays));
+        if (removed > 0) {
+            logger.info("Purged {} sent emails from the outbox", removed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdown();
+        senderPool.shutdown();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,258 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gn.pharmacy.repository.IdempotencyKeyRepository;
+import com.gn.pharmacy.service.IdempotencyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency key store: idempotency_keys is the source of truth (shared by all instances), an LRU map
+ * answers hot replays without a query, and an in-flight map of futures makes concurrent duplicates on
+ * this instance wait for the first execution instead of hitting the database.
+ */
+@Service
+@Lazy(false)
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    private static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO idempotency_keys (idempotency_key, request_hash, status, created_at, expires_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_SQL =
+            "SELECT request_hash, status, response_json, created_at, expires_at FROM idempotency_keys WHERE idempotency_key = ?";
+    private static final String COMPLETE_SQL =
+            "UPDATE idempotency_keys SET status = ?, response_json = ?, expires_at = ? WHERE idempotency_key = ?";
+    private static final String DELETE_SQL =
+            "DELETE FROM idempotency_keys WHERE idempotency_key = ? AND created_at = ?";
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StoredResponse> cache;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // An IN_PROGRESS row older than this is treated as abandoned (crashed instance) and can be taken over
+    @Value("${idempotency.in-progress-timeout-seconds:120}")
+    private long inProgressTimeoutSeconds;
+
+    private record StoredResponse(String requestHash, String json, LocalDateTime expiresAt) {
+        boolean expired() {
+            return !expiresAt.isAfter(LocalDateTime.now());
+        }
+    }
+
+    private record KeyRow(String requestHash, String status, String json, Timestamp createdAt, LocalDateTime expiresAt) {}
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository idempotencyKeyRepository, JdbcTemplate jdbcTemplate,
+                                  ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                                  @Value("${idempotency.cache.max-entries:10000}") int cacheMaxEntries) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        });
+    }
+
+    @Override
+    public <T> Result<T> execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String fullKey = scope + ":" + key;
+        String requestHash = hash(toJson(request));
+
+        StoredResponse cached = cache.get(fullKey);
+        if (cached != null && !cached.expired()) {
+            return replay(cached, requestHash, responseType);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(fullKey, mine);
+        if (running != null) {
+            return replay(await(running), requestHash, responseType);
+        }
+
+        try {
+            StoredResponse stored = claim(fullKey, requestHash);
+            if (stored != null) {
+                cache.put(fullKey, stored);
+                mine.complete(stored);
+                return replay(stored, requestHash, responseType);
+            }
+
+            LocalDateTime expiresAt = LocalDateTime.now().plusHours(ttlHours);
+            Object[] outcome;
+            try {
+                // Action and key completion commit together: no order without its key, no key without its order
+                outcome = transactionTemplate.execute(status -> {
+                    T body = action.get();
+                    String json = toJson(body);
+                    jdbcTemplate.update(COMPLETE_SQL, STATUS_COMPLETED, json, Timestamp.valueOf(expiresAt), fullKey);
+                    return new Object[]{body, json};
+                });
+            } catch (RuntimeException e) {
+                release(fullKey);
+                throw e;
+            }
+
+            StoredResponse done = new StoredResponse(requestHash, (String) outcome[1], expiresAt);
+            cache.put(fullKey, done);
+            mine.complete(done);
+            return new Result<>(responseType.cast(outcome[0]), false);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(fullKey, mine);
+        }
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public int purgeExpired() {
+        int removed = idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+        synchronized (cache) {
+            cache.values().removeIf(StoredResponse::expired);
+        }
+        if (removed > 0) {
+            logger.info("Purged {} expired idempotency keys", removed);
+        }
+        return removed;
+    }
+
+    // Inserts the IN_PROGRESS row in its own committed transaction so other instances see the claim.
+    // Returns the stored response when the key was already completed.
+    private StoredResponse claim(String fullKey, String requestHash) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                newTransactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, fullKey, requestHash,
+                        STATUS_IN_PROGRESS, Timestamp.valueOf(now), Timestamp.valueOf(now.plusHours(ttlHours))));
+                return null;
+            } catch (DuplicateKeyException e) {
+                KeyRow row = newTransactionTemplate.execute(status -> jdbcTemplate.query(SELECT_SQL, rs -> rs.next()
+                        ? new KeyRow(rs.getString(1), rs.getString(2), rs.getString(3), rs.getTimestamp(4),
+                        rs.getTimestamp(5).toLocalDateTime())
+                        : null, fullKey));
+                if (row == null) continue;      // released meanwhile
+
+                boolean abandoned = STATUS_IN_PROGRESS.equals(row.status())
+                        && row.createdAt().toLocalDateTime().isBefore(now.minusSeconds(inProgressTimeoutSeconds));
+                if (!row.expiresAt().isAfter(now) || abandoned) {
+                    newTransactionTemplate.executeWithoutResult(status ->
+                            jdbcTemplate.update(DELETE_SQL, fullKey, row.createdAt()));
+                    continue;
+                }
+                if (!row.requestHash().equals(requestHash)) {
+                    throw keyReusedException();
+                }
+                if (STATUS_COMPLETED.equals(row.status())) {
+                    return new StoredResponse(row.requestHash(), row.json(), row.expiresAt());
+                }
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "A request with this Idempotency-Key is still being processed - retry shortly");
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Could not claim Idempotency-Key - retry shortly");
+    }
+
+    // Failed executions free the key so the client can retry with it
+    private void release(String fullKey) {
+        try {
+            newTransactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                    "DELETE FROM idempotency_keys WHERE idempotency_key = ? AND status = ?", fullKey, STATUS_IN_PROGRESS));
+        } catch (RuntimeException e) {
+            logger.warn("Could not release idempotency key {}: {}", fullKey, e.getMessage());
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(inProgressTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed - retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for duplicate request", e);
+        }
+    }
+
+    private <T> Result<T> replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw keyReusedException();
+        }
+        try {
+            return new Result<>(objectMapper.readValue(stored.json(), responseType), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
+    }
+
+    private static ResponseStatusException keyReusedException() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                "Idempotency-Key was already used with a different request");
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize for idempotency store", e);
+        }
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
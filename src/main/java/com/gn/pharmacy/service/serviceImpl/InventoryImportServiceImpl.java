@@ -0,0 +1,531 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.inventory.InventoryImportResultDto;
+import com.gn.pharmacy.dto.inventory.InventoryImportRowErrorDto;
+import com.gn.pharmacy.entity.StockMovementReason;
+import com.gn.pharmacy.event.StockChangedEvent;
+import com.gn.pharmacy.repository.InventoryRepository;
+import com.gn.pharmacy.repository.MbPRepository;
+import com.gn.pharmacy.repository.ProductRepository;
+import com.gn.pharmacy.service.InventoryImportService;
+import com.gn.pharmacy.service.StockLedgerService;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Bulk inventory import. The file is parsed as a stream (BufferedReader for CSV, POI SAX events for XLSX)
+ * and rows are handed over in chunks; each chunk resolves its SKUs and duplicate batches with one query
+ * per table and inserts batches + variants with JDBC batches in its own transaction, so a bad chunk only
+ * rolls back its own rows.
+ *
+ * File layout: one row per batch variant; consecutive rows with the same SKU and batch no form one batch.
+ */
+@Service
+public class InventoryImportServiceImpl implements InventoryImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryImportServiceImpl.class);
+
+    private static final String COL_SKU = "sku";
+    private static final String COL_BATCH_NO = "batch no";
+    private static final String COL_SIZE = "size";
+    private static final String COL_QUANTITY = "quantity";
+    private static final String COL_MFG_DATE = "mfg date";
+    private static final String COL_EXPIRY_DATE = "expiry date";
+    private static final String COL_STOCK_STATUS = "stock status";
+
+    private static final List<String> REQUIRED_COLUMNS = List.of(COL_SKU, COL_BATCH_NO, COL_QUANTITY);
+
+    private static final String INSERT_BATCH_SQL =
+            "INSERT INTO product_inventory (product_id, mbp_id, batch_no, stock_status, last_updated) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_VARIANT_SQL =
+            "INSERT INTO inventory_variants (inventory_id, size, quantity, mfg_date, exp_date) VALUES (?, ?, ?, ?, ?)";
+
+    private final ProductRepository productRepository;
+    private final MbPRepository mbpRepository;
+    private final InventoryRepository inventoryRepository;
+    private final StockLedgerService stockLedgerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.import.chunk-size:500}")
+    private int chunkSize;
+
+    public InventoryImportServiceImpl(ProductRepository productRepository, MbPRepository mbpRepository,
+                                      InventoryRepository inventoryRepository, StockLedgerService stockLedgerService,
+                                      ApplicationEventPublisher eventPublisher, JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.mbpRepository = mbpRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public InventoryImportResultDto importBatches(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Import file is empty");
+        }
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload";
+        String lowerName = fileName.toLowerCase();
+
+        long start = System.currentTimeMillis();
+        ImportRun run = new ImportRun("IMPORT-" + start);
+        logger.info("Inventory import started: {} ({} bytes, chunk size {})", fileName, file.getSize(), chunkSize);
+
+        try {
+            if (lowerName.endsWith(".csv")) {
+                parseCsv(file, run);
+            } else if (lowerName.endsWith(".xlsx")) {
+                parseXlsx(file, run);
+            } else {
+                throw new IllegalArgumentException("Unsupported file type - upload a .csv or .xlsx file");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read import file: " + e.getMessage(), e);
+        }
+        run.finish();
+
+        long duration = System.currentTimeMillis() - start;
+        logger.info("Inventory import finished: {} - {} rows, {} imported into {} batches, {} failed, {} ms",
+                fileName, run.totalRows, run.importedRows, run.importedBatches, run.errors.size(), duration);
+
+        return new InventoryImportResultDto(fileName, run.totalRows, run.importedRows, run.importedBatches,
+                run.errors.size(), run.chunksCommitted, duration, run.errors);
+    }
+
+    // ==================== PARSERS ====================
+
+    private void parseCsv(MultipartFile file, ImportRun run) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IllegalArgumentException("CSV file has no header row");
+            }
+            if (line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            run.header(splitCsvLine(line));
+
+            int rowNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                rowNumber++;
+                run.row(rowNumber, splitCsvLine(line));
+            }
+        }
+    }
+
+    // Quoted fields with "" escapes are supported; line breaks inside a quoted field are not
+    private static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private void parseXlsx(MultipartFile file, ImportRun run) throws IOException {
+        // OPCPackage reads a file lazily; opening the upload stream directly would buffer the whole zip
+        File tempFile = Files.createTempFile("inventory-import-", ".xlsx").toFile();
+        try {
+            file.transferTo(tempFile);
+            try (OPCPackage pkg = OPCPackage.open(tempFile, PackageAccess.READ)) {
+                XSSFReader xssfReader = new XSSFReader(pkg);
+                ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+                StylesTable styles = xssfReader.getStylesTable();
+
+                Iterator<InputStream> sheets = xssfReader.getSheetsData();
+                if (!sheets.hasNext()) {
+                    throw new IllegalArgumentException("Excel file has no sheets");
+                }
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(
+                            styles, null, strings, new SheetRowHandler(run), new DataFormatter(), false));
+                    parser.parse(new InputSource(sheet));
+                }
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Could not read Excel file: " + e.getMessage(), e);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static final class SheetRowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final ImportRun run;
+        private final List<String> cells = new ArrayList<>();
+        private int nextColumn;
+        private boolean headerSeen;
+
+        private SheetRowHandler(ImportRun run) {
+            this.run = run;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            while (cells.size() < column) {
+                cells.add("");          // missing cells are not reported by the SAX reader
+            }
+            cells.add(formattedValue);
+            nextColumn = column + 1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!headerSeen) {
+                headerSeen = true;
+                run.header(new ArrayList<>(cells));
+            } else {
+                run.row(rowNum + 1, cells);
+            }
+        }
+    }
+
+    // ==================== CHUNKED IMPORT ====================
+
+    private record ImportRow(int rowNumber, String sku, String batchNo, String size, int quantity,
+                             String mfgDate, String expDate, String stockStatus) {
+
+        String batchKey() {
+            return sku.toLowerCase() + "|" + batchNo.toLowerCase();
+        }
+    }
+
+    private record PendingBatch(Long productId, Long mbpId, String batchNo, String stockStatus, List<ImportRow> rows) {}
+
+    private record ChunkOutcome(int importedRows, int importedBatches, List<InventoryImportRowErrorDto> errors,
+                                Set<String> importedKeys) {}
+
+    private final class ImportRun {
+        private final String reference;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private final List<ImportRow> buffer = new ArrayList<>();
+        private final Set<String> importedKeys = new HashSet<>();   // parent|batchNo imported by earlier chunks
+        private final List<InventoryImportRowErrorDto> errors = new ArrayList<>();
+        private int totalRows;
+        private int importedRows;
+        private int importedBatches;
+        private int chunksCommitted;
+
+        private ImportRun(String reference) {
+            this.reference = reference;
+        }
+
+        void header(List<String> headerCells) {
+            for (int i = 0; i < headerCells.size(); i++) {
+                String name = headerCells.get(i) == null ? "" :
+                        headerCells.get(i).trim().toLowerCase().replace('_', ' ').replaceAll("\\s+", " ");
+                if (!name.isEmpty()) {
+                    columns.putIfAbsent(name, i);
+                }
+            }
+            List<String> missing = REQUIRED_COLUMNS.stream().filter(c -> !columns.containsKey(c)).toList();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Missing required column(s): " + String.join(", ", missing));
+            }
+        }
+
+        void row(int rowNumber, List<String> cells) {
+            if (cells.stream().allMatch(c -> c == null || c.isBlank())) {
+                return;
+            }
+            totalRows++;
+
+            String sku = value(cells, COL_SKU);
+            String batchNo = value(cells, COL_BATCH_NO);
+            String quantityText = value(cells, COL_QUANTITY);
+
+            if (sku.isEmpty()) {
+                errors.add(new InventoryImportRowErrorDto(rowNumber, sku, batchNo, "SKU is required"));
+                return;
+            }
+            if (batchNo.isEmpty()) {
+                errors.add(new InventoryImportRowErrorDto(rowNumber, sku, batchNo, "Batch no is required"));
+                return;
+            }
+            int quantity;
+            try {
+                // Excel numeric cells may arrive formatted as "12.0"
+                quantity = new BigDecimal(quantityText.replace(",", "")).intValueExact();
+            } catch (ArithmeticException | NumberFormatException e) {
+                errors.add(new InventoryImportRowErrorDto(rowNumber, sku, batchNo, "Invalid quantity: '" + quantityText + "'"));
+                return;
+            }
+            if (quantity <= 0) {
+                errors.add(new InventoryImportRowErrorDto(rowNumber, sku, batchNo, "Quantity must be positive"));
+                return;
+            }
+
+            String stockStatus = value(cells, COL_STOCK_STATUS);
+            ImportRow row = new ImportRow(rowNumber, sku, batchNo, value(cells, COL_SIZE), quantity,
+                    emptyToNull(value(cells, COL_MFG_DATE)), emptyToNull(value(cells, COL_EXPIRY_DATE)),
+                    stockStatus.isEmpty() ? "AVAILABLE" : stockStatus.toUpperCase());
+
+            // Only cut a chunk between batches so a batch's variants are never split across transactions
+            if (buffer.size() >= chunkSize && !buffer.get(buffer.size() - 1).batchKey().equals(row.batchKey())) {
+                flush();
+            }
+            buffer.add(row);
+        }
+
+        void finish() {
+            if (!buffer.isEmpty()) {
+                flush();
+            }
+        }
+
+        private String value(List<String> cells, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= cells.size() || cells.get(index) == null) {
+                return "";
+            }
+            return cells.get(index).trim();
+        }
+
+        private void flush() {
+            List<ImportRow> chunk = new ArrayList<>(buffer);
+            buffer.clear();
+            try {
+                ChunkOutcome outcome = transactionTemplate.execute(status -> importChunk(chunk, importedKeys, reference));
+                importedRows += outcome.importedRows();
+                importedBatches += outcome.importedBatches();
+                importedKeys.addAll(outcome.importedKeys());
+                errors.addAll(outcome.errors());
+                chunksCommitted++;
+            } catch (RuntimeException e) {
+                logger.error("Inventory import chunk (rows {}-{}) rolled back", chunk.get(0).rowNumber(),
+                        chunk.get(chunk.size() - 1).rowNumber(), e);
+                for (ImportRow row : chunk) {
+                    errors.add(new InventoryImportRowErrorDto(row.rowNumber(), row.sku(), row.batchNo(),
+                            "Chunk rolled back: " + e.getMessage()));
+                }
+            }
+        }
+    }
+
+    private ChunkOutcome importChunk(List<ImportRow> chunk, Set<String> previouslyImported, String reference) {
+        List<InventoryImportRowErrorDto> errors = new ArrayList<>();
+
+        // Resolve SKUs: one query per parent table
+        Set<String> skus = new HashSet<>();
+        chunk.forEach(r -> skus.add(r.sku()));
+        Map<String, Long> productIds = new HashMap<>();
+        for (Object[] row : productRepository.findIdsBySkuIn(skus)) {
+            productIds.put(((String) row[0]).toLowerCase(), ((Number) row[1]).longValue());
+        }
+        Map<String, Long> mbpIds = new HashMap<>();
+        for (Object[] row : mbpRepository.findIdsBySkuIn(skus)) {
+            mbpIds.put(((String) row[0]).toLowerCase(), ((Number) row[1]).longValue());
+        }
+
+        // Group rows into batches (rows arrive grouped; LinkedHashMap keeps file order)
+        Map<String, List<ImportRow>> grouped = new LinkedHashMap<>();
+        for (ImportRow row : chunk) {
+            grouped.computeIfAbsent(row.batchKey(), k -> new ArrayList<>()).add(row);
+        }
+
+        // Existing batch numbers for the resolved parents: one query per parent table
+        Set<String> batchNos = new HashSet<>();
+        chunk.forEach(r -> batchNos.add(r.batchNo()));
+        Set<String> existing = new HashSet<>();
+        if (!productIds.isEmpty()) {
+            for (Object[] row : inventoryRepository.findExistingProductBatchNos(productIds.values(), batchNos)) {
+                existing.add(parentKey(((Number) row[0]).longValue(), null, (String) row[1]));
+            }
+        }
+        if (!mbpIds.isEmpty()) {
+            for (Object[] row : inventoryRepository.findExistingMbpBatchNos(mbpIds.values(), batchNos)) {
+                existing.add(parentKey(null, ((Number) row[0]).longValue(), (String) row[1]));
+            }
+        }
+
+        List<PendingBatch> pending = new ArrayList<>();
+        Set<String> importedKeys = new HashSet<>();
+        for (List<ImportRow> rows : grouped.values()) {
+            ImportRow first = rows.get(0);
+            String sku = first.sku().toLowerCase();
+            Long productId = productIds.get(sku);
+            Long mbpId = productId == null ? mbpIds.get(sku) : null;
+
+            String failure = null;
+            String key = parentKey(productId, mbpId, first.batchNo());
+            if (productId == null && mbpId == null) {
+                failure = "Unknown SKU";
+            } else if (existing.contains(key)) {
+                failure = "Batch no already exists for this item";
+            } else if (previouslyImported.contains(key) || importedKeys.contains(key)) {
+                failure = "Batch appears more than once in the file; keep its rows together";
+            }
+            if (failure != null) {
+                for (ImportRow row : rows) {
+                    errors.add(new InventoryImportRowErrorDto(row.rowNumber(), row.sku(), row.batchNo(), failure));
+                }
+                continue;
+            }
+
+            List<ImportRow> variants = new ArrayList<>();
+            Set<String> sizes = new HashSet<>();
+            for (ImportRow row : rows) {
+                if (sizes.add(row.size().toLowerCase())) {
+                    variants.add(row);
+                } else {
+                    errors.add(new InventoryImportRowErrorDto(row.rowNumber(), row.sku(), row.batchNo(),
+                            "Duplicate size '" + row.size() + "' in batch"));
+                }
+            }
+            pending.add(new PendingBatch(productId, mbpId, first.batchNo(), first.stockStatus(), variants));
+            importedKeys.add(key);
+        }
+
+        if (pending.isEmpty()) {
+            return new ChunkOutcome(0, 0, errors, importedKeys);
+        }
+
+        List<Long> inventoryIds = insertBatches(pending);
+        insertVariants(pending, inventoryIds);
+
+        List<StockLedgerService.Movement> movements = new ArrayList<>();
+        Set<Long> touchedProductIds = new HashSet<>();
+        Set<Long> touchedMbpIds = new HashSet<>();
+        int importedRows = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            PendingBatch batch = pending.get(i);
+            for (ImportRow row : batch.rows()) {
+                movements.add(new StockLedgerService.Movement(inventoryIds.get(i), batch.productId(), batch.mbpId(),
+                        batch.batchNo(), row.size(), row.quantity(), StockMovementReason.IMPORT, reference));
+                importedRows++;
+            }
+            if (batch.productId() != null) touchedProductIds.add(batch.productId());
+            if (batch.mbpId() != null) touchedMbpIds.add(batch.mbpId());
+        }
+        stockLedgerService.record(movements);
+        eventPublisher.publishEvent(StockChangedEvent.of(touchedProductIds, touchedMbpIds));
+
+        return new ChunkOutcome(importedRows, pending.size(), errors, importedKeys);
+    }
+
+    private List<Long> insertBatches(List<PendingBatch> pending) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_BATCH_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PendingBatch batch = pending.get(i);
+                        ps.setObject(1, batch.productId(), Types.BIGINT);
+                        ps.setObject(2, batch.mbpId(), Types.BIGINT);
+                        ps.setString(3, batch.batchNo());
+                        ps.setString(4, batch.stockStatus());
+                        ps.setTimestamp(5, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return pending.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != pending.size()) {
+            throw new IllegalStateException("Expected " + pending.size() + " generated batch ids, got " + keys.size());
+        }
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Map<String, Object> key : keys) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    private void insertVariants(List<PendingBatch> pending, List<Long> inventoryIds) {
+        List<Object[]> args = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            for (ImportRow row : pending.get(i).rows()) {
+                args.add(new Object[]{inventoryIds.get(i), emptyToNull(row.size()), row.quantity(), row.mfgDate(), row.expDate()});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_VARIANT_SQL, args,
+                new int[]{Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.VARCHAR});
+    }
+
+    private static String parentKey(Long productId, Long mbpId, String batchNo) {
+        return (productId != null ? "P" + productId : "M" + mbpId) + "|" + batchNo.toLowerCase();
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
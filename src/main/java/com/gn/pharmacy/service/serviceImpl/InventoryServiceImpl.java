@@ -7,11 +7,15 @@ import com.gn.pharmacy.entity.BatchVariant;
 import com.gn.pharmacy.entity.InventoryEntity;
 import com.gn.pharmacy.entity.MbPEntity;
 import com.gn.pharmacy.entity.ProductEntity;
+import com.gn.pharmacy.entity.StockMovementReason;
+import com.gn.pharmacy.event.StockChangedEvent;
 import com.gn.pharmacy.repository.InventoryRepository;
 import com.gn.pharmacy.repository.MbPRepository;
 import com.gn.pharmacy.repository.ProductRepository;
 import com.gn.pharmacy.service.InventoryService;
+import com.gn.pharmacy.service.StockLedgerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -21,6 +25,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -38,6 +43,12 @@ public class InventoryServiceImpl implements InventoryService {
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
     @Override
     public void addStockBatchToProduct(Long productId, BatchInfoDTO batchInfo) {
         ProductEntity product = productRepository.findById(productId)
@@ -63,7 +74,9 @@ public class InventoryServiceImpl implements InventoryService {
 
         inventory.setVariants(entityVariants);
         inventory.setStockStatus("AVAILABLE");
-        inventoryRepository.save(inventory);
+        inventoryRepository.saveAndFlush(inventory);
+        stockLedgerService.record(movementsFor(inventory, inventory.getVariants(), 1, StockMovementReason.RESTOCK));
+        eventPublisher.publishEvent(StockChangedEvent.ofProduct(productId));
     }
 
     @Override
@@ -103,7 +116,9 @@ public class InventoryServiceImpl implements InventoryService {
 
         inventory.setVariants(entityVariants);
         inventory.setStockStatus("AVAILABLE");
-        inventoryRepository.save(inventory);
+        inventoryRepository.saveAndFlush(inventory);
+        stockLedgerService.record(movementsFor(inventory, inventory.getVariants(), 1, StockMovementReason.RESTOCK));
+        eventPublisher.publishEvent(stockChangedFor(inventory));
     }
 
     @Override
@@ -242,6 +257,8 @@ public class InventoryServiceImpl implements InventoryService {
             inventory.setStockStatus(batchUpdate.getStockStatus().trim());
         }
 
+        List<BatchVariant> oldVariants = new ArrayList<>(inventory.getVariants());
+
         // Replace entire variants list if provided (standard PATCH for collections)
         if (batchUpdate.getVariants() != null) {
             List<BatchVariant> newVariants = batchUpdate.getVariants().stream()
@@ -255,15 +272,62 @@ public class InventoryServiceImpl implements InventoryService {
             inventory.setVariants(newVariants);
         }
 
-        inventoryRepository.save(inventory);
+        inventoryRepository.saveAndFlush(inventory);
+
+        // Ledger gets the per-size difference, so a rename or date fix records nothing
+        List<StockLedgerService.Movement> movements = new ArrayList<>(
+                movementsFor(inventory, oldVariants, -1, StockMovementReason.ADJUSTMENT));
+        movements.addAll(movementsFor(inventory, inventory.getVariants(), 1, StockMovementReason.ADJUSTMENT));
+        stockLedgerService.record(netBySize(movements));
+        eventPublisher.publishEvent(stockChangedFor(inventory));
     }
 
     @Override
     @Transactional
     public void deleteBatch(Long inventoryId) {
-        if (!inventoryRepository.existsById(inventoryId)) {
-            throw new RuntimeException("Batch not found with ID: " + inventoryId);
-        }
+        InventoryEntity inventory = inventoryRepository.findById(inventoryId)
+                .orElseThrow(() -> new RuntimeException("Batch not found with ID: " + inventoryId));
+        StockChangedEvent event = stockChangedFor(inventory);
+        List<StockLedgerService.Movement> movements =
+                movementsFor(inventory, inventory.getVariants(), -1, StockMovementReason.BATCH_DELETED);
         inventoryRepository.deleteById(inventoryId);
+        inventoryRepository.flush();
+        stockLedgerService.record(movements);
+        eventPublisher.publishEvent(event);
+    }
+
+    private List<StockLedgerService.Movement> movementsFor(InventoryEntity inventory, List<BatchVariant> variants,
+                                                           int sign, StockMovementReason reason) {
+        Long productId = inventory.getProduct() != null ? inventory.getProduct().getProductId() : null;
+        Long mbpId = inventory.getMbp() != null ? inventory.getMbp().getId() : null;
+        List<StockLedgerService.Movement> movements = new ArrayList<>();
+        for (BatchVariant variant : variants) {
+            int quantity = variant.getQuantity() != null ? variant.getQuantity() : 0;
+            movements.add(new StockLedgerService.Movement(inventory.getInventoryId(), productId, mbpId,
+                    inventory.getBatchNo(), variant.getSize(), sign * quantity, reason,
+                    "BATCH-" + inventory.getInventoryId()));
+        }
+        return movements;
+    }
+
+    // Collapses movements of the same size into one signed delta
+    private List<StockLedgerService.Movement> netBySize(List<StockLedgerService.Movement> movements) {
+        Map<String, StockLedgerService.Movement> net = new LinkedHashMap<>();
+        for (StockLedgerService.Movement m : movements) {
+            String key = m.size() != null ? m.size().trim().toLowerCase() : "";
+            net.merge(key, m, (a, b) -> new StockLedgerService.Movement(a.inventoryId(), a.productId(), a.mbpId(),
+                    b.batchNo(), b.size(), a.quantityDelta() + b.quantityDelta(), a.reason(), a.reference()));
+        }
+        return new ArrayList<>(net.values());
+    }
+
+    private StockChangedEvent stockChangedFor(InventoryEntity inventory) {
+        if (inventory.getProduct() != null) {
+            return StockChangedEvent.ofProduct(inventory.getProduct().getProductId());
+        }
+        if (inventory.getMbp() != null) {
+            return StockChangedEvent.ofMbp(inventory.getMbp().getId());
+        }
+        return StockChangedEvent.of(null, null);
     }
 }
\ No newline at end of file
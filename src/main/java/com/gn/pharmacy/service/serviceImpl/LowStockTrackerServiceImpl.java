@@ -0,0 +1,251 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.dashboard.LowStockDto;
+import com.gn.pharmacy.entity.MbPEntity;
+import com.gn.pharmacy.entity.ProductEntity;
+import com.gn.pharmacy.event.CatalogChangedEvent;
+import com.gn.pharmacy.event.LowStockEvent;
+import com.gn.pharmacy.event.StockChangedEvent;
+import com.gn.pharmacy.repository.InventoryRepository;
+import com.gn.pharmacy.repository.MbPRepository;
+import com.gn.pharmacy.repository.ProductRepository;
+import com.gn.pharmacy.service.LowStockTrackerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Keeps a sorted set of at-risk (below threshold) items in memory.
+ * Thresholds are only evaluated for items whose stock actually changed (via {@link StockChangedEvent}),
+ * so dashboard reads are O(k) instead of loading every inventory batch.
+ */
+@Service
+@Lazy(false)
+public class LowStockTrackerServiceImpl implements LowStockTrackerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockTrackerServiceImpl.class);
+
+    private static final String TYPE_PRODUCT = "PRODUCT";
+    private static final String TYPE_MBP = "MBP";
+
+    private final InventoryRepository inventoryRepository;
+    private final ProductRepository productRepository;
+    private final MbPRepository mbpRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventory.low-stock.default-threshold:30}")
+    private int defaultThreshold;
+
+    // key ("PRODUCT:12" / "MBP:7") -> current at-risk entry
+    private final Map<String, AtRiskItem> atRiskByKey = new ConcurrentHashMap<>();
+
+    // Same entries ordered by stock ascending, then key for a stable order
+    private final NavigableSet<AtRiskItem> atRiskSorted = new ConcurrentSkipListSet<>(
+            Comparator.comparingInt(AtRiskItem::stock).thenComparing(AtRiskItem::key));
+
+    private volatile boolean loaded = false;
+
+    public LowStockTrackerServiceImpl(InventoryRepository inventoryRepository, ProductRepository productRepository,
+                                      MbPRepository mbpRepository, ApplicationEventPublisher eventPublisher) {
+        this.inventoryRepository = inventoryRepository;
+        this.productRepository = productRepository;
+        this.mbpRepository = mbpRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public List<LowStockDto> getLowStockItems(int limit) {
+        ensureLoaded();
+        List<LowStockDto> result = new ArrayList<>(Math.min(limit, atRiskSorted.size()));
+        for (AtRiskItem item : atRiskSorted) {
+            if (result.size() >= limit) break;
+            result.add(new LowStockDto(item.name(), item.sku(), item.stock(), item.alertLevel()));
+        }
+        return result;
+    }
+
+    @Override
+    public long countLowStockItems() {
+        ensureLoaded();
+        return atRiskByKey.size();
+    }
+
+    @Override
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        // Reads and applies under the same lock as rebuild(): events are applied one at a time, each with
+        // stock read after the previous one, so an older read can't overwrite a newer one. An event that
+        // arrives during a load waits for it and is then applied on top; one that arrives before any load
+        // has nothing to update, and the load that follows reads its change from the database.
+        if (event.isEmpty() || !loaded) return;
+
+        if (!event.productIds().isEmpty()) {
+            List<Object[]> rows = inventoryRepository.sumStockForProducts(event.productIds());
+            applyRows(TYPE_PRODUCT, event.productIds(), rows);
+        }
+        if (!event.mbpIds().isEmpty()) {
+            List<Object[]> rows = inventoryRepository.sumStockForMbps(event.mbpIds());
+            applyRows(TYPE_MBP, event.mbpIds(), rows);
+        }
+    }
+
+    // New items (no batches yet, so out of stock) and deleted ones arrive as catalog changes, not stock changes
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        onStockChanged(StockChangedEvent.of(
+                event.productId() != null ? Set.of(event.productId()) : Set.of(),
+                event.mbpId() != null ? Set.of(event.mbpId()) : Set.of()));
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        atRiskByKey.clear();
+        atRiskSorted.clear();
+
+        for (Object[] row : inventoryRepository.sumStockPerProduct()) {
+            evaluate(TYPE_PRODUCT, row, false);
+        }
+        for (Object[] row : inventoryRepository.sumStockPerMbp()) {
+            evaluate(TYPE_MBP, row, false);
+        }
+        loaded = true;
+        logger.info("Low-stock tracker loaded {} at-risk items in {} ms",
+                atRiskByKey.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    @Transactional
+    public void updateProductThreshold(Long productId, Integer threshold) {
+        validateThreshold(threshold);
+        ProductEntity product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+        product.setLowStockThreshold(threshold);
+        productRepository.save(product);
+        eventPublisher.publishEvent(StockChangedEvent.ofProduct(productId));
+    }
+
+    @Override
+    @Transactional
+    public void updateMbpThreshold(Long mbpId, Integer threshold) {
+        validateThreshold(threshold);
+        MbPEntity mbp = mbpRepository.findById(mbpId)
+                .orElseThrow(() -> new RuntimeException("MbP product not found with ID: " + mbpId));
+        mbp.setLowStockThreshold(threshold);
+        mbpRepository.save(mbp);
+        eventPublisher.publishEvent(StockChangedEvent.ofMbp(mbpId));
+    }
+
+    // ==================== INTERNALS ====================
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            rebuild();
+        }
+    }
+
+    private void validateThreshold(Integer threshold) {
+        if (threshold != null && threshold < 0) {
+            throw new IllegalArgumentException("Low-stock threshold cannot be negative");
+        }
+    }
+
+    private void applyRows(String itemType, Set<Long> requestedIds, List<Object[]> rows) {
+        Set<Long> seen = new HashSet<>();
+        for (Object[] row : rows) {
+            seen.add(((Number) row[0]).longValue());
+            evaluate(itemType, row, true);
+        }
+        // Deleted items are no longer tracked
+        for (Long id : requestedIds) {
+            if (!seen.contains(id)) {
+                remove(key(itemType, id), true);
+            }
+        }
+    }
+
+    private void evaluate(String itemType, Object[] row, boolean emitEvents) {
+        Long itemId = ((Number) row[0]).longValue();
+        String name = row[1] != null ? (String) row[1] : "Unknown";
+        String sku = row[2] != null ? (String) row[2] : "";
+        int threshold = row[3] != null ? ((Number) row[3]).intValue() : defaultThreshold;
+        int stock = row[4] != null ? ((Number) row[4]).intValue() : 0;
+
+        String key = key(itemType, itemId);
+
+        if (stock >= threshold) {
+            remove(key, emitEvents);
+            return;
+        }
+
+        String level = alertLevel(stock, threshold);
+        AtRiskItem updated = new AtRiskItem(key, itemType, itemId, name, sku, stock, threshold, level);
+        AtRiskItem previous = atRiskByKey.put(key, updated);
+        if (previous != null) {
+            atRiskSorted.remove(previous);
+        }
+        atRiskSorted.add(updated);
+
+        if (!emitEvents) return;
+        if (previous == null) {
+            publish(LowStockEvent.Type.ENTERED, updated, null);
+        } else if (!previous.alertLevel().equals(level)) {
+            publish(LowStockEvent.Type.LEVEL_CHANGED, updated, previous.alertLevel());
+        }
+    }
+
+    private void remove(String key, boolean emitEvents) {
+        AtRiskItem previous = atRiskByKey.remove(key);
+        if (previous == null) return;
+        atRiskSorted.remove(previous);
+        if (emitEvents) {
+            publish(LowStockEvent.Type.RECOVERED, previous, previous.alertLevel());
+        }
+    }
+
+    private void publish(LowStockEvent.Type type, AtRiskItem item, String previousLevel) {
+        eventPublisher.publishEvent(new LowStockEvent(
+                type, item.itemType(), item.itemId(), item.name(), item.sku(), item.stock(), item.threshold(),
+                type == LowStockEvent.Type.RECOVERED ? null : item.alertLevel(), previousLevel));
+        logger.info("Low-stock {} for {} {} ({}): stock={}, threshold={}",
+                type, item.itemType(), item.itemId(), item.sku(), item.stock(), item.threshold());
+    }
+
+    // Same bands the dashboard always used: 0 = Out, below a third of the threshold = Critical
+    private String alertLevel(int stock, int threshold) {
+        if (stock <= 0) return "Out";
+        if (stock < Math.max(1, (threshold + 2) / 3)) return "Critical";
+        return "Low";
+    }
+
+    private static String key(String itemType, Long itemId) {
+        return itemType + ":" + itemId;
+    }
+
+    private record AtRiskItem(
+            String key,
+            String itemType,
+            Long itemId,
+            String name,
+            String sku,
+            int stock,
+            int threshold,
+            String alertLevel
+    ) {}
+}
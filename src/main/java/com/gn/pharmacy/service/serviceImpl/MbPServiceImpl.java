@@ -5,6 +5,7 @@ import com.gn.pharmacy.dto.response.BatchInfoDTO;
 import com.gn.pharmacy.dto.response.MbPResponseDto;
 import com.gn.pharmacy.entity.InventoryEntity;
 import com.gn.pharmacy.entity.MbPEntity;
+import com.gn.pharmacy.event.CatalogChangedEvent;
 import com.gn.pharmacy.repository.InventoryRepository;
 import com.gn.pharmacy.repository.MbPRepository;
 import com.gn.pharmacy.service.InventoryService;
@@ -12,6 +13,7 @@ import com.gn.pharmacy.service.MbPService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -35,6 +37,9 @@ public class MbPServiceImpl implements MbPService {
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     @Transactional
     public MbPResponseDto createMbProduct(MbPRequestDto dto) {
@@ -48,6 +53,7 @@ public class MbPServiceImpl implements MbPService {
 
             MbPEntity entity = toEntity(dto, new MbPEntity());
             entity = repo.save(entity);
+            eventPublisher.publishEvent(CatalogChangedEvent.ofMbp(entity.getId()));
 
             // ============== Automatically add initial inventory batch with variants =============
             BatchInfoDTO batchInfo = new BatchInfoDTO();
@@ -116,6 +122,7 @@ public class MbPServiceImpl implements MbPService {
 
             entity = toEntity(dto, entity);
             entity = repo.save(entity);
+            eventPublisher.publishEvent(CatalogChangedEvent.ofMbp(id));
 
             MbPResponseDto response = toDto(entity);
             logger.info("MB Product fully updated successfully with ID: {}, SKU: {}", response.getId(), response.getSku());
@@ -147,6 +154,7 @@ public class MbPServiceImpl implements MbPService {
 
             patchEntity(dto, entity);
             entity = repo.save(entity);
+            eventPublisher.publishEvent(CatalogChangedEvent.ofMbp(id));
 
             MbPResponseDto response = toDto(entity);
             logger.info("MB Product patched successfully with ID: {}, SKU: {}", response.getId(), response.getSku());
@@ -360,6 +368,7 @@ public class MbPServiceImpl implements MbPService {
             }
 
             repo.deleteById(id);
+            eventPublisher.publishEvent(CatalogChangedEvent.ofMbp(id));
             logger.info("MB Product deleted successfully with ID: {}", id);
 
         } catch (Exception e) {
@@ -0,0 +1,221 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.service.OrderArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hot/cold split for orders. Closed orders past the retention window move to *_archive tables that
+ * mirror the hot ones (CREATE TABLE ... LIKE, columns re-synced on startup since ddl-auto only
+ * evolves the hot tables). Readers ask {@link #rangeIncludesArchive} and only then add the archive
+ * side to their query, so recent-data reads never touch cold rows. orders_all / order_items_all
+ * views are kept for ad-hoc reporting.
+ */
+@Service
+@Lazy(false)
+public class OrderArchiveServiceImpl implements OrderArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveServiceImpl.class);
+
+    private static final String[][] TABLE_PAIRS = {
+            {"orders_table", ORDERS_ARCHIVE},
+            {"order_items", ORDER_ITEMS_ARCHIVE},
+            {"order_item_exchanges", EXCHANGES_ARCHIVE}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Newest placed_at in the archive; reads from before this instant need the archive side
+    private final AtomicReference<LocalDateTime> archivedUpTo = new AtomicReference<>();
+    private final Map<String, String> columnLists = new HashMap<>();
+    private volatile boolean schemaReady;
+
+    @Value("${orders.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${orders.archive.after-months:12}")
+    private int afterMonths;
+
+    @Value("${orders.archive.closed-statuses:COMPLETED,CANCELLED,DELIVERED}")
+    private List<String> closedStatuses;
+
+    @Value("${orders.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${orders.archive.pause-ms:200}")
+    private long pauseMs;
+
+    public OrderArchiveServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(20)
+    public void ensureArchiveSchema() {
+        for (String[] pair : TABLE_PAIRS) {
+            String hot = pair[0];
+            String archive = pair[1];
+            // LIKE copies columns and indexes but not foreign keys - archive rows have no live parents
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + archive + " LIKE " + hot);
+
+            Set<String> archiveColumns = new HashSet<>(columnsOf(archive).stream().map(c -> c[0]).toList());
+            List<String> names = new ArrayList<>();
+            for (String[] column : columnsOf(hot)) {
+                names.add(column[0]);
+                if (!archiveColumns.contains(column[0])) {
+                    jdbcTemplate.execute("ALTER TABLE " + archive + " ADD COLUMN `" + column[0] + "` " + column[1] + " NULL");
+                    logger.info("Added column {} to {}", column[0], archive);
+                }
+            }
+            columnLists.put(hot, String.join(", ", names.stream().map(n -> "`" + n + "`").toList()));
+        }
+
+        jdbcTemplate.execute("CREATE OR REPLACE VIEW orders_all AS SELECT " + columnLists.get("orders_table") +
+                " FROM orders_table UNION ALL SELECT " + columnLists.get("orders_table") + " FROM " + ORDERS_ARCHIVE);
+        jdbcTemplate.execute("CREATE OR REPLACE VIEW order_items_all AS SELECT " + columnLists.get("order_items") +
+                " FROM order_items UNION ALL SELECT " + columnLists.get("order_items") + " FROM " + ORDER_ITEMS_ARCHIVE);
+
+        schemaReady = true;
+        refreshWatermark();
+    }
+
+    @Override
+    @Scheduled(cron = "${orders.archive.cron:0 0 4 * * *}")
+    public int archiveClosedOrders() {
+        if (!enabled || !schemaReady) return 0;
+
+        LocalDateTime cutoff = LocalDateTime.now().minusMonths(afterMonths);
+        int moved = 0;
+        while (true) {
+            Integer chunkMoved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            moved += chunkMoved;
+            if (chunkMoved < chunkSize) break;
+            if (pauseMs > 0) {
+                try {
+                    Thread.sleep(pauseMs);     // let replication and the buffer pool catch up between chunks
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        refreshWatermark();
+        if (moved > 0) {
+            logger.info("Archived {} closed orders placed before {}", moved, cutoff);
+        }
+        return moved;
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<Object> params = new ArrayList<>();
+        params.add(Timestamp.valueOf(cutoff));
+        params.addAll(closedStatuses);
+        params.add(chunkSize);
+        // SKIP LOCKED: an order someone is working on right now simply waits for the next run
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT order_id FROM orders_table WHERE placed_at < ? AND order_status IN (" +
+                        placeholders(closedStatuses.size()) + ") ORDER BY order_id LIMIT ? FOR UPDATE SKIP LOCKED",
+                Long.class, params.toArray());
+        if (ids.isEmpty()) return 0;
+
+        String in = placeholders(ids.size());
+        Object[] idArgs = ids.toArray();
+        String orderColumns = columnLists.get("orders_table");
+        String itemColumns = columnLists.get("order_items");
+        String exchangeColumns = columnLists.get("order_item_exchanges");
+
+        jdbcTemplate.update("INSERT INTO " + ORDERS_ARCHIVE + " (" + orderColumns + ") SELECT " + orderColumns +
+                " FROM orders_table WHERE order_id IN (" + in + ")", idArgs);
+        jdbcTemplate.update("INSERT INTO " + ORDER_ITEMS_ARCHIVE + " (" + itemColumns + ") SELECT " + itemColumns +
+                " FROM order_items WHERE order_id IN (" + in + ")", idArgs);
+        jdbcTemplate.update("INSERT INTO " + EXCHANGES_ARCHIVE + " (" + exchangeColumns + ") SELECT " +
+                prefixed("e", exchangeColumns) + " FROM order_item_exchanges e " +
+                "JOIN order_items oi ON oi.order_item_id = e.order_item_id WHERE oi.order_id IN (" + in + ")", idArgs);
+
+        jdbcTemplate.update("DELETE e FROM order_item_exchanges e JOIN order_items oi ON oi.order_item_id = e.order_item_id " +
+                "WHERE oi.order_id IN (" + in + ")", idArgs);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (" + in + ")", idArgs);
+        jdbcTemplate.update("DELETE FROM orders_table WHERE order_id IN (" + in + ")", idArgs);
+        return ids.size();
+    }
+
+    @Override
+    public boolean rangeIncludesArchive(LocalDateTime from) {
+        LocalDateTime upTo = archivedUpTo.get();
+        return upTo != null && (from == null || !from.isAfter(upTo));
+    }
+
+    @Override
+    public boolean userHasArchivedOrders(Long userId) {
+        if (archivedUpTo.get() == null) return false;
+        Integer found = jdbcTemplate.query("SELECT 1 FROM " + ORDERS_ARCHIVE + " WHERE user_id = ? LIMIT 1",
+                rs -> rs.next() ? 1 : null, userId);
+        return found != null;
+    }
+
+    @Override
+    public boolean restoreOrderOfItem(Long orderItemId) {
+        if (!schemaReady || archivedUpTo.get() == null) return false;
+        List<Long> found = jdbcTemplate.queryForList("SELECT order_id FROM " + ORDER_ITEMS_ARCHIVE +
+                " WHERE order_item_id = ? FOR UPDATE", Long.class, orderItemId);
+        if (found.isEmpty()) return false;
+        Long orderId = found.get(0);
+
+        String orderColumns = columnLists.get("orders_table");
+        String itemColumns = columnLists.get("order_items");
+        String exchangeColumns = columnLists.get("order_item_exchanges");
+
+        jdbcTemplate.update("INSERT INTO orders_table (" + orderColumns + ") SELECT " + orderColumns +
+                " FROM " + ORDERS_ARCHIVE + " WHERE order_id = ?", orderId);
+        jdbcTemplate.update("INSERT INTO order_items (" + itemColumns + ") SELECT " + itemColumns +
+                " FROM " + ORDER_ITEMS_ARCHIVE + " WHERE order_id = ?", orderId);
+        jdbcTemplate.update("INSERT INTO order_item_exchanges (" + exchangeColumns + ") SELECT " +
+                prefixed("e", exchangeColumns) + " FROM " + EXCHANGES_ARCHIVE + " e " +
+                "JOIN " + ORDER_ITEMS_ARCHIVE + " oi ON oi.order_item_id = e.order_item_id WHERE oi.order_id = ?", orderId);
+
+        jdbcTemplate.update("DELETE e FROM " + EXCHANGES_ARCHIVE + " e JOIN " + ORDER_ITEMS_ARCHIVE + " oi " +
+                "ON oi.order_item_id = e.order_item_id WHERE oi.order_id = ?", orderId);
+        jdbcTemplate.update("DELETE FROM " + ORDER_ITEMS_ARCHIVE + " WHERE order_id = ?", orderId);
+        jdbcTemplate.update("DELETE FROM " + ORDERS_ARCHIVE + " WHERE order_id = ?", orderId);
+        logger.info("Restored archived order {} to the hot tables", orderId);
+        return true;
+    }
+
+    private void refreshWatermark() {
+        Timestamp max = jdbcTemplate.queryForObject("SELECT MAX(placed_at) FROM " + ORDERS_ARCHIVE, Timestamp.class);
+        archivedUpTo.set(max != null ? max.toLocalDateTime() : null);
+    }
+
+    // [name, column_type] in ordinal order
+    private List<String[]> columnsOf(String table) {
+        return jdbcTemplate.query("SELECT COLUMN_NAME, COLUMN_TYPE FROM information_schema.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION",
+                (rs, rowNum) -> new String[]{rs.getString(1), rs.getString(2)}, table);
+    }
+
+    private static String prefixed(String alias, String columnList) {
+        return String.join(", ", Arrays.stream(columnList.split(", ")).map(c -> alias + "." + c).toList());
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+}
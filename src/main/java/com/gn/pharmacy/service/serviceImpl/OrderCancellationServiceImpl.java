@@ -0,0 +1,361 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.order.OrderCancellationResultDto;
+import com.gn.pharmacy.dto.order.RejectedTransitionDto;
+import com.gn.pharmacy.dto.order.StockRestorationDto;
+import com.gn.pharmacy.entity.*;
+import com.gn.pharmacy.event.CustomerOrdersChangedEvent;
+import com.gn.pharmacy.event.OrderSalesChangedEvent;
+import com.gn.pharmacy.event.StockChangedEvent;
+import com.gn.pharmacy.repository.InventoryRepository;
+import com.gn.pharmacy.repository.MbPRepository;
+import com.gn.pharmacy.repository.ProductRepository;
+import com.gn.pharmacy.service.OrderCancellationService;
+import com.gn.pharmacy.service.SalesRollupService;
+import com.gn.pharmacy.service.StockHoldService;
+import com.gn.pharmacy.service.StockLedgerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Set-based order cancellation. The whole request is planned before anything is written:
+ * <ol>
+ *   <li>lock the orders (id order) and split them into cancellable / already cancelled / rejected</li>
+ *   <li>read their lines and batch allocations, lock the parents in the same order createOrder uses</li>
+ *   <li>send each allocation back to the batch variant it was taken from; lines without a usable
+ *       allocation (orders placed before allocations were recorded, deleted batches) fall back to the
+ *       first batch with a matching size, and only then to a RETURN- batch</li>
+ *   <li>one grouped {@code quantity = quantity + ?} per variant, one history INSERT ... SELECT, one
+ *       rollup decrement, one status UPDATE, one ledger batch</li>
+ * </ol>
+ * Order entities and product inventory collections are never loaded, so Hibernate has nothing to
+ * rewrite at commit.
+ */
+@Service
+public class OrderCancellationServiceImpl implements OrderCancellationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCancellationServiceImpl.class);
+
+    private static final String RESTORE_VARIANT_SQL =
+            "UPDATE inventory_variants SET quantity = quantity + ? WHERE inventory_id = ? AND size <=> ? LIMIT 1";
+
+    private static final String LINES_SQL =
+            "SELECT order_item_id, order_id, product_id, mbp_id, quantity, size_variant FROM order_items " +
+                    "WHERE order_id IN (%s) ORDER BY order_id, order_item_id";
+
+    // variant_exists guards against batches or sizes removed since the order was placed
+    private static final String ALLOCATIONS_SQL =
+            "SELECT a.order_item_id, a.inventory_id, a.batch_no, a.size, a.quantity, " +
+                    "EXISTS (SELECT 1 FROM inventory_variants v WHERE v.inventory_id = a.inventory_id " +
+                    "AND v.size <=> a.size) AS variant_exists " +
+                    "FROM order_item_batch_allocations a WHERE a.order_id IN (%s) ORDER BY a.allocation_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final MbPRepository mbpRepository;
+    private final InventoryRepository inventoryRepository;
+    private final StockLedgerService stockLedgerService;
+    private final SalesRollupService salesRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${orders.bulk-cancel.max-orders:1000}")
+    private int maxOrders;
+
+    public OrderCancellationServiceImpl(JdbcTemplate jdbcTemplate, ProductRepository productRepository,
+                                        MbPRepository mbpRepository, InventoryRepository inventoryRepository,
+                                        StockLedgerService stockLedgerService, SalesRollupService salesRollupService,
+                                        ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.mbpRepository = mbpRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.salesRollupService = salesRollupService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    private record Line(Long orderItemId, Long orderId, Long productId, Long mbpId, int quantity, String size) {}
+
+    private record AllocationRow(Long inventoryId, String batchNo, String size, int quantity, boolean variantExists) {}
+
+    private record VariantKey(Long inventoryId, String size) {}
+
+    // Units going back into one batch variant across all cancelled lines
+    private static final class Restoration {
+        private final Long inventoryId;
+        private final String batchNo;
+        private final Long productId;
+        private final Long mbpId;
+        private final String size;
+        private int quantity;
+
+        private Restoration(Long inventoryId, String batchNo, Long productId, Long mbpId, String size) {
+            this.inventoryId = inventoryId;
+            this.batchNo = batchNo;
+            this.productId = productId;
+            this.mbpId = mbpId;
+            this.size = size;
+        }
+    }
+
+    @Override
+    @Transactional
+    public OrderCancellationResultDto cancelOrders(List<Long> orderIds, String changedBy, String note) {
+        List<Long> ids = orderIds == null ? List.of() : orderIds.stream()
+                .filter(Objects::nonNull).distinct().sorted().toList();
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one order id is required");
+        }
+        if (ids.size() > maxOrders) {
+            throw new IllegalArgumentException("At most " + maxOrders + " orders can be cancelled at once");
+        }
+
+        // 1. Lock and classify
+        Map<Long, String> statuses = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT order_id, order_status FROM orders_table WHERE order_id IN (" +
+                        placeholders(ids.size()) + ") ORDER BY order_id FOR UPDATE",
+                rs -> { statuses.put(rs.getLong(1), rs.getString(2)); }, ids.toArray());
+
+        List<Long> cancellable = new ArrayList<>();
+        List<RejectedTransitionDto> rejected = new ArrayList<>();
+        int alreadyCancelled = 0;
+        for (Map.Entry<Long, String> entry : statuses.entrySet()) {
+            String status = entry.getValue();
+            if (status != null && OrderStatus.CANCELLED.name().equalsIgnoreCase(status.trim())) alreadyCancelled++;
+            else if (isCancellable(status)) cancellable.add(entry.getKey());
+            else rejected.add(new RejectedTransitionDto(entry.getKey(), status));
+        }
+        List<Long> notFound = ids.stream().filter(id -> !statuses.containsKey(id)).toList();
+
+        if (cancellable.isEmpty()) {
+            return new OrderCancellationResultDto(ids.size(), List.of(), alreadyCancelled, notFound, rejected, 0, List.of());
+        }
+
+        // 2. Lines, parents, allocations
+        String in = placeholders(cancellable.size());
+        List<Line> lines = jdbcTemplate.query(String.format(LINES_SQL, in), (rs, rowNum) -> new Line(
+                rs.getLong("order_item_id"), rs.getLong("order_id"),
+                rs.getObject("product_id", Long.class), rs.getObject("mbp_id", Long.class),
+                rs.getInt("quantity"), rs.getString("size_variant")), cancellable.toArray());
+
+        Set<Long> productIds = new TreeSet<>();
+        Set<Long> mbpIds = new TreeSet<>();
+        for (Line line : lines) {
+            if (line.productId() != null) productIds.add(line.productId());
+            else if (line.mbpId() != null) mbpIds.add(line.mbpId());
+        }
+        Map<Long, ProductEntity> products = new HashMap<>();
+        Map<Long, MbPEntity> mbps = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findAllByIdForUpdate(productIds).forEach(p -> products.put(p.getProductId(), p));
+        }
+        if (!mbpIds.isEmpty()) {
+            mbpRepository.findAllByIdForUpdate(mbpIds).forEach(m -> mbps.put(m.getId(), m));
+        }
+
+        Map<Long, List<AllocationRow>> allocationsByItem = new HashMap<>();
+        jdbcTemplate.query(String.format(ALLOCATIONS_SQL, in), rs -> {
+            allocationsByItem.computeIfAbsent(rs.getLong("order_item_id"), k -> new ArrayList<>()).add(new AllocationRow(
+                    rs.getObject("inventory_id", Long.class), rs.getString("batch_no"), rs.getString("size"),
+                    rs.getInt("quantity"), rs.getBoolean("variant_exists")));
+        }, cancellable.toArray());
+
+        // 3. Plan
+        Map<VariantKey, Restoration> plan = new LinkedHashMap<>();
+        List<StockLedgerService.Movement> movements = new ArrayList<>();
+        Map<Line, Integer> unresolved = new LinkedHashMap<>();
+
+        for (Line line : lines) {
+            boolean known = line.productId() != null ? products.containsKey(line.productId()) : mbps.containsKey(line.mbpId());
+            if (!known || line.quantity() <= 0) continue;
+
+            int remaining = line.quantity();
+            for (AllocationRow allocation : allocationsByItem.getOrDefault(line.orderItemId(), List.of())) {
+                if (remaining <= 0) break;
+                if (!allocation.variantExists() || allocation.inventoryId() == null) continue;
+                int quantity = Math.min(allocation.quantity(), remaining);
+                restore(plan, movements, line, allocation.inventoryId(), allocation.batchNo(), allocation.size(), quantity);
+                remaining -= quantity;
+            }
+            if (remaining > 0) unresolved.put(line, remaining);
+        }
+
+        List<InventoryEntity> returnBatches = new ArrayList<>();
+        List<Line> returnLines = new ArrayList<>();
+        if (!unresolved.isEmpty()) {
+            Map<Long, List<InventoryEntity>> productBatches = new HashMap<>();
+            Map<Long, List<InventoryEntity>> mbpBatches = new HashMap<>();
+            Set<Long> fallbackProducts = new HashSet<>();
+            Set<Long> fallbackMbps = new HashSet<>();
+            unresolved.keySet().forEach(l -> {
+                if (l.productId() != null) fallbackProducts.add(l.productId());
+                else fallbackMbps.add(l.mbpId());
+            });
+            if (!fallbackProducts.isEmpty()) {
+                for (InventoryEntity batch : inventoryRepository.findProductBatchesWithVariants(fallbackProducts)) {
+                    productBatches.computeIfAbsent(batch.getProduct().getProductId(), k -> new ArrayList<>()).add(batch);
+                }
+            }
+            if (!fallbackMbps.isEmpty()) {
+                for (InventoryEntity batch : inventoryRepository.findMbpBatchesWithVariants(fallbackMbps)) {
+                    mbpBatches.computeIfAbsent(batch.getMbp().getId(), k -> new ArrayList<>()).add(batch);
+                }
+            }
+
+            for (Map.Entry<Line, Integer> entry : unresolved.entrySet()) {
+                Line line = entry.getKey();
+                List<InventoryEntity> batches = line.productId() != null
+                        ? productBatches.getOrDefault(line.productId(), List.of())
+                        : mbpBatches.getOrDefault(line.mbpId(), List.of());
+
+                BatchVariant target = null;
+                InventoryEntity targetBatch = null;
+                for (InventoryEntity batch : batches) {
+                    target = findVariantForSize(batch, line.size());
+                    if (target != null) {
+                        targetBatch = batch;
+                        break;
+                    }
+                }
+
+                if (targetBatch != null) {
+                    restore(plan, movements, line, targetBatch.getInventoryId(), targetBatch.getBatchNo(),
+                            target.getSize(), entry.getValue());
+                } else {
+                    InventoryEntity returnBatch = new InventoryEntity();
+                    returnBatch.setBatchNo("RETURN-" + line.orderId() + "-" + line.orderItemId());
+                    returnBatch.setStockStatus("AVAILABLE");
+                    returnBatch.setLastUpdated(LocalDateTime.now());
+                    returnBatch.getVariants().add(new BatchVariant(line.size(), entry.getValue(), "N/A", "N/A"));
+                    if (line.productId() != null) returnBatch.setProduct(products.get(line.productId()));
+                    else returnBatch.setMbp(mbps.get(line.mbpId()));
+                    returnBatches.add(returnBatch);
+                    returnLines.add(line);
+                }
+            }
+        }
+
+        // 4. Apply
+        List<Restoration> restorations = new ArrayList<>(plan.values());
+        int[][] counts = jdbcTemplate.batchUpdate(RESTORE_VARIANT_SQL, restorations, restorations.size(), (ps, r) -> {
+            ps.setInt(1, r.quantity);
+            ps.setLong(2, r.inventoryId);
+            ps.setString(3, r.size);
+        });
+        int i = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // Parents are row-locked, so a miss means the variant changed outside the normal stock flow
+                if (count == 0) {
+                    Restoration r = restorations.get(i);
+                    throw new IllegalStateException("Stock changed while cancelling (batch " + r.batchNo
+                            + ", size '" + r.size + "'). Please retry.");
+                }
+                i++;
+            }
+        }
+
+        List<StockRestorationDto> report = new ArrayList<>();
+        long unitsRestored = 0;
+        for (Restoration r : restorations) {
+            report.add(new StockRestorationDto(r.inventoryId, r.batchNo, r.productId, r.mbpId, r.size, r.quantity, false));
+            unitsRestored += r.quantity;
+        }
+
+        if (!returnBatches.isEmpty()) {
+            // Saved individually by Hibernate (identity ids); only lines with no matching size anywhere get here
+            List<InventoryEntity> saved = inventoryRepository.saveAll(returnBatches);
+            for (int k = 0; k < saved.size(); k++) {
+                InventoryEntity batch = saved.get(k);
+                Line line = returnLines.get(k);
+                BatchVariant variant = batch.getVariants().get(0);
+                movements.add(new StockLedgerService.Movement(batch.getInventoryId(), line.productId(), line.mbpId(),
+                        batch.getBatchNo(), variant.getSize(), variant.getQuantity(), StockMovementReason.CANCEL,
+                        "ORDER-" + line.orderId()));
+                report.add(new StockRestorationDto(batch.getInventoryId(), batch.getBatchNo(), line.productId(),
+                        line.mbpId(), variant.getSize(), variant.getQuantity(), true));
+                unitsRestored += variant.getQuantity();
+            }
+        }
+
+        List<Object> historyParams = new ArrayList<>(List.of(OrderStatus.CANCELLED.name(),
+                Timestamp.valueOf(LocalDateTime.now())));
+        historyParams.add(changedBy);
+        historyParams.add(note);
+        historyParams.addAll(cancellable);
+        jdbcTemplate.update("INSERT INTO order_status_history (order_id, from_status, to_status, changed_at, changed_by, note) " +
+                "SELECT order_id, order_status, ?, ?, ?, ? FROM orders_table WHERE order_id IN (" + in + ")",
+                historyParams.toArray());
+
+        salesRollupService.apply(cancellable, -1);   // while the orders still count as sold
+
+        List<Object> updateParams = new ArrayList<>();
+        updateParams.add(OrderStatus.CANCELLED.name());
+        updateParams.addAll(cancellable);
+        jdbcTemplate.update("UPDATE orders_table SET order_status = ? WHERE order_id IN (" + in + ")",
+                updateParams.toArray());
+
+        stockLedgerService.record(movements);
+        eventPublisher.publishEvent(StockChangedEvent.of(products.keySet(), mbps.keySet()));
+        eventPublisher.publishEvent(CustomerOrdersChangedEvent.of(jdbcTemplate.queryForList(
+                "SELECT DISTINCT user_id FROM orders_table WHERE order_id IN (" + in + ") AND user_id IS NOT NULL",
+                Long.class, cancellable.toArray())));
+        eventPublisher.publishEvent(OrderSalesChangedEvent.cancelled(cancellable));
+
+        logger.info("Cancelled {} of {} orders ({} already cancelled, {} rejected, {} not found); restored {} units " +
+                        "into {} batch variants, {} return batches",
+                cancellable.size(), ids.size(), alreadyCancelled, rejected.size(), notFound.size(), unitsRestored,
+                restorations.size(), returnBatches.size());
+
+        return new OrderCancellationResultDto(ids.size(), cancellable, alreadyCancelled, notFound, rejected,
+                unitsRestored, report);
+    }
+
+    private static void restore(Map<VariantKey, Restoration> plan, List<StockLedgerService.Movement> movements,
+                                Line line, Long inventoryId, String batchNo, String size, int quantity) {
+        plan.computeIfAbsent(new VariantKey(inventoryId, size),
+                k -> new Restoration(inventoryId, batchNo, line.productId(), line.mbpId(), size)).quantity += quantity;
+        movements.add(new StockLedgerService.Movement(inventoryId, line.productId(), line.mbpId(), batchNo, size,
+                quantity, StockMovementReason.CANCEL, "ORDER-" + line.orderId()));
+    }
+
+    // Same size matching as order placement (StockHoldService.ItemSize.normalizeSize)
+    private static BatchVariant findVariantForSize(InventoryEntity batch, String requestedSize) {
+        List<BatchVariant> variants = batch.getVariants();
+        if (variants == null) return null;
+        String normalizedSize = StockHoldService.ItemSize.normalizeSize(requestedSize);
+        for (BatchVariant v : variants) {
+            if (StockHoldService.ItemSize.normalizeSize(v.getSize()).equals(normalizedSize)) return v;
+        }
+        return null;
+    }
+
+    /**
+     * Statuses are free-form strings written by clients, so they are compared trimmed and upper-cased
+     * (as the lifecycle bulk SQL does). Known statuses follow the state machine, which like the old rule
+     * allows cancelling anything up to and including SHIPPED; the post-delivery states (COMPLETED and the
+     * exchange states) are refused like DELIVERED. Orders with no status or one outside the enum keep the
+     * old rule and are refused only once delivered or cancelled.
+     */
+    static boolean isCancellable(String status) {
+        if (status == null || status.isBlank()) return true;
+        String normalized = status.trim().toUpperCase(Locale.ROOT);
+        for (OrderStatus known : OrderStatus.values()) {
+            if (known.name().equals(normalized)) return known.canTransitionTo(OrderStatus.CANCELLED);
+        }
+        return !OrderStatus.DELIVERED.name().equals(normalized) && !OrderStatus.CANCELLED.name().equals(normalized);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,178 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gn.pharmacy.service.OrderArchiveService;
+import com.gn.pharmacy.service.OrderExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order line export for finance. Rows come from a MySQL streaming cursor and are written column by
+ * column from the ResultSet - no entities, DTOs or per-row maps - so memory stays flat regardless of
+ * how many lines are exported. When the range reaches archived orders the archive tables are
+ * streamed first with the same SELECT, then the hot tables.
+ */
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportServiceImpl.class);
+
+    private static final String EXPORT_SELECT =
+            "SELECT o.order_id, o.placed_at, o.order_date, o.order_status, o.user_id, " +
+                    "o.customer_first_name, o.customer_last_name, o.customer_email, o.customer_phone, " +
+                    "o.payment_method, o.total_amount, o.tax, o.discount_amount, o.convenience_fee, " +
+                    "o.shipping_city, o.shipping_state, o.shipping_pincode, " +
+                    "oi.order_item_id, oi.product_id, oi.mbp_id, oi.item_name, oi.size_variant, oi.quantity, " +
+                    "oi.item_price, oi.subtotal " +
+                    "FROM %s o LEFT JOIN %s oi ON oi.order_id = o.order_id ";
+
+    private static final String CSV_HEADER =
+            "order_id,placed_at,order_date,order_status,user_id,customer_first_name,customer_last_name," +
+                    "customer_email,customer_phone,payment_method,total_amount,tax,discount_amount,convenience_fee," +
+                    "shipping_city,shipping_state,shipping_pincode,order_item_id,product_id,mbp_id,item_name," +
+                    "size_variant,quantity,item_price,subtotal";
+
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final OrderArchiveService orderArchiveService;
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows one by one instead of buffering the result set
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public OrderExportServiceImpl(DataSource dataSource, ObjectMapper objectMapper,
+                                  OrderArchiveService orderArchiveService) {
+        this.objectMapper = objectMapper;
+        this.orderArchiveService = orderArchiveService;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Override
+    public void exportOrderLines(Format format, LocalDate from, LocalDate to, String status, OutputStream out) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder where = new StringBuilder("WHERE 1 = 1 ");
+        if (from != null) {
+            where.append("AND o.placed_at >= ? ");
+            params.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            where.append("AND o.placed_at < ? ");
+            params.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+        if (status != null && !status.isBlank()) {
+            where.append("AND o.order_status = ? ");
+            params.add(status.trim());
+        }
+        String tail = where + "ORDER BY o.order_id, oi.order_item_id";
+        List<String> queries = new ArrayList<>();
+        if (orderArchiveService.rangeIncludesArchive(from != null ? from.atStartOfDay() : null)) {
+            queries.add(EXPORT_SELECT.formatted(OrderArchiveService.ORDERS_ARCHIVE, OrderArchiveService.ORDER_ITEMS_ARCHIVE) + tail);
+        }
+        queries.add(EXPORT_SELECT.formatted("orders_table", "order_items") + tail);
+
+        long started = System.currentTimeMillis();
+        long[] rows = {0};
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_BYTES);
+        try {
+            if (format == Format.NDJSON) {
+                JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+                json.setRootValueSeparator(null);      // one object per line, separated by our own newline
+                for (String sql : queries) {
+                    streamingJdbcTemplate.query(sql, rs -> {
+                        writeJsonLine(rs, json);
+                        rows[0]++;
+                    }, params.toArray());
+                }
+                json.flush();
+            } else {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                for (String sql : queries) {
+                    streamingJdbcTemplate.query(sql, rs -> {
+                        writeCsvLine(rs, writer);
+                        rows[0]++;
+                    }, params.toArray());
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Exported {} order lines as {} in {} ms", rows[0], format, System.currentTimeMillis() - started);
+    }
+
+    private static void writeCsvLine(ResultSet rs, Writer writer) throws SQLException {
+        int columns = rs.getMetaData().getColumnCount();
+        try {
+            for (int i = 1; i <= columns; i++) {
+                if (i > 1) writer.write(',');
+                String value = rs.getString(i);
+                if (value != null) writeCsvValue(value, writer);
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // RFC 4180: quoted only when the value holds a comma, quote or line break; embedded quotes are doubled
+    static void writeCsvValue(String text, Writer writer) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // Numbers stay numbers, everything else is written as a string; nulls are omitted
+    private static void writeJsonLine(ResultSet rs, JsonGenerator json) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        try {
+            json.writeStartObject();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                String name = meta.getColumnLabel(i);
+                switch (meta.getColumnType(i)) {
+                    case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> {
+                        long value = rs.getLong(i);
+                        if (!rs.wasNull()) json.writeNumberField(name, value);
+                    }
+                    case Types.DOUBLE, Types.FLOAT, Types.REAL, Types.DECIMAL, Types.NUMERIC -> {
+                        BigDecimal value = rs.getBigDecimal(i);
+                        if (value != null) json.writeNumberField(name, value);
+                    }
+                    default -> {
+                        String value = rs.getString(i);
+                        if (value != null) json.writeStringField(name, value);
+                    }
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.order.OrderStatusHistoryDto;
+import com.gn.pharmacy.dto.order.OrderStatusTransitionResultDto;
+import com.gn.pharmacy.dto.order.RejectedTransitionDto;
+import com.gn.pharmacy.entity.OrderStatus;
+import com.gn.pharmacy.event.CustomerOrdersChangedEvent;
+import com.gn.pharmacy.repository.OrderStatusHistoryRepository;
+import com.gn.pharmacy.service.OrderLifecycleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Order state machine. A bulk transition never loads an OrderEntity: per chunk of ids it locks the
+ * rows (one SELECT ... FOR UPDATE in id order), copies the movable ones into order_status_history
+ * with INSERT ... SELECT, then flips them with one conditional UPDATE. The WHERE clause on the
+ * legal source states is what enforces the state machine.
+ */
+@Service
+public class OrderLifecycleServiceImpl implements OrderLifecycleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderLifecycleServiceImpl.class);
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String INSERT_HISTORY_SQL =
+            "INSERT INTO order_status_history (order_id, from_status, to_status, changed_at, changed_by, note) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderStatusHistoryRepository historyRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${orders.bulk-transition.max-orders:5000}")
+    private int maxOrders;
+
+    public OrderLifecycleServiceImpl(JdbcTemplate jdbcTemplate, OrderStatusHistoryRepository historyRepository,
+                                     ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.historyRepository = historyRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional
+    public OrderStatusTransitionResultDto transition(List<Long> orderIds, OrderStatus target, String changedBy, String note) {
+        if (target == OrderStatus.CANCELLED) {
+            // Cancelling restores stock per batch, which a plain status flip would skip
+            throw new IllegalArgumentException("Orders can't be cancelled through a status update - use cancel-order or /cancel/bulk");
+        }
+        List<Long> ids = orderIds == null ? List.of() : orderIds.stream()
+                .filter(Objects::nonNull).distinct().sorted().toList();
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one order id is required");
+        }
+        if (ids.size() > maxOrders) {
+            throw new IllegalArgumentException("At most " + maxOrders + " orders can be transitioned at once");
+        }
+
+        List<String> sources = OrderStatus.sourcesOf(target).stream().map(Enum::name).toList();
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("No order can move to " + target);
+        }
+        // Orders created before statuses were enforced may have none; treat them as PENDING
+        String sourceCondition = "(order_status IN (" + placeholders(sources.size()) + ")" +
+                (sources.contains(OrderStatus.PENDING.name()) ? " OR order_status IS NULL)" : ")");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        Set<Long> found = new HashSet<>();
+        Set<Long> touchedUsers = new HashSet<>();
+        List<RejectedTransitionDto> rejected = new ArrayList<>();
+        int updated = 0;
+        int alreadyInTarget = 0;
+
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            String in = placeholders(chunk.size());
+
+            List<Long> locked = jdbcTemplate.queryForList(
+                    "SELECT order_id FROM orders_table WHERE order_id IN (" + in + ") ORDER BY order_id FOR UPDATE",
+                    Long.class, chunk.toArray());
+            found.addAll(locked);
+
+            List<Object> historyParams = new ArrayList<>(List.of(target.name(), now));
+            historyParams.add(changedBy);
+            historyParams.add(note);
+            historyParams.addAll(chunk);
+            historyParams.addAll(sources);
+            jdbcTemplate.update("INSERT INTO order_status_history (order_id, from_status, to_status, changed_at, changed_by, note) " +
+                    "SELECT order_id, order_status, ?, ?, ?, ? FROM orders_table " +
+                    "WHERE order_id IN (" + in + ") AND " + sourceCondition, historyParams.toArray());
+
+            List<Object> updateParams = new ArrayList<>();
+            updateParams.add(target.name());
+            updateParams.addAll(chunk);
+            updateParams.addAll(sources);
+            int chunkUpdated = jdbcTemplate.update("UPDATE orders_table SET order_status = ? " +
+                    "WHERE order_id IN (" + in + ") AND " + sourceCondition, updateParams.toArray());
+            updated += chunkUpdated;
+            if (chunkUpdated > 0) {
+                // Completed-order counts in customer_stats depend on the status
+                List<Object> userParams = new ArrayList<>(chunk);
+                userParams.add(target.name());
+                touchedUsers.addAll(jdbcTemplate.queryForList(
+                        "SELECT DISTINCT user_id FROM orders_table WHERE order_id IN (" + in + ") " +
+                                "AND order_status = ? AND user_id IS NOT NULL", Long.class, userParams.toArray()));
+            }
+
+            List<Object> leftoverParams = new ArrayList<>(chunk);
+            leftoverParams.add(target.name());
+            List<RejectedTransitionDto> chunkRejected = jdbcTemplate.query(
+                    "SELECT order_id, order_status FROM orders_table " +
+                            "WHERE order_id IN (" + in + ") AND NOT (order_status <=> ?) ORDER BY order_id",
+                    (rs, rowNum) -> new RejectedTransitionDto(rs.getLong(1), rs.getString(2)),
+                    leftoverParams.toArray());
+            rejected.addAll(chunkRejected);
+            alreadyInTarget += locked.size() - chunkUpdated - chunkRejected.size();
+        }
+
+        eventPublisher.publishEvent(CustomerOrdersChangedEvent.of(touchedUsers));
+
+        List<Long> notFound = ids.stream().filter(id -> !found.contains(id)).toList();
+        logger.info("Order status -> {}: {} requested, {} updated, {} already {}, {} rejected, {} not found",
+                target, ids.size(), updated, alreadyInTarget, target, rejected.size(), notFound.size());
+
+        return new OrderStatusTransitionResultDto(target.name(), ids.size(), updated, alreadyInTarget, notFound, rejected);
+    }
+
+    @Override
+    @Transactional
+    public OrderStatusTransitionResultDto transition(Long orderId, OrderStatus target, String changedBy, String note) {
+        OrderStatusTransitionResultDto result = transition(List.of(orderId), target, changedBy, note);
+        if (!result.notFound().isEmpty()) {
+            throw new RuntimeException("Order not found with ID: " + orderId);
+        }
+        if (!result.rejected().isEmpty()) {
+            String current = result.rejected().get(0).currentStatus();
+            throw new IllegalStateException("Order " + orderId + " can't move from " + current + " to " + target);
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public void recordTransition(Long orderId, String fromStatus, String toStatus, String changedBy, String note) {
+        jdbcTemplate.update(INSERT_HISTORY_SQL, orderId, fromStatus, toStatus,
+                Timestamp.valueOf(LocalDateTime.now()), changedBy, note);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderStatusHistoryDto> getHistory(Long orderId) {
+        return historyRepository.findByOrderIdOrderByChangedAtAscHistoryIdAsc(orderId).stream()
+                .map(h -> new OrderStatusHistoryDto(h.getOrderId(), h.getFromStatus(), h.getToStatus(),
+                        h.getChangedAt(), h.getChangedBy(), h.getNote()))
+                .toList();
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+}
@@ -4,23 +4,49 @@ import com.gn.pharmacy.dto.request.ExchangeDto;
 import com.gn.pharmacy.dto.request.ExchangeRequestDto;
 import com.gn.pharmacy.dto.request.OrderItemDto;
 import com.gn.pharmacy.dto.request.OrderRequestDto;
+import com.gn.pharmacy.dto.order.OrderCancellationResultDto;
 import com.gn.pharmacy.dto.response.OrderResponseDto;
 import com.gn.pharmacy.entity.*;
+import com.gn.pharmacy.event.CustomerOrdersChangedEvent;
+import com.gn.pharmacy.event.OrderSalesChangedEvent;
+import com.gn.pharmacy.event.StockChangedEvent;
 
 import com.gn.pharmacy.repository.*;
 
+import com.gn.pharmacy.service.BatchTraceabilityService;
+import com.gn.pharmacy.service.EmailOutboxService;
+import com.gn.pharmacy.service.OrderArchiveService;
+import com.gn.pharmacy.service.OrderCancellationService;
+import com.gn.pharmacy.service.OrderLifecycleService;
 import com.gn.pharmacy.service.OrderService;
+import com.gn.pharmacy.service.SalesRollupService;
+import com.gn.pharmacy.service.StockHoldService;
+import com.gn.pharmacy.service.StockLedgerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 import java.util.stream.Collectors;
 
 
@@ -29,21 +55,56 @@ import java.util.stream.Collectors;
 public class OrderServiceImpl implements OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
+    private static final DateTimeFormatter ORDER_DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm a", Locale.ENGLISH);
 
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final MbPRepository mbpRepository;
+    private final InventoryRepository inventoryRepository;
+    private final StockLedgerService stockLedgerService;
+    private final StockHoldService stockHoldService;
+    private final BatchTraceabilityService batchTraceabilityService;
+    private final EmailOutboxService emailOutboxService;
+    private final OrderLifecycleService orderLifecycleService;
+    private final OrderArchiveService orderArchiveService;
+    private final OrderCancellationService orderCancellationService;
+    private final SalesRollupService salesRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${mail.order-confirmation.enabled:true}")
+    private boolean orderConfirmationEnabled;
+
+    @Value("${mail.order-confirmation.contact-mobile:}")
+    private String orderContactMobile;
 
 
     public OrderServiceImpl(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
-                            ProductRepository productRepository, UserRepository userRepository, MbPRepository mbpRepository) {
+                            ProductRepository productRepository, UserRepository userRepository, MbPRepository mbpRepository,
+                            InventoryRepository inventoryRepository, StockLedgerService stockLedgerService,
+                            StockHoldService stockHoldService, BatchTraceabilityService batchTraceabilityService,
+                            EmailOutboxService emailOutboxService, OrderLifecycleService orderLifecycleService,
+                            OrderArchiveService orderArchiveService, OrderCancellationService orderCancellationService,
+                            SalesRollupService salesRollupService, ApplicationEventPublisher eventPublisher,
+                            JdbcTemplate jdbcTemplate) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
         this.mbpRepository = mbpRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.stockHoldService = stockHoldService;
+        this.batchTraceabilityService = batchTraceabilityService;
+        this.emailOutboxService = emailOutboxService;
+        this.orderLifecycleService = orderLifecycleService;
+        this.orderArchiveService = orderArchiveService;
+        this.orderCancellationService = orderCancellationService;
+        this.salesRollupService = salesRollupService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -56,114 +117,169 @@ public class OrderServiceImpl implements OrderService {
         UserEntity user = userRepository.findById(orderRequestDto.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + orderRequestDto.getUserId()));
 
+        List<OrderItemDto> itemDtos = orderRequestDto.getOrderItems() != null
+                ? orderRequestDto.getOrderItems() : new ArrayList<>();
+
+        // Validate every line before touching the database
+        Set<Long> productIds = new LinkedHashSet<>();
+        Set<Long> mbpIds = new LinkedHashSet<>();
+        for (OrderItemDto itemDto : itemDtos) {
+            if (itemDto.getQuantity() == null || itemDto.getQuantity() <= 0) {
+                throw new RuntimeException("Invalid quantity for item: " + itemDto.getItemName());
+            }
+
+            Long productId = itemDto.getProductId();
+            Long mbpId = itemDto.getMbpId();
+
+            if ((productId == null && mbpId == null) || (productId != null && mbpId != null)) {
+                throw new RuntimeException(
+                        "Invalid order item: exactly one of 'productId' or 'mbpId' must be provided. " +
+                                "Received productId=" + productId + ", mbpId=" + mbpId +
+                                ", itemName=" + itemDto.getItemName()
+                );
+            }
+            if (productId != null) productIds.add(productId);
+            else mbpIds.add(mbpId);
+        }
+
         OrderEntity orderEntity = new OrderEntity();
         orderEntity.setUser(user);
-        orderEntity.setOrderDate(LocalDateTime.now().format(DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm a")));
+        LocalDateTime placedAt = LocalDateTime.now();
+        orderEntity.setPlacedAt(placedAt);
+        orderEntity.setOrderDate(placedAt.format(ORDER_DATE_FORMAT));
         mapOrderFields(orderRequestDto, orderEntity);
+        orderEntity.setOrderStatus(initialStatus(orderRequestDto.getOrderStatus()));
 
         OrderEntity savedEntity = orderRepository.save(orderEntity);
 
-        if (orderRequestDto.getOrderItems() != null && !orderRequestDto.getOrderItems().isEmpty()) {
-
-            for (OrderItemDto itemDto : orderRequestDto.getOrderItems()) {
+        if (itemDtos.isEmpty()) {
+            logger.warn("Order created with no items for userId: {}", orderRequestDto.getUserId());
+            logger.info("Order created successfully with ID: {}", savedEntity.getOrderId());
+            return mapToResponseDto(savedEntity);
+        }
 
-                if (itemDto.getQuantity() == null || itemDto.getQuantity() <= 0) {
-                    throw new RuntimeException("Invalid quantity for item: " + itemDto.getItemName());
-                }
+        // Resolve all parents (row-locked, fixed order) and all their batches + variants: four queries in total
+        Map<Long, ProductEntity> products = new HashMap<>();
+        Map<Long, List<InventoryEntity>> productBatches = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findAllByIdForUpdate(productIds).forEach(p -> products.put(p.getProductId(), p));
+            for (InventoryEntity batch : inventoryRepository.findProductBatchesWithVariants(productIds)) {
+                productBatches.computeIfAbsent(batch.getProduct().getProductId(), k -> new ArrayList<>()).add(batch);
+            }
+        }
+        Map<Long, MbPEntity> mbps = new HashMap<>();
+        Map<Long, List<InventoryEntity>> mbpBatches = new HashMap<>();
+        if (!mbpIds.isEmpty()) {
+            mbpRepository.findAllByIdForUpdate(mbpIds).forEach(m -> mbps.put(m.getId(), m));
+            for (InventoryEntity batch : inventoryRepository.findMbpBatchesWithVariants(mbpIds)) {
+                mbpBatches.computeIfAbsent(batch.getMbp().getId(), k -> new ArrayList<>()).add(batch);
+            }
+        }
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) throw new RuntimeException("Product not found with ID: " + productId);
+        }
+        for (Long mbpId : mbpIds) {
+            if (!mbps.containsKey(mbpId)) throw new RuntimeException("MbP product not found with ID: " + mbpId);
+        }
 
-                Long productId = itemDto.getProductId();
-                Long mbpId = itemDto.getMbpId();
+        // Units covered by the user's own cart holds were checked when the holds were granted;
+        // only the uncovered remainder has to fit into stock not held by other carts
+        Map<StockHoldService.ItemSize, Integer> requested = new LinkedHashMap<>();
+        for (OrderItemDto itemDto : itemDtos) {
+            requested.merge(StockHoldService.ItemSize.of(itemDto.getProductId(), itemDto.getMbpId(), itemDto.getSize()),
+                    itemDto.getQuantity(), Integer::sum);
+        }
+        Map<StockHoldService.ItemSize, Integer> covered = stockHoldService.consumeHolds(user.getUserId(), requested);
+        Map<StockHoldService.ItemSize, Long> heldByOthers = null;
+        for (Map.Entry<StockHoldService.ItemSize, Integer> entry : requested.entrySet()) {
+            StockHoldService.ItemSize key = entry.getKey();
+            if (covered.getOrDefault(key, 0) >= entry.getValue()) continue;
+
+            if (heldByOthers == null) {
+                heldByOthers = stockHoldService.heldByOthers(user.getUserId(), productIds, mbpIds);
+            }
+            List<InventoryEntity> batches = key.productId() != null
+                    ? productBatches.getOrDefault(key.productId(), List.of())
+                    : mbpBatches.getOrDefault(key.mbpId(), List.of());
+            long available = sizeStock(batches, key.size()) - heldByOthers.getOrDefault(key, 0L);
+            if (available < entry.getValue()) {
+                throw new RuntimeException(String.format(
+                        "Insufficient stock for size '%s'. Required: %d, Available: %d (item ID: %d)",
+                        key.size().isEmpty() ? "default" : key.size(), entry.getValue(), Math.max(0, available),
+                        key.productId() != null ? key.productId() : key.mbpId()
+                ));
+            }
+        }
 
-                if ((productId == null && mbpId == null) || (productId != null && mbpId != null)) {
-                    throw new RuntimeException(
-                            "Invalid order item: exactly one of 'productId' or 'mbpId' must be provided. " +
-                                    "Received productId=" + productId + ", mbpId=" + mbpId +
-                                    ", itemName=" + itemDto.getItemName()
-                    );
-                }
+        // Allocate in memory; the loaded variants are not modified so Hibernate does not rewrite the collections
+        Map<BatchVariant, Integer> remainingByVariant = new IdentityHashMap<>();
+        Map<BatchVariant, VariantDeduction> deductions = new IdentityHashMap<>();
+        List<StockLedgerService.Movement> movements = new ArrayList<>();
+        List<PendingAllocation> allocations = new ArrayList<>();
+        String reference = "ORDER-" + savedEntity.getOrderId();
+
+        for (int line = 0; line < itemDtos.size(); line++) {
+            OrderItemDto itemDto = itemDtos.get(line);
+            Long productId = itemDto.getProductId();
+            Long mbpId = itemDto.getMbpId();
+
+            List<InventoryEntity> batches = productId != null ? productBatches.get(productId) : mbpBatches.get(mbpId);
+            if (batches == null || batches.isEmpty()) {
+                throw new RuntimeException("No inventory batches found for item: " + itemDto.getItemName());
+            }
 
-                List<InventoryEntity> batches;
-                Object parentEntity;
+            String requestedSize = itemDto.getSize();
+            int remainingToDeduct = itemDto.getQuantity();
 
-                if (productId != null) {
-                    ProductEntity product = productRepository.findById(productId)
-                            .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
-                    batches = product.getInventoryBatches();
-                    parentEntity = product;
-                } else {
-                    MbPEntity mbp = mbpRepository.findById(mbpId)
-                            .orElseThrow(() -> new RuntimeException("MbP product not found with ID: " + mbpId));
-                    batches = mbp.getInventoryBatches();
-                    parentEntity = mbp;
-                }
+            for (InventoryEntity batch : batches) {
+                if (remainingToDeduct <= 0) break;
 
-                if (batches == null || batches.isEmpty()) {
-                    throw new RuntimeException("No inventory batches found for item: " + itemDto.getItemName());
-                }
+                BatchVariant targetVariant = findVariantForSize(batch, requestedSize);
+                if (targetVariant == null) continue;
 
-                String requestedSize = itemDto.getSize();
-                int remainingToDeduct = itemDto.getQuantity();
-
-                boolean deducted = false;
-
-                for (InventoryEntity batch : batches) {
-                    if (remainingToDeduct <= 0) break;
-
-                    List<BatchVariant> variants = batch.getVariants();
-                    if (variants == null || variants.isEmpty()) continue;
-
-                    // Find variant matching the requested size (case-insensitive, allow null for no-size)
-                    BatchVariant targetVariant = variants.stream()
-                            .filter(v -> {
-                                String variantSize = v.getSize();
-                                if (requestedSize == null || requestedSize.trim().isEmpty()) {
-                                    return variantSize == null || variantSize.trim().isEmpty();
-                                }
-                                return requestedSize.equalsIgnoreCase(variantSize);
-                            })
-                            .findFirst()
-                            .orElse(null);
-
-                    if (targetVariant != null && targetVariant.getQuantity() != null && targetVariant.getQuantity() > 0) {
-                        int deduct = Math.min(targetVariant.getQuantity(), remainingToDeduct);
-                        targetVariant.setQuantity(targetVariant.getQuantity() - deduct);
-                        remainingToDeduct -= deduct;
-                        deducted = true;
-
-                        logger.info("Deducted {} from batch {} variant size '{}' (parent ID: {})",
-                                deduct, batch.getBatchNo(), targetVariant.getSize(),
-                                productId != null ? productId : mbpId);
-                    }
-                }
+                int onHand = remainingByVariant.computeIfAbsent(targetVariant,
+                        v -> v.getQuantity() != null ? v.getQuantity() : 0);
+                if (onHand <= 0) continue;
 
-                if (remainingToDeduct > 0) {
-                    throw new RuntimeException(String.format(
-                            "Insufficient stock for size '%s'. Required: %d, Available: not enough (item: %s)",
-                            requestedSize != null ? requestedSize : "default",
-                            itemDto.getQuantity(), itemDto.getItemName()
-                    ));
-                }
+                int deduct = Math.min(onHand, remainingToDeduct);
+                remainingByVariant.put(targetVariant, onHand - deduct);
+                deductions.computeIfAbsent(targetVariant, v -> new VariantDeduction(batch, v)).quantity += deduct;
+                remainingToDeduct -= deduct;
 
-                // Save parent to persist variant changes
-                if (parentEntity instanceof ProductEntity) {
-                    productRepository.save((ProductEntity) parentEntity);
-                } else if (parentEntity instanceof MbPEntity) {
-                    mbpRepository.save((MbPEntity) parentEntity);
-                }
+                movements.add(new StockLedgerService.Movement(batch.getInventoryId(), productId, mbpId,
+                        batch.getBatchNo(), targetVariant.getSize(), -deduct, StockMovementReason.ORDER, reference));
+                allocations.add(new PendingAllocation(line, batch, targetVariant.getSize(), deduct));
 
-                // Create order item and store ordered size
-                OrderItemEntity orderItem = createOrderItemEntity(itemDto, savedEntity, parentEntity);
-                orderItem.setSize(requestedSize);
-                savedEntity.getOrderItems().add(orderItem);
+                logger.info("Deducted {} from batch {} variant size '{}' (parent ID: {})",
+                        deduct, batch.getBatchNo(), targetVariant.getSize(),
+                        productId != null ? productId : mbpId);
             }
 
-            savedEntity = orderRepository.save(savedEntity);
-        } else {
-            logger.warn("Order created with no items for userId: {}", orderRequestDto.getUserId());
+            if (remainingToDeduct > 0) {
+                throw new RuntimeException(String.format(
+                        "Insufficient stock for size '%s'. Required: %d, Available: not enough (item: %s)",
+                        requestedSize != null ? requestedSize : "default",
+                        itemDto.getQuantity(), itemDto.getItemName()
+                ));
+            }
         }
 
-        logger.info("Order created successfully with ID: {}", savedEntity.getOrderId());
-        return mapToResponseDto(savedEntity);
+        // Write everything with JDBC batches: variant quantities, order items, ledger, batch allocations
+        applyVariantDeductions(deductions.values());
+        List<OrderItemEntity> orderItems = insertOrderItems(savedEntity, itemDtos, products, mbps);
+        stockLedgerService.record(movements);
+        recordBatchAllocations(savedEntity, orderItems, allocations);
+        salesRollupService.apply(List.of(savedEntity.getOrderId()), 1);
+
+        Set<Long> touchedProductIds = new HashSet<>(productIds);
+        Set<Long> touchedMbpIds = new HashSet<>(mbpIds);
+        eventPublisher.publishEvent(StockChangedEvent.of(touchedProductIds, touchedMbpIds));
+        eventPublisher.publishEvent(CustomerOrdersChangedEvent.of(Collections.singleton(userIdOf(savedEntity))));
+        eventPublisher.publishEvent(OrderSalesChangedEvent.placed(List.of(savedEntity.getOrderId())));
+        queueOrderConfirmation(savedEntity, orderItems);
+
+        logger.info("Order created successfully with ID: {} ({} lines)", savedEntity.getOrderId(), orderItems.size());
+        return mapToResponseDto(savedEntity, orderItems);
     }
 
 
@@ -171,31 +287,254 @@ public class OrderServiceImpl implements OrderService {
 
     // === ADD THIS METHOD TO OrderServiceImpl.java ===
     @Override
+    @Transactional(readOnly = true)
     public Page<OrderResponseDto> getOrdersByUserId(Long userId, Pageable pageable) {
         logger.info("Fetching paginated orders for user ID: {}", userId);
 
         // Validate user exists
-        userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found with ID: " + userId);
+        }
 
-        Page<OrderEntity> orderPage = orderRepository.findByUser_UserId(userId, pageable);
-        return orderPage.map(this::mapToResponseDto);
+        if (orderArchiveService.userHasArchivedOrders(userId)) {
+            return getOrdersAcrossArchive(userId, pageable, USER_ORDERS_DEFAULT_SORT);
+        }
+        Page<OrderEntity> orderPage = orderRepository.findByUser_UserId(userId, withDefaultSort(pageable, USER_ORDERS_DEFAULT_SORT));
+        return mapOrderPage(orderPage);
     }
 
 
     @Override
+    @Transactional(readOnly = true)
     public OrderResponseDto getOrderById(Long orderId) {
         logger.info("Fetching order with ID: {}", orderId);
-        OrderEntity orderEntity = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
-        return mapToResponseDto(orderEntity);
+        Optional<OrderEntity> hot = orderRepository.findById(orderId);
+        if (hot.isEmpty()) {
+            OrderResponseDto archived = loadArchivedHeaders(List.of(orderId)).get(orderId);
+            if (archived == null) {
+                throw new RuntimeException("Order not found with ID: " + orderId);
+            }
+            archived.setOrderItems(loadOrderItemDtos(List.of(orderId), OrderArchiveService.ORDER_ITEMS_ARCHIVE,
+                    OrderArchiveService.EXCHANGES_ARCHIVE).getOrDefault(orderId, new ArrayList<>()));
+            return archived;
+        }
+        OrderResponseDto responseDto = mapOrderHeader(hot.get());
+        responseDto.setOrderItems(loadOrderItemDtos(List.of(orderId)).getOrDefault(orderId, new ArrayList<>()));
+        return responseDto;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<OrderResponseDto> getAllOrders(Pageable pageable) {
         logger.info("Fetching all orders with pagination");
-        Page<OrderEntity> orderPage = orderRepository.findAll(pageable);
-        return orderPage.map(this::mapToResponseDto);
+        if (orderArchiveService.rangeIncludesArchive(null)) {
+            return getOrdersAcrossArchive(null, pageable, ALL_ORDERS_DEFAULT_SORT);
+        }
+        Page<OrderEntity> orderPage = orderRepository.findAll(withDefaultSort(pageable, ALL_ORDERS_DEFAULT_SORT));
+        return mapOrderPage(orderPage);
+    }
+
+    // ==================== ORDER HISTORY READ PATH ====================
+    // One query for the order page, one for all its items, one for all their exchanges - independent of
+    // page size. Item rows are read as plain columns, so product / MbP entities are never touched.
+
+    private static final String HISTORY_ITEMS_SQL =
+            "SELECT order_item_id, order_id, product_id, mbp_id, quantity, item_price, item_old_price, subtotal, " +
+                    "item_name, size_variant FROM %s WHERE order_id IN (%s) ORDER BY order_id, order_item_id";
+    private static final String HISTORY_EXCHANGES_SQL =
+            "SELECT order_item_id, mb_product_id, user_id, order_id, exchange_reason, exchange_size, product_size, " +
+                    "exchange_status, is_exchanged FROM %s WHERE order_item_id IN (%s)";
+
+    // Once orders have been archived, order lists page over both tables: one id query over the union,
+    // ordered by the requested sort (properties mapped to columns below), then headers are loaded from
+    // whichever side holds them. Unsorted pages get the same default order with or without the archive,
+    // so archiving an order doesn't reshuffle a list.
+    private static final Sort USER_ORDERS_DEFAULT_SORT = Sort.by(Sort.Order.desc("placedAt"), Sort.Order.desc("orderId"));
+    private static final Sort ALL_ORDERS_DEFAULT_SORT = Sort.by(Sort.Order.asc("orderId"));
+    private static final Map<String, String> ORDER_SORT_COLUMNS = Map.ofEntries(
+            Map.entry("orderId", "order_id"),
+            Map.entry("placedAt", "placed_at"),
+            Map.entry("orderDate", "order_date"),
+            Map.entry("deliveryDate", "delivery_date"),
+            Map.entry("orderStatus", "order_status"),
+            Map.entry("totalAmount", "total_amount"),
+            Map.entry("paymentMethod", "payment_method"),
+            Map.entry("customerFirstName", "customer_first_name"),
+            Map.entry("customerLastName", "customer_last_name"),
+            Map.entry("customerEmail", "customer_email"));
+    private static final String ARCHIVED_HEADERS_SQL =
+            "SELECT * FROM " + OrderArchiveService.ORDERS_ARCHIVE + " WHERE order_id IN (%s)";
+
+    private static Pageable withDefaultSort(Pageable pageable, Sort defaultSort) {
+        if (pageable.isUnpaged() || pageable.getSort().isSorted()) return pageable;
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), defaultSort);
+    }
+
+    /**
+     * Id query for one page over orders_table and the archive. Each branch is ordered and cut to
+     * offset + size before the merge (binds: [userId,] offset + size per branch, then size, offset), so a
+     * page reads at most that many rows per table through the sort index instead of sorting both tables.
+     */
+    static String ordersAcrossArchiveSql(Sort sort, boolean byUser) {
+        Set<String> columns = new LinkedHashSet<>(List.of("order_id"));
+        List<String> orderBy = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = ORDER_SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Orders can't be sorted by " + order.getProperty());
+            }
+            columns.add(column);
+            orderBy.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        if (orderBy.stream().noneMatch(o -> o.startsWith("order_id "))) {
+            orderBy.add("order_id ASC");        // stable pages when sort keys tie
+        }
+        String select = "SELECT " + String.join(", ", columns);
+        String where = byUser ? " WHERE user_id = ?" : "";
+        String order = " ORDER BY " + String.join(", ", orderBy);
+        return "(" + select + ", 0 AS archived FROM orders_table" + where + order + " LIMIT ?)" +
+                " UNION ALL (" + select + ", 1 AS archived FROM " + OrderArchiveService.ORDERS_ARCHIVE + where + order + " LIMIT ?)" +
+                order + " LIMIT ? OFFSET ?";
+    }
+
+    // userId null = all orders; defaultSort applies when the pageable is unsorted
+    private Page<OrderResponseDto> getOrdersAcrossArchive(Long userId, Pageable pageable, Sort defaultSort) {
+        String where = userId != null ? " WHERE user_id = ?" : "";
+        Object[] userArgs = userId != null ? new Object[]{userId} : new Object[0];
+        long total = (userId != null ? orderRepository.countByUser_UserId(userId) : orderRepository.count()) +
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + OrderArchiveService.ORDERS_ARCHIVE + where, Long.class, userArgs);
+
+        String sql = ordersAcrossArchiveSql(pageable.getSort().isSorted() ? pageable.getSort() : defaultSort, userId != null);
+        long branchLimit = pageable.getOffset() + pageable.getPageSize();
+        List<Object> params = new ArrayList<>(List.of(userArgs));
+        params.add(branchLimit);
+        params.addAll(List.of(userArgs));
+        params.add(branchLimit);
+        params.add(pageable.getPageSize());
+        params.add(pageable.getOffset());
+
+        List<Long> pageIds = new ArrayList<>();
+        List<Long> hotIds = new ArrayList<>();
+        List<Long> archivedIds = new ArrayList<>();
+        jdbcTemplate.query(sql, rs -> {
+            long id = rs.getLong("order_id");
+            pageIds.add(id);
+            (rs.getInt("archived") == 1 ? archivedIds : hotIds).add(id);
+        }, params.toArray());
+
+        Map<Long, OrderResponseDto> headers = new HashMap<>(loadArchivedHeaders(archivedIds));
+        orderRepository.findAllById(hotIds).forEach(order -> headers.put(order.getOrderId(), mapOrderHeader(order)));
+        Map<Long, List<OrderItemDto>> items = new HashMap<>(loadOrderItemDtos(hotIds));
+        items.putAll(loadOrderItemDtos(archivedIds, OrderArchiveService.ORDER_ITEMS_ARCHIVE,
+                OrderArchiveService.EXCHANGES_ARCHIVE));
+
+        List<OrderResponseDto> content = new ArrayList<>();
+        for (Long id : pageIds) {
+            OrderResponseDto responseDto = headers.get(id);
+            if (responseDto == null) continue;      // archived between the id query and the header load
+            responseDto.setOrderItems(items.getOrDefault(id, new ArrayList<>()));
+            content.add(responseDto);
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private Map<Long, OrderResponseDto> loadArchivedHeaders(List<Long> orderIds) {
+        if (orderIds.isEmpty()) return Map.of();
+        Map<Long, OrderResponseDto> headers = new HashMap<>();
+        jdbcTemplate.query(String.format(ARCHIVED_HEADERS_SQL, placeholders(orderIds.size())), rs -> {
+            OrderEntity order = new OrderEntity();
+            order.setOrderId(rs.getLong("order_id"));
+            order.setShippingAddress(rs.getString("shipping_address"));
+            order.setShippingAddress2(rs.getString("shipping_address2"));
+            order.setShippingCity(rs.getString("shipping_city"));
+            order.setShippingState(rs.getString("shipping_state"));
+            order.setShippingPincode(rs.getString("shipping_pincode"));
+            order.setShippingCountry(rs.getString("shipping_country"));
+            order.setShippingFirstName(rs.getString("shipping_first_name"));
+            order.setShippingLastName(rs.getString("shipping_last_name"));
+            order.setShippingEmail(rs.getString("shipping_email"));
+            order.setShippingPhone(rs.getString("shipping_phone"));
+            order.setCustomerFirstName(rs.getString("customer_first_name"));
+            order.setCustomerLastName(rs.getString("customer_last_name"));
+            order.setCustomerPhone(rs.getString("customer_phone"));
+            order.setCustomerEmail(rs.getString("customer_email"));
+            order.setPaymentMethod(rs.getString("payment_method"));
+            order.setTotalAmount(rs.getObject("total_amount", Double.class));
+            order.setTax(rs.getObject("tax", Double.class));
+            order.setCouponApplied(rs.getObject("coupon_applied", Double.class));
+            order.setConvenienceFee(rs.getObject("convenience_fee", Double.class));
+            order.setDiscountPercent(rs.getObject("discount_percent", Double.class));
+            order.setDiscountAmount(rs.getObject("discount_amount", Double.class));
+            order.setOrderStatus(rs.getString("order_status"));
+            order.setOrderDate(rs.getString("order_date"));
+            order.setDeliveryDate(rs.getString("delivery_date"));
+            // Detached copy only used for mapping; the user is not loaded
+            OrderResponseDto responseDto = mapOrderHeader(order);
+            responseDto.setUserId(rs.getObject("user_id", Long.class));
+            headers.put(order.getOrderId(), responseDto);
+        }, orderIds.toArray());
+        return headers;
+    }
+
+    private Page<OrderResponseDto> mapOrderPage(Page<OrderEntity> orderPage) {
+        List<Long> orderIds = orderPage.getContent().stream().map(OrderEntity::getOrderId).toList();
+        Map<Long, List<OrderItemDto>> itemsByOrder = loadOrderItemDtos(orderIds);
+        return orderPage.map(order -> {
+            OrderResponseDto responseDto = mapOrderHeader(order);
+            responseDto.setOrderItems(itemsByOrder.getOrDefault(order.getOrderId(), new ArrayList<>()));
+            return responseDto;
+        });
+    }
+
+    private Map<Long, List<OrderItemDto>> loadOrderItemDtos(List<Long> orderIds) {
+        return loadOrderItemDtos(orderIds, "order_items", "order_item_exchanges");
+    }
+
+    private Map<Long, List<OrderItemDto>> loadOrderItemDtos(List<Long> orderIds, String itemsTable, String exchangesTable) {
+        if (orderIds.isEmpty()) return Map.of();
+
+        Map<Long, List<OrderItemDto>> itemsByOrder = new HashMap<>();
+        Map<Long, OrderItemDto> itemsById = new LinkedHashMap<>();
+        jdbcTemplate.query(String.format(HISTORY_ITEMS_SQL, itemsTable, placeholders(orderIds.size())), rs -> {
+            OrderItemDto itemDto = toOrderItemDto(
+                    rs.getLong("order_item_id"),
+                    rs.getObject("product_id", Long.class),
+                    rs.getObject("mbp_id", Long.class),
+                    rs.getInt("quantity"),
+                    rs.getObject("item_price", Double.class),
+                    rs.getObject("item_old_price", Double.class),
+                    rs.getObject("subtotal", Double.class),
+                    rs.getString("item_name"),
+                    rs.getString("size_variant"));
+            itemDto.setExchanges(new ArrayList<>());
+            itemsById.put(itemDto.getOrderItemId(), itemDto);
+            itemsByOrder.computeIfAbsent(rs.getLong("order_id"), k -> new ArrayList<>()).add(itemDto);
+        }, orderIds.toArray());
+
+        if (!itemsById.isEmpty()) {
+            List<Long> itemIds = new ArrayList<>(itemsById.keySet());
+            jdbcTemplate.query(String.format(HISTORY_EXCHANGES_SQL, exchangesTable, placeholders(itemIds.size())), rs -> {
+                Exchange exchange = new Exchange();
+                exchange.setMbProductId(rs.getObject("mb_product_id", Long.class));
+                exchange.setUserId(rs.getObject("user_id", Long.class));
+                exchange.setOrderId(rs.getObject("order_id", Long.class));
+                exchange.setExchangeReason(rs.getString("exchange_reason"));
+                exchange.setExchangeSize(rs.getString("exchange_size"));
+                exchange.setProductSize(rs.getString("product_size"));
+                exchange.setExchangeStatus(rs.getString("exchange_status"));
+                exchange.setExchanged(rs.getBoolean("is_exchanged"));
+                itemsById.get(rs.getLong("order_item_id")).getExchanges().add(mapToExchangeDto(exchange));
+            }, itemIds.toArray());
+        }
+        return itemsByOrder;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static Long userIdOf(OrderEntity order) {
+        return order.getUser() != null ? order.getUser().getUserId() : null;
     }
 
     @Override
@@ -203,6 +542,9 @@ public class OrderServiceImpl implements OrderService {
         logger.info("Updating order with ID: {}", orderId);
         OrderEntity orderEntity = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
+        // Take the order out of the rollups as it is now; it is added back after the change is flushed
+        salesRollupService.apply(List.of(orderId), -1);
+        Long previousUserId = userIdOf(orderEntity);
 
         if (orderRequestDto.getUserId() != null) {
             UserEntity user = userRepository.findById(orderRequestDto.getUserId())
@@ -245,6 +587,14 @@ public class OrderServiceImpl implements OrderService {
         }
 
         OrderEntity updatedEntity = orderRepository.save(orderEntity);
+        orderRepository.flush();
+        salesRollupService.apply(List.of(orderId), 1);
+        eventPublisher.publishEvent(CustomerOrdersChangedEvent.of(Arrays.asList(previousUserId, userIdOf(updatedEntity))));
+        if (orderRequestDto.getOrderItems() != null) {
+            // Lines were deleted and re-inserted; keep the batch allocations attached to them
+            batchTraceabilityService.reassignOrderItems(orderId);
+        }
+        changeStatus(updatedEntity, orderRequestDto.getOrderStatus(), "order-update");
         logger.info("Order updated with ID: {}", updatedEntity.getOrderId());
         return mapToResponseDto(updatedEntity);
     }
@@ -254,6 +604,9 @@ public class OrderServiceImpl implements OrderService {
         logger.info("Patching order with ID: {}", orderId);
         OrderEntity orderEntity = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
+        // Take the order out of the rollups as it is now; it is added back after the change is flushed
+        salesRollupService.apply(List.of(orderId), -1);
+        Long previousUserId = userIdOf(orderEntity);
 
         if (orderRequestDto.getUserId() != null) {
             UserEntity user = userRepository.findById(orderRequestDto.getUserId())
@@ -282,8 +635,16 @@ public class OrderServiceImpl implements OrderService {
         if (orderRequestDto.getConvenienceFee() != null) orderEntity.setConvenienceFee(orderRequestDto.getConvenienceFee());
         if (orderRequestDto.getDiscountPercent() != null) orderEntity.setDiscountPercent(orderRequestDto.getDiscountPercent());
         if (orderRequestDto.getDiscountAmount() != null) orderEntity.setDiscountAmount(orderRequestDto.getDiscountAmount());
-        if (orderRequestDto.getOrderStatus() != null) orderEntity.setOrderStatus(orderRequestDto.getOrderStatus());
-        if (orderRequestDto.getOrderDate() != null) orderEntity.setOrderDate(orderRequestDto.getOrderDate());
+        if (orderRequestDto.getOrderDate() != null) {
+            orderEntity.setOrderDate(orderRequestDto.getOrderDate());
+            // Keep placed_at in step when the display date is corrected; unparseable input leaves it as is
+            try {
+                orderEntity.setPlacedAt(LocalDateTime.parse(orderRequestDto.getOrderDate().trim(), ORDER_DATE_FORMAT));
+            } catch (DateTimeParseException e) {
+                logger.warn("Order {} date '{}' is not in MM/dd/yyyy hh:mm a format; placed_at unchanged",
+                        orderEntity.getOrderId(), orderRequestDto.getOrderDate());
+            }
+        }
         if (orderRequestDto.getDeliveryDate() != null) orderEntity.setDeliveryDate(orderRequestDto.getDeliveryDate());
 
         if (orderRequestDto.getOrderItems() != null) {
@@ -318,24 +679,80 @@ public class OrderServiceImpl implements OrderService {
             }
         }
         OrderEntity updatedEntity = orderRepository.save(orderEntity);
+        orderRepository.flush();
+        salesRollupService.apply(List.of(orderId), 1);
+        eventPublisher.publishEvent(CustomerOrdersChangedEvent.of(Arrays.asList(previousUserId, userIdOf(updatedEntity))));
+        if (orderRequestDto.getOrderItems() != null) {
+            // Lines were deleted and re-inserted; keep the batch allocations attached to them
+            batchTraceabilityService.reassignOrderItems(orderId);
+        }
+        changeStatus(updatedEntity, orderRequestDto.getOrderStatus(), "order-patch");
         logger.info("Order patched with ID: {}", updatedEntity.getOrderId());
         return mapToResponseDto(updatedEntity);
     }
 
+    // Status a new order is saved with: the one the client sent (must be a known status), else PENDING.
+    // Only creation sets it directly; update / patch go through changeStatus.
+    static String initialStatus(String requested) {
+        if (requested == null || requested.isBlank()) return OrderStatus.PENDING.name();
+        return OrderStatus.parse(requested).name();
+    }
+
+    /**
+     * Status changes requested through update/patch go through the same paths as the status and cancel
+     * endpoints, after the rest of the change is flushed: the state machine check and history row, and
+     * for CANCELLED the stock restore and rollup adjustment. The JDBC update is mirrored onto the
+     * managed entity so the response and the commit-time flush carry the new status.
+     */
+    private void changeStatus(OrderEntity order, String requested, String note) {
+        if (requested == null || requested.isBlank()) return;
+        String current = order.getOrderStatus();
+        if (current != null && current.trim().equalsIgnoreCase(requested.trim())) return;
+
+        OrderStatus target = OrderStatus.parse(requested);
+        if (target == OrderStatus.CANCELLED) {
+            OrderCancellationResultDto result = orderCancellationService.cancelOrders(List.of(order.getOrderId()), null, note);
+            if (!result.rejected().isEmpty()) {
+                throw new IllegalStateException("Order " + order.getOrderId() + " can't move from " +
+                        result.rejected().get(0).currentStatus() + " to " + target);
+            }
+        } else {
+            orderLifecycleService.transition(order.getOrderId(), target, null, note);
+        }
+        order.setOrderStatus(target.name());
+    }
+
     @Override
     public void deleteOrder(Long orderId) {
         logger.info("Deleting order with ID: {}", orderId);
         OrderEntity orderEntity = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
+        salesRollupService.apply(List.of(orderId), -1);
 
         if (orderEntity.getOrderItems() != null) {
             orderItemRepository.deleteAll(orderEntity.getOrderItems());
         }
 
         orderRepository.deleteById(orderId);
+        eventPublisher.publishEvent(CustomerOrdersChangedEvent.of(Collections.singleton(userIdOf(orderEntity))));
         logger.info("Order deleted with ID: {}", orderId);
     }
 
+    // Written to the outbox in the order's transaction: the mail goes out only if the order commits
+    private void queueOrderConfirmation(OrderEntity order, List<OrderItemEntity> items) {
+        if (!orderConfirmationEnabled) return;
+        String email = order.getCustomerEmail() != null ? order.getCustomerEmail() : order.getUser().getEmail();
+        if (email == null || email.isBlank()) return;
+
+        String customerName = ((order.getCustomerFirstName() != null ? order.getCustomerFirstName() : "") + " " +
+                (order.getCustomerLastName() != null ? order.getCustomerLastName() : "")).trim();
+        List<String> productNames = items.stream().map(OrderItemEntity::getItemName).filter(Objects::nonNull).toList();
+        emailOutboxService.enqueueOrderConfirmation(email, customerName.isEmpty() ? "Customer" : customerName,
+                String.valueOf(order.getOrderId()),
+                order.getTotalAmount() != null ? BigDecimal.valueOf(order.getTotalAmount()) : BigDecimal.ZERO,
+                productNames, orderContactMobile);
+    }
+
     private void mapOrderFields(OrderRequestDto requestDto, OrderEntity orderEntity) {
         orderEntity.setShippingAddress(requestDto.getShippingAddress());
         orderEntity.setShippingAddress2(requestDto.getShippingAddress2());
@@ -358,10 +775,146 @@ public class OrderServiceImpl implements OrderService {
         orderEntity.setConvenienceFee(requestDto.getConvenienceFee());
         orderEntity.setDiscountPercent(requestDto.getDiscountPercent());
         orderEntity.setDiscountAmount(requestDto.getDiscountAmount());
-        orderEntity.setOrderStatus(requestDto.getOrderStatus());
         orderEntity.setDeliveryDate(requestDto.getDeliveryDate());
     }
 
+    private static final String UPDATE_VARIANT_SQL =
+            "UPDATE inventory_variants SET quantity = quantity - ? " +
+                    "WHERE inventory_id = ? AND size <=> ? AND quantity >= ? LIMIT 1";
+
+    private static final String INSERT_ORDER_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, mbp_id, quantity, item_price, item_old_price, subtotal, " +
+                    "item_name, size_variant, item_category, item_sub_category) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Units taken from one batch variant across all lines of an order
+    private static final class VariantDeduction {
+        private final InventoryEntity batch;
+        private final BatchVariant variant;
+        private int quantity;
+
+        private VariantDeduction(InventoryEntity batch, BatchVariant variant) {
+            this.batch = batch;
+            this.variant = variant;
+        }
+    }
+
+    // Batch variant an order line was deducted from; line is the index into the order's item list
+    private record PendingAllocation(int line, InventoryEntity batch, String size, int quantity) {}
+
+    // Variant matching the requested size (trimmed, case-insensitive, null / blank means the no-size variant)
+    private BatchVariant findVariantForSize(InventoryEntity batch, String requestedSize) {
+        List<BatchVariant> variants = batch.getVariants();
+        if (variants == null || variants.isEmpty()) return null;
+
+        // Same normalisation as the availability check (sizeStock), so a size that passes it is also found here
+        String normalizedSize = StockHoldService.ItemSize.normalizeSize(requestedSize);
+        return variants.stream()
+                .filter(v -> StockHoldService.ItemSize.normalizeSize(v.getSize()).equals(normalizedSize))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private long sizeStock(List<InventoryEntity> batches, String normalizedSize) {
+        long total = 0;
+        for (InventoryEntity batch : batches) {
+            for (BatchVariant v : batch.getVariants()) {
+                String size = StockHoldService.ItemSize.normalizeSize(v.getSize());
+                if (size.equals(normalizedSize) && v.getQuantity() != null) total += v.getQuantity();
+            }
+        }
+        return total;
+    }
+
+    private void applyVariantDeductions(Collection<VariantDeduction> deductions) {
+        List<VariantDeduction> list = new ArrayList<>(deductions);
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_VARIANT_SQL, list, list.size(), (ps, d) -> {
+            ps.setInt(1, d.quantity);
+            ps.setLong(2, d.batch.getInventoryId());
+            ps.setString(3, d.variant.getSize());
+            ps.setInt(4, d.quantity);
+        });
+        int i = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // Parents are row-locked, so a miss means the variant changed outside the normal order flow
+                if (count == 0) {
+                    VariantDeduction d = list.get(i);
+                    throw new RuntimeException("Stock changed while placing the order (batch " + d.batch.getBatchNo()
+                            + ", size '" + d.variant.getSize() + "'). Please retry.");
+                }
+                i++;
+            }
+        }
+    }
+
+    private List<OrderItemEntity> insertOrderItems(OrderEntity order, List<OrderItemDto> itemDtos,
+                                                   Map<Long, ProductEntity> products, Map<Long, MbPEntity> mbps) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_ORDER_ITEM_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        OrderItemDto dto = itemDtos.get(i);
+                        ps.setLong(1, order.getOrderId());
+                        ps.setObject(2, dto.getProductId(), Types.BIGINT);
+                        ps.setObject(3, dto.getMbpId(), Types.BIGINT);
+                        ps.setInt(4, dto.getQuantity());
+                        ps.setObject(5, dto.getItemPrice(), Types.DOUBLE);
+                        ps.setObject(6, dto.getItemOldPrice(), Types.DOUBLE);
+                        ps.setObject(7, dto.getSubtotal(), Types.DOUBLE);
+                        ps.setString(8, dto.getItemName());
+                        ps.setString(9, dto.getSize());
+                        Object parent = dto.getProductId() != null ? products.get(dto.getProductId()) : mbps.get(dto.getMbpId());
+                        ps.setString(10, categoryOf(parent));
+                        ps.setString(11, subCategoryOf(parent));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return itemDtos.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != itemDtos.size()) {
+            throw new IllegalStateException("Expected " + itemDtos.size() + " generated order item ids, got " + keys.size());
+        }
+
+        // Detached views of the inserted rows, used for the response and allocations
+        List<OrderItemEntity> items = new ArrayList<>(itemDtos.size());
+        for (int i = 0; i < itemDtos.size(); i++) {
+            OrderItemDto dto = itemDtos.get(i);
+            Object parent = dto.getProductId() != null ? products.get(dto.getProductId()) : mbps.get(dto.getMbpId());
+            OrderItemEntity item = createOrderItemEntity(dto, order, parent);
+            item.setSize(dto.getSize());
+            item.setOrderItemId(((Number) keys.get(i).values().iterator().next()).longValue());
+            items.add(item);
+        }
+        return items;
+    }
+
+    private void recordBatchAllocations(OrderEntity order, List<OrderItemEntity> items, List<PendingAllocation> pending) {
+        Long userId = order.getUser() != null ? order.getUser().getUserId() : null;
+        List<BatchTraceabilityService.Allocation> allocations = new ArrayList<>(pending.size());
+        for (PendingAllocation p : pending) {
+            InventoryEntity batch = p.batch();
+            allocations.add(new BatchTraceabilityService.Allocation(
+                    order.getOrderId(),
+                    items.get(p.line()).getOrderItemId(),
+                    userId,
+                    batch.getInventoryId(),
+                    batch.getProduct() != null ? batch.getProduct().getProductId() : null,
+                    batch.getMbp() != null ? batch.getMbp().getId() : null,
+                    batch.getBatchNo(),
+                    p.size(),
+                    p.quantity()
+            ));
+        }
+        batchTraceabilityService.recordAllocations(allocations);
+    }
+
     private OrderItemEntity createOrderItemEntity(OrderItemDto dto, OrderEntity order, Object parentEntity) {
         OrderItemEntity entity = new OrderItemEntity();
         entity.setOrder(order);
@@ -371,6 +924,9 @@ public class OrderServiceImpl implements OrderService {
         entity.setSubtotal(dto.getSubtotal());
         entity.setItemName(dto.getItemName());
 
+        entity.setCategory(categoryOf(parentEntity));
+        entity.setSubCategory(subCategoryOf(parentEntity));
+
         // Set the correct reference using the passed parentEntity
         if (parentEntity instanceof ProductEntity) {
             entity.setProduct((ProductEntity) parentEntity);
@@ -385,7 +941,56 @@ public class OrderServiceImpl implements OrderService {
         return entity;
     }
 
+    // Snapshot written on the line; '' (not NULL) when the item has none, the same key the rollups use
+    private static String categoryOf(Object parent) {
+        String category = parent instanceof ProductEntity p ? p.getProductCategory()
+                : parent instanceof MbPEntity m ? m.getCategory() : null;
+        return category != null ? category : "";
+    }
+
+    private static String subCategoryOf(Object parent) {
+        String subCategory = parent instanceof ProductEntity p ? p.getProductSubCategory()
+                : parent instanceof MbPEntity m ? m.getSubCategory() : null;
+        return subCategory != null ? subCategory : "";
+    }
+
     private OrderResponseDto mapToResponseDto(OrderEntity orderEntity) {
+        return mapToResponseDto(orderEntity, orderEntity.getOrderItems());
+    }
+
+    private OrderResponseDto mapToResponseDto(OrderEntity orderEntity, List<OrderItemEntity> orderItems) {
+        OrderResponseDto responseDto = mapOrderHeader(orderEntity);
+
+        // Map Order Items with support for both ProductEntity and MbPEntity
+        if (orderItems != null && !orderItems.isEmpty()) {
+            List<OrderItemDto> orderItemDtos = orderItems.stream()
+                    .map(item -> {
+                        OrderItemDto itemDto = toOrderItemDto(
+                                item.getOrderItemId(),
+                                item.getProduct() != null ? item.getProduct().getProductId() : null,
+                                item.getMbP() != null ? item.getMbP().getId() : null,
+                                item.getQuantity(),
+                                item.getItemPrice(),
+                                item.getItemOldPrice(),
+                                item.getSubtotal(),
+                                item.getItemName(),
+                                item.getSize());
+                        itemDto.setExchanges(item.getExchanges().stream()
+                                .map(this::mapToExchangeDto)
+                                .collect(Collectors.toList()));
+                        return itemDto;
+                    })
+                    .collect(Collectors.toList());
+
+            responseDto.setOrderItems(orderItemDtos);
+        } else {
+            responseDto.setOrderItems(new ArrayList<>());
+        }
+
+        return responseDto;
+    }
+
+    private OrderResponseDto mapOrderHeader(OrderEntity orderEntity) {
         OrderResponseDto responseDto = new OrderResponseDto();
 
         responseDto.setOrderId(orderEntity.getOrderId());
@@ -417,50 +1022,38 @@ public class OrderServiceImpl implements OrderService {
         responseDto.setOrderStatus(orderEntity.getOrderStatus());
         responseDto.setOrderDate(orderEntity.getOrderDate());
         responseDto.setDeliveryDate(orderEntity.getDeliveryDate());
+        return responseDto;
+    }
 
-        // Map Order Items with support for both ProductEntity and MbPEntity
-        if (orderEntity.getOrderItems() != null && !orderEntity.getOrderItems().isEmpty()) {
-            List<OrderItemDto> orderItemDtos = orderEntity.getOrderItems().stream()
-                    .map(item -> {
-                        OrderItemDto itemDto = new OrderItemDto();
-
-                        itemDto.setOrderItemId(item.getOrderItemId());
-
-                        // Set correct IDs
-                        itemDto.setProductId(item.getProduct() != null ? item.getProduct().getProductId() : null);
-                        itemDto.setMbpId(item.getMbP() != null ? item.getMbP().getId() : null);
-
-                        itemDto.setQuantity(item.getQuantity());
-                        itemDto.setItemPrice(item.getItemPrice());
-                        itemDto.setItemOldPrice(item.getItemOldPrice());
-                        itemDto.setSubtotal(item.getSubtotal());
-                        itemDto.setItemName(item.getItemName());
-                        itemDto.setSize(item.getSize());
-                        itemDto.setExchanges(item.getExchanges().stream()
-                                .map(this::mapToExchangeDto)
-                                .collect(Collectors.toList()));
+    private OrderItemDto toOrderItemDto(Long orderItemId, Long productId, Long mbpId, int quantity, Double itemPrice,
+                                        Double itemOldPrice, Double subtotal, String itemName, String size) {
+        OrderItemDto itemDto = new OrderItemDto();
 
-                        // === MAIN IMAGE URL LOGIC ===
-                        String mainImageUrl = null;
+        itemDto.setOrderItemId(orderItemId);
 
-                        if (item.getProduct() != null && item.getProduct().getProductId() != null) {
-                            mainImageUrl = "/api/products/" + item.getProduct().getProductId() + "/image";
-                        } else if (item.getMbP() != null && item.getMbP().getId() != null) {
-                            mainImageUrl = "/api/mb/products/" + item.getMbP().getId() + "/image";
-                        }
+        // Set correct IDs
+        itemDto.setProductId(productId);
+        itemDto.setMbpId(mbpId);
 
-                        itemDto.setProductMainImage(mainImageUrl);
+        itemDto.setQuantity(quantity);
+        itemDto.setItemPrice(itemPrice);
+        itemDto.setItemOldPrice(itemOldPrice);
+        itemDto.setSubtotal(subtotal);
+        itemDto.setItemName(itemName);
+        itemDto.setSize(size);
 
-                        return itemDto;
-                    })
-                    .collect(Collectors.toList());
+        // === MAIN IMAGE URL LOGIC === (built from ids only)
+        String mainImageUrl = null;
 
-            responseDto.setOrderItems(orderItemDtos);
-        } else {
-            responseDto.setOrderItems(new ArrayList<>());
+        if (productId != null) {
+            mainImageUrl = "/api/products/" + productId + "/image";
+        } else if (mbpId != null) {
+            mainImageUrl = "/api/mb/products/" + mbpId + "/image";
         }
 
-        return responseDto;
+        itemDto.setProductMainImage(mainImageUrl);
+
+        return itemDto;
     }
 
 
@@ -471,103 +1064,20 @@ public class OrderServiceImpl implements OrderService {
     public OrderResponseDto cancelOrder(Long orderId) {
         logger.info("Cancelling order with ID: {}", orderId);
 
-        OrderEntity orderEntity = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
-
-        if ("CANCELLED".equals(orderEntity.getOrderStatus())) {
-            throw new RuntimeException("Order is already cancelled");
+        OrderCancellationResultDto result = orderCancellationService.cancelOrders(List.of(orderId), null, "cancel-order");
+        if (!result.notFound().isEmpty()) {
+            throw new RuntimeException("Order not found with ID: " + orderId);
         }
-        if ("DELIVERED".equals(orderEntity.getOrderStatus())) {
-            throw new RuntimeException("Cannot cancel delivered order");
+        if (result.alreadyCancelled() > 0) {
+            throw new RuntimeException("Order is already cancelled");
         }
-
-        // Restore stock to correct variant
-        if (orderEntity.getOrderItems() != null && !orderEntity.getOrderItems().isEmpty()) {
-            for (OrderItemEntity item : orderEntity.getOrderItems()) {
-
-                ProductEntity product = item.getProduct();
-                MbPEntity mbp = item.getMbP();
-                String orderedSize = item.getSize();
-
-                if (product == null && mbp == null) continue;
-
-                List<InventoryEntity> batches = product != null
-                        ? product.getInventoryBatches()
-                        : mbp.getInventoryBatches();
-
-                int quantityToRestore = item.getQuantity();
-                if (quantityToRestore <= 0) continue;
-
-                boolean restored = false;
-
-                // Try to find and restore to existing variant in any batch
-                for (InventoryEntity batch : batches) {
-                    if (quantityToRestore <= 0) break;
-
-                    List<BatchVariant> variants = batch.getVariants();
-                    if (variants == null) continue;
-
-                    BatchVariant targetVariant = variants.stream()
-                            .filter(v -> {
-                                String variantSize = v.getSize();
-                                if (orderedSize == null || orderedSize.trim().isEmpty()) {
-                                    return variantSize == null || variantSize.trim().isEmpty();
-                                }
-                                return orderedSize.equalsIgnoreCase(variantSize);
-                            })
-                            .findFirst()
-                            .orElse(null);
-
-                    if (targetVariant != null) {
-                        targetVariant.setQuantity(targetVariant.getQuantity() + quantityToRestore);
-                        quantityToRestore = 0;
-                        restored = true;
-
-                        logger.info("Restored {} to batch {} variant size '{}' (parent ID: {})",
-                                item.getQuantity(), batch.getBatchNo(), targetVariant.getSize(),
-                                product != null ? product.getProductId() : mbp.getId());
-                    }
-                }
-
-                // If no matching variant found → create new return batch with variant
-                if (quantityToRestore > 0) {
-                    InventoryEntity returnBatch = new InventoryEntity();
-                    returnBatch.setBatchNo("RETURN-" + orderId + "-" + item.getOrderItemId());
-                    returnBatch.setStockStatus("AVAILABLE");
-                    returnBatch.setLastUpdated(LocalDateTime.now());
-
-                    BatchVariant returnVariant = new BatchVariant();
-                    returnVariant.setSize(orderedSize);
-                    returnVariant.setQuantity(quantityToRestore);
-                    returnVariant.setMfgDate("N/A");
-                    returnVariant.setExpDate("N/A");
-
-                    returnBatch.getVariants().add(returnVariant);
-
-                    if (product != null) {
-                        returnBatch.setProduct(product);
-                        product.getInventoryBatches().add(returnBatch);
-                    } else {
-                        returnBatch.setMbp(mbp);
-                        mbp.getInventoryBatches().add(returnBatch);
-                    }
-
-                    logger.info("Created return batch for size '{}' with {} units (order item {})",
-                            orderedSize, quantityToRestore, item.getOrderItemId());
-                }
-
-                // Save parent
-                if (product != null) {
-                    productRepository.save(product);
-                } else if (mbp != null) {
-                    mbpRepository.save(mbp);
-                }
-            }
+        if (!result.rejected().isEmpty()) {
+            throw new RuntimeException("Cannot cancel " + result.rejected().get(0).currentStatus().toLowerCase() + " order");
         }
 
-        orderEntity.setOrderStatus("CANCELLED");
-        OrderEntity cancelledOrder = orderRepository.save(orderEntity);
-
+        // Cancellation runs in JDBC; the entity is read fresh afterwards
+        OrderEntity cancelledOrder = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
         logger.info("Order cancelled successfully with ID: {}", orderId);
         return mapToResponseDto(cancelledOrder);
     }
@@ -594,7 +1104,12 @@ public class OrderServiceImpl implements OrderService {
     public OrderResponseDto requestExchange(Long orderItemId, ExchangeRequestDto exchangeRequestDto) {
         logger.info("Requesting exchange for order item ID: {}", orderItemId);
 
-        OrderItemEntity item = orderItemRepository.findById(orderItemId)
+        Optional<OrderItemEntity> hotItem = orderItemRepository.findById(orderItemId);
+        if (hotItem.isEmpty() && orderArchiveService.restoreOrderOfItem(orderItemId)) {
+            // Delivered orders past the archive window can still be exchanged; the order comes back to the hot tables
+            hotItem = orderItemRepository.findById(orderItemId);
+        }
+        OrderItemEntity item = hotItem
                 .orElseThrow(() -> new RuntimeException("Order item not found with ID: " + orderItemId));
 
         OrderEntity order = item.getOrder();
@@ -603,14 +1118,17 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("Exchanges are only available for MB products");
         }
 
-        if ("CANCELLED".equals(order.getOrderStatus())) {
-            throw new RuntimeException("Cannot request exchange for cancelled order");
+        // Checked up front for a clear message; the lifecycle transition below enforces the same rule
+        String status = order.getOrderStatus() != null ? order.getOrderStatus().trim().toUpperCase(Locale.ROOT) : "";
+        if (OrderStatus.CANCELLED.name().equals(status)) {
+            throw new IllegalStateException("Cannot request exchange for cancelled order");
         }
-
-        // Optional: Prevent exchange if already in some exchange-related status
-        if ("EXCHANGE_REQUESTED".equals(order.getOrderStatus()) ||
-                "EXCHANGE_APPROVED".equals(order.getOrderStatus())) {
-            throw new RuntimeException("Order is already in exchange process");
+        if (OrderStatus.EXCHANGE_REQUESTED.name().equals(status) || OrderStatus.EXCHANGE_APPROVED.name().equals(status)) {
+            throw new IllegalStateException("Order is already in exchange process");
+        }
+        if (OrderStatus.sourcesOf(OrderStatus.EXCHANGE_REQUESTED).stream().noneMatch(s -> s.name().equals(status))) {
+            throw new IllegalStateException("Exchanges can only be requested for delivered orders; order " +
+                    order.getOrderId() + " is " + (status.isEmpty() ? "without a status" : status));
         }
 
         // Check if this specific item already has in-process exchange
@@ -636,16 +1154,17 @@ public class OrderServiceImpl implements OrderService {
         // exchangeStatus defaults to "in-process" via @Embeddable
 
         item.getExchanges().add(newExchange);
+        orderItemRepository.save(item);   // exchange is stored via the ElementCollection
+        orderRepository.flush();
 
-        // Update order status to reflect exchange request
-        order.setOrderStatus("EXCHANGE_REQUESTED");
-
-        // Save both (orderItem saves exchange via ElementCollection, order saves status)
-        orderItemRepository.save(item);   // cascades to order via relationship if needed
-        orderRepository.save(order);      // explicitly save order status change
+        // Status moves through the lifecycle engine (state machine check + history row), mirrored like changeStatus
+        orderLifecycleService.transition(order.getOrderId(), OrderStatus.EXCHANGE_REQUESTED, null,
+                "exchange-request for item " + orderItemId);
+        order.setOrderStatus(OrderStatus.EXCHANGE_REQUESTED.name());
 
         logger.info("Exchange requested successfully for order item ID: {}. Order status updated to EXCHANGE_REQUESTED", orderItemId);
 
-        return getOrderById(order.getOrderId());
+        // Mapped from the managed entities: the JDBC read path would not see the unflushed exchange
+        return mapToResponseDto(order);
     }
 }
\ No newline at end of file
@@ -8,7 +8,7 @@ import com.gn.pharmacy.entity.UserEntity;
 import com.gn.pharmacy.repository.AdminRepository;
 import com.gn.pharmacy.repository.OtpRepository;
 import com.gn.pharmacy.repository.UserRepository;
-import com.gn.pharmacy.service.EmailService;
+import com.gn.pharmacy.service.EmailOutboxService;
 import com.gn.pharmacy.service.OtpService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,16 +25,16 @@ public class OtpServiceImpl implements OtpService {
     private final AdminRepository adminRepository;
     private final OtpRepository otpRepository;
     private final BcryptEncoderConfig passwordEncoder;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
 
     public OtpServiceImpl(UserRepository userRepository, AdminRepository adminRepository,
                           OtpRepository otpRepository, BcryptEncoderConfig passwordEncoder,
-                          EmailService emailService) {
+                          EmailOutboxService emailOutboxService) {
         this.userRepository = userRepository;
         this.adminRepository = adminRepository;
         this.otpRepository = otpRepository;
         this.passwordEncoder = passwordEncoder;
-        this.emailService = emailService;
+        this.emailOutboxService = emailOutboxService;
     }
 
     @Override
@@ -60,17 +60,17 @@ public class OtpServiceImpl implements OtpService {
         String hashedOtp = passwordEncoder.encode(otp);
 
         // Create and save OTP
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(5);
         OtpEntity otpEntity = new OtpEntity(
                 user, admin, hashedOtp, null,
-                LocalDateTime.now().plusMinutes(5), email, "PASSWORD_RESET"
+                expiresAt, email, "PASSWORD_RESET"
         );
 
         otpRepository.save(otpEntity);
 
-        // Send OTP via Email
+        // Queued in this transaction; the outbox sends it after commit, so no SMTP round trip holds the transaction
         String subject = "Your OTP for Password Reset";
-        String message = "Your OTP is: " + otp + ". Valid for 5 minutes.";
-        emailService.sendOtpEmail(email, subject, message);
+        emailOutboxService.enqueueOtpEmail(email, subject, otp, expiresAt);
     }
 
     @Override
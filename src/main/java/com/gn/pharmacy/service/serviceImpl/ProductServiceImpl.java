@@ -8,6 +8,7 @@ import com.gn.pharmacy.dto.response.ProductResponseDto;
 import com.gn.pharmacy.entity.BatchVariant;
 import com.gn.pharmacy.entity.InventoryEntity;
 import com.gn.pharmacy.entity.ProductEntity;
+import com.gn.pharmacy.event.CatalogChangedEvent;
 import com.gn.pharmacy.dto.response.BatchInfoDTO;
 import com.gn.pharmacy.repository.InventoryRepository;
 import com.gn.pharmacy.repository.MbPRepository;
@@ -23,6 +24,7 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -60,6 +62,9 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public ProductServiceImpl(ProductRepository productRepository) {
         this.productRepository = productRepository;
     }
@@ -149,6 +154,7 @@ public class ProductServiceImpl implements ProductService {
         entity.setCreatedAt(LocalDateTime.now());
 
         ProductEntity savedEntity = productRepository.save(entity);
+        eventPublisher.publishEvent(CatalogChangedEvent.ofProduct(savedEntity.getProductId()));
 
         // ============== Automatically add initial inventory batch with variants =============
         BatchInfoDTO batchInfo = new BatchInfoDTO();
@@ -335,6 +341,7 @@ public class ProductServiceImpl implements ProductService {
         }
 
         ProductEntity updatedEntity = productRepository.save(entity);
+        eventPublisher.publishEvent(CatalogChangedEvent.ofProduct(id));
         logger.debug("Product updated successfully with ID: {}", id);
         return mapToResponseDto(updatedEntity);
     }
@@ -420,6 +427,7 @@ public class ProductServiceImpl implements ProductService {
         }
 
         ProductEntity updatedEntity = productRepository.save(entity);
+        eventPublisher.publishEvent(CatalogChangedEvent.ofProduct(id));
         logger.debug("Product patched successfully with ID: {}", id);
 
         return mapToResponseDto(updatedEntity);
@@ -488,6 +496,7 @@ public class ProductServiceImpl implements ProductService {
             throw new IllegalArgumentException("Product not found with ID: " + productId);
         }
         productRepository.deleteById(productId);
+        eventPublisher.publishEvent(CatalogChangedEvent.ofProduct(productId));
         logger.debug("Product deleted successfully with ID: {}", productId);
     }
 
@@ -0,0 +1,279 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.reports.FinancialPeriodDto;
+import com.gn.pharmacy.dto.reports.FinancialSummaryDto;
+import com.gn.pharmacy.service.OrderArchiveService;
+import com.gn.pharmacy.service.ReportExportService;
+import com.gn.pharmacy.service.ReportsService;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report workbooks for accounting. SXSSF keeps only the last row-window rows in memory and flushes
+ * older ones to a compressed temp file. Rows come from the same MySQL streaming cursor the order export
+ * uses and are written cell by cell from the ResultSet, so heap use does not depend on the range.
+ * A sheet that reaches Excel's row limit continues on a new sheet.
+ */
+@Service
+public class ReportExportServiceImpl implements ReportExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportExportServiceImpl.class);
+
+    private static final String INVENTORY_SELECT =
+            "SELECT i.inventory_id, " +
+                    "CASE WHEN p.product_id IS NOT NULL THEN p.product_name WHEN m.id IS NOT NULL THEN m.title ELSE 'Unknown' END AS product_name, " +
+                    "CASE WHEN p.product_id IS NOT NULL THEN p.product_category WHEN m.id IS NOT NULL THEN m.category ELSE 'Unknown' END AS category, " +
+                    "CASE WHEN p.product_id IS NOT NULL THEN p.product_sub_category WHEN m.id IS NOT NULL THEN m.sub_category ELSE 'Unknown' END AS sub_category, " +
+                    "COALESCE(v.total_stock, 0) AS total_stock, " +
+                    // Same valuation as the inventory report: first product price, 100 when there is none
+                    "COALESCE(v.total_stock, 0) * COALESCE((SELECT pp.product_price FROM products_prices pp " +
+                    "WHERE pp.product_id = p.product_id LIMIT 1), 100) AS stock_value, " +
+                    "v.earliest_expiry, i.batch_no, i.stock_status, i.last_updated " +
+                    "FROM product_inventory i " +
+                    "LEFT JOIN products p ON p.product_id = i.product_id " +
+                    "LEFT JOIN mb_products m ON m.id = i.mbp_id " +
+                    "LEFT JOIN (SELECT inventory_id, SUM(quantity) AS total_stock, MIN(NULLIF(exp_date, '')) AS earliest_expiry " +
+                    "FROM inventory_variants GROUP BY inventory_id) v ON v.inventory_id = i.inventory_id ";
+
+    // Matches the low-stock count in the inventory report
+    private static final int LOW_STOCK_UNITS = 10;
+
+    private static final String[] SALES_HEADERS = {"Order Item ID", "Placed At", "Product", "Category", "Subcategory",
+            "Quantity", "Subtotal", "Order Date", "Status", "Customer First Name", "Customer Last Name"};
+
+    private static final String[] INVENTORY_HEADERS = {"Inventory ID", "Product", "Category", "Subcategory",
+            "Total Stock", "Stock Value", "Earliest Expiry", "Batch No", "Stock Status", "Last Updated"};
+
+    private static final String[] CUSTOMER_HEADERS = {"Customer Key", "User ID", "Customer", "Total Orders",
+            "Total Revenue", "Last Order", "Top Category"};
+
+    private static final String[] FINANCIAL_HEADERS = {"Period", "Revenue", "Expenses", "Profit"};
+
+    private final ReportsService reportsService;
+    private final OrderArchiveService orderArchiveService;
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows one by one instead of buffering the result set
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    @Value("${reports.export.row-window:100}")
+    private int rowWindow;
+
+    public ReportExportServiceImpl(DataSource dataSource, ReportsService reportsService,
+                                   OrderArchiveService orderArchiveService) {
+        this.reportsService = reportsService;
+        this.orderArchiveService = orderArchiveService;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Override
+    public void exportSales(String from, String to, String category, String subcategory, OutputStream out) {
+        LocalDateTime[] range = ReportsServiceImpl.placedAtRange(from, to);
+        String categoryFilter = category != null && !category.isEmpty() ? category : null;
+        String subcategoryFilter = subcategory != null && !subcategory.isEmpty() ? subcategory : null;
+
+        List<String[]> tables = new ArrayList<>();
+        tables.add(new String[]{"orders_table", "order_items"});
+        if (orderArchiveService.rangeIncludesArchive(range != null ? range[0] : null)) {
+            tables.add(new String[]{OrderArchiveService.ORDERS_ARCHIVE, OrderArchiveService.ORDER_ITEMS_ARCHIVE});
+        }
+
+        write("Sales", SALES_HEADERS, out, sheets -> {
+            // Hot tables first, then the archive: newest lines first overall, as in the paged report
+            for (String[] pair : tables) {
+                List<Object> params = new ArrayList<>();
+                String sql = ReportsServiceImpl.SALES_LINE_SELECT + ReportsServiceImpl.salesLineFrom(pair[0], pair[1]) +
+                        ReportsServiceImpl.salesLineWhere(range, categoryFilter, subcategoryFilter, params) +
+                        "ORDER BY o.placed_at DESC, oi.order_item_id DESC";
+                streamingJdbcTemplate.query(sql, rs -> { sheets.writeRow(rs); }, params.toArray());
+            }
+        });
+    }
+
+    @Override
+    public void exportInventory(String category, String subcategory, boolean lowStockOnly, OutputStream out) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder where = new StringBuilder("WHERE 1 = 1 ");
+        if (category != null && !category.isEmpty()) {
+            where.append("AND (p.product_category = ? OR m.category = ?) ");
+            params.add(category);
+            params.add(category);
+        }
+        if (subcategory != null && !subcategory.isEmpty()) {
+            where.append("AND (p.product_sub_category = ? OR m.sub_category = ?) ");
+            params.add(subcategory);
+            params.add(subcategory);
+        }
+        if (lowStockOnly) {
+            where.append("AND COALESCE(v.total_stock, 0) < ? ");
+            params.add(LOW_STOCK_UNITS);
+        }
+        String sql = INVENTORY_SELECT + where + "ORDER BY i.last_updated DESC, i.inventory_id DESC";
+
+        write("Inventory", INVENTORY_HEADERS, out,
+                sheets -> streamingJdbcTemplate.query(sql, rs -> { sheets.writeRow(rs); }, params.toArray()));
+    }
+
+    @Override
+    public void exportCustomers(String from, String to, OutputStream out) {
+        LocalDateTime[] range = ReportsServiceImpl.placedAtRange(from, to);
+        List<Object> params = new ArrayList<>();
+        String sql = ReportsServiceImpl.customerAggregateSql(
+                orderArchiveService.rangeIncludesArchive(range != null ? range[0] : null), range, params) +
+                "ORDER BY total_revenue DESC, ord.customer_key";
+
+        write("Customers", CUSTOMER_HEADERS, out,
+                sheets -> streamingJdbcTemplate.query(sql, rs -> { sheets.writeRow(rs); }, params.toArray()));
+    }
+
+    // One row per month from the daily rollups - small enough to take from the report itself
+    @Override
+    public void exportFinancial(String from, String to, String groupBy, OutputStream out) {
+        FinancialSummaryDto summary = reportsService.getFinancialSummary(from, to, groupBy);
+        write("Financial", FINANCIAL_HEADERS, out, sheets -> {
+            for (FinancialPeriodDto period : summary.breakdown()) {
+                sheets.writeValues(period.period(), period.revenue(), period.expenses(), period.profit());
+            }
+            sheets.writeValues("Total", summary.totalRevenue(), summary.totalExpenses(), summary.netProfit());
+        });
+    }
+
+    private interface SheetFiller {
+        void fill(SheetWriter sheets) throws SQLException;
+    }
+
+    private void write(String sheetName, String[] headers, OutputStream out, SheetFiller filler) {
+        long started = System.currentTimeMillis();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            SheetWriter sheets = new SheetWriter(workbook, sheetName, headers);
+            filler.fill(sheets);
+            workbook.write(out);
+            out.flush();
+            logger.info("Exported {} {} rows as xlsx in {} ms", sheets.rows, sheetName, System.currentTimeMillis() - started);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Report export failed", e);
+        } finally {
+            workbook.dispose();      // deletes the temp files backing flushed rows
+            try {
+                workbook.close();
+            } catch (IOException e) {
+                logger.warn("Could not close export workbook: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Appends rows to the current sheet, starting "Name (2)", "Name (3)"... when Excel's row limit is hit.
+     * Numbers and dates keep their types so the sheet can be summed and filtered without conversion.
+     */
+    private static final class SheetWriter {
+
+        private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+        private final SXSSFWorkbook workbook;
+        private final String sheetName;
+        private final String[] headers;
+        private final CellStyle headerStyle;
+        private final CellStyle dateTimeStyle;
+        private SXSSFSheet sheet;
+        private int sheetCount;
+        private int nextRow;
+        long rows;
+
+        SheetWriter(SXSSFWorkbook workbook, String sheetName, String[] headers) {
+            this.workbook = workbook;
+            this.sheetName = sheetName;
+            this.headers = headers;
+
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            this.headerStyle = workbook.createCellStyle();
+            this.headerStyle.setFont(bold);
+            this.dateTimeStyle = workbook.createCellStyle();
+            this.dateTimeStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+            newSheet();
+        }
+
+        void writeRow(ResultSet rs) throws SQLException {
+            Row row = nextRow();
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                Cell cell = row.createCell(i - 1);
+                switch (meta.getColumnType(i)) {
+                    case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> {
+                        long value = rs.getLong(i);
+                        if (!rs.wasNull()) cell.setCellValue(value);
+                    }
+                    case Types.DOUBLE, Types.FLOAT, Types.REAL, Types.DECIMAL, Types.NUMERIC -> {
+                        BigDecimal value = rs.getBigDecimal(i);
+                        if (value != null) cell.setCellValue(value.doubleValue());
+                    }
+                    case Types.TIMESTAMP -> {
+                        Timestamp value = rs.getTimestamp(i);
+                        if (value != null) {
+                            cell.setCellValue(value.toLocalDateTime());
+                            cell.setCellStyle(dateTimeStyle);
+                        }
+                    }
+                    default -> {
+                        String value = rs.getString(i);
+                        if (value != null) cell.setCellValue(value);
+                    }
+                }
+            }
+        }
+
+        void writeValues(String label, BigDecimal... values) {
+            Row row = nextRow();
+            row.createCell(0).setCellValue(label);
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) row.createCell(i + 1).setCellValue(values[i].doubleValue());
+            }
+        }
+
+        private Row nextRow() {
+            if (nextRow >= MAX_ROWS) {
+                newSheet();
+            }
+            rows++;
+            return sheet.createRow(nextRow++);
+        }
+
+        private void newSheet() {
+            sheetCount++;
+            sheet = workbook.createSheet(sheetCount == 1 ? sheetName : sheetName + " (" + sheetCount + ")");
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+            sheet.createFreezePane(0, 1);
+            nextRow = 1;
+        }
+    }
+}
@@ -3,19 +3,26 @@ package com.gn.pharmacy.service.serviceImpl;
 import com.gn.pharmacy.dto.reports.*;
 import com.gn.pharmacy.entity.*;
 import com.gn.pharmacy.repository.*;
+import com.gn.pharmacy.service.CategoryCatalogService;
+import com.gn.pharmacy.service.OrderArchiveService;
 import com.gn.pharmacy.service.ReportsService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
-import java.time.ZoneId;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -27,124 +34,291 @@ public class ReportsServiceImpl implements ReportsService {
     private final InventoryRepository inventoryRepository;
     private final OrderItemRepository orderItemRepository;
     private final OrderRepository orderRepository;
+    private final SalesDailyRollupRepository salesRollupRepository;
+    private final SalesDailyOrderCountRepository orderCountRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryCatalogService categoryCatalogService;
 
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
 
     public ReportsServiceImpl(ProductRepository productRepository, MbPRepository mbPRepository,
                               InventoryRepository inventoryRepository, OrderItemRepository orderItemRepository,
-                              OrderRepository orderRepository) {
+                              OrderRepository orderRepository, SalesDailyRollupRepository salesRollupRepository,
+                              SalesDailyOrderCountRepository orderCountRepository,
+                              OrderArchiveService orderArchiveService, JdbcTemplate jdbcTemplate,
+                              CategoryCatalogService categoryCatalogService) {
         this.productRepository = productRepository;
         this.mbPRepository = mbPRepository;
         this.inventoryRepository = inventoryRepository;
         this.orderItemRepository = orderItemRepository;
         this.orderRepository = orderRepository;
+        this.salesRollupRepository = salesRollupRepository;
+        this.orderCountRepository = orderCountRepository;
+        this.orderArchiveService = orderArchiveService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.categoryCatalogService = categoryCatalogService;
     }
 
     @Override
     public List<CategoryDto> getAllCategories() {
-        Set<String> allCategories = new HashSet<>();
-        allCategories.addAll(productRepository.findDistinctCategories());
-        allCategories.addAll(mbPRepository.findDistinctCategories());
-
+        // Categories / subcategories that still have at least one non-deleted item
         List<CategoryDto> result = new ArrayList<>();
-        for (String cat : allCategories) {
-            Set<String> subs = new HashSet<>();
-            subs.addAll(productRepository.findDistinctSubcategoriesByCategory(cat));
-            subs.addAll(mbPRepository.findDistinctSubcategoriesByCategory(cat));
-            result.add(new CategoryDto(cat, new ArrayList<>(subs)));
+        for (CategoryCatalogDto.CategoryEntry entry : categoryCatalogService.getCatalog().categories()) {
+            if (entry.counts().total() == entry.counts().deleted()) continue;
+            List<String> subs = entry.subcategories().stream()
+                    .filter(sub -> sub.total() > sub.deleted())
+                    .map(CategoryCountsDto::name)
+                    .toList();
+            result.add(new CategoryDto(entry.counts().name(), subs));
         }
         return result;
     }
 
-    @Override
-    public PagedSalesReportDto getSalesReport(String fromStr, String toStr, String category, String subcategory, int page, int limit) {
-        Pageable pageable = PageRequest.of(page - 1, limit, Sort.by("order.orderDate").descending());
+    // Names resolved the way the entity mapping did: product first, then MbP, else "Unknown". Categories are
+    // the ones written on the line at order time (what the rollups are keyed by), falling back the same way.
+    // Shared with ReportExportServiceImpl so the .xlsx export matches the paged report line for line.
+    static final String SALES_LINE_SELECT =
+            "SELECT oi.order_item_id, o.placed_at, " +
+                    "CASE WHEN p.product_id IS NOT NULL THEN p.product_name WHEN m.id IS NOT NULL THEN m.title ELSE 'Unknown' END AS product_name, " +
+                    "COALESCE(oi.item_category, CASE WHEN p.product_id IS NOT NULL THEN p.product_category WHEN m.id IS NOT NULL THEN m.category ELSE 'Unknown' END) AS category, " +
+                    "COALESCE(oi.item_sub_category, CASE WHEN p.product_id IS NOT NULL THEN p.product_sub_category WHEN m.id IS NOT NULL THEN m.sub_category ELSE 'Unknown' END) AS sub_category, " +
+                    "oi.quantity, oi.subtotal, o.order_date, o.order_status, o.customer_first_name, o.customer_last_name ";
+
+    static String salesLineFrom(String ordersTable, String itemsTable) {
+        return "FROM " + itemsTable + " oi JOIN " + ordersTable + " o ON o.order_id = oi.order_id " +
+                "LEFT JOIN products p ON p.product_id = oi.product_id " +
+                "LEFT JOIN mb_products m ON m.id = oi.mbp_id ";
+    }
 
-        Specification<OrderItemEntity> spec = (root, query, cb) -> {
-            List<jakarta.persistence.criteria.Predicate> predicates = new ArrayList<>();
+    static String salesLineWhere(LocalDateTime[] range, String category, String subcategory, List<Object> params) {
+        // Cancelled orders are left out, as in the rollups the report totals come from
+        StringBuilder where = new StringBuilder("WHERE (o.order_status IS NULL OR o.order_status <> 'CANCELLED') ");
+        if (range != null) {
+            where.append("AND o.placed_at >= ? AND o.placed_at < ? ");
+            params.add(Timestamp.valueOf(range[0]));
+            params.add(Timestamp.valueOf(range[1]));
+        }
+        if (category != null) {
+            where.append("AND COALESCE(oi.item_category, p.product_category, m.category) = ? ");
+            params.add(category);
+        }
+        if (subcategory != null) {
+            where.append("AND COALESCE(oi.item_sub_category, p.product_sub_category, m.sub_category) = ? ");
+            params.add(subcategory);
+        }
+        return where.toString();
+    }
 
-            if (fromStr != null && !fromStr.isEmpty() && toStr != null && !toStr.isEmpty()) {
-                try {
-                    Date from = dateFormat.parse(fromStr);
-                    Date to = dateFormat.parse(toStr);
-                    predicates.add(cb.between(root.get("order").get("orderDate"), from, to));
-                } catch (ParseException ignored) {}
-            }
+    // Registered customers are keyed by user_id, guest checkouts by the name on the order
+    private static final String CUSTOMER_KEY =
+            "COALESCE(CAST(o.user_id AS CHAR), CONCAT('guest:', TRIM(CONCAT(COALESCE(o.customer_first_name, ''), ' ', " +
+                    "COALESCE(o.customer_last_name, '')))))";
 
-            if (category != null && !category.isEmpty()) {
-                predicates.add(cb.or(
-                        cb.equal(root.get("product").get("productCategory"), category),
-                        cb.equal(root.get("mbP").get("category"), category)
-                ));
-            }
+    private static final String CATEGORY_OF_LINE =
+            "COALESCE(oi.item_category, CASE WHEN p.product_id IS NOT NULL THEN p.product_category WHEN m.id IS NOT NULL THEN m.category ELSE 'Unknown' END)";
 
-            if (subcategory != null && !subcategory.isEmpty()) {
-                predicates.add(cb.or(
-                        cb.equal(root.get("product").get("productSubCategory"), subcategory),
-                        cb.equal(root.get("mbP").get("subCategory"), subcategory)
-                ));
-            }
+    private static List<String[]> orderTables(boolean includeArchive) {
+        List<String[]> tables = new ArrayList<>();
+        tables.add(new String[]{"orders_table", "order_items"});
+        if (includeArchive) {
+            tables.add(new String[]{OrderArchiveService.ORDERS_ARCHIVE, OrderArchiveService.ORDER_ITEMS_ARCHIVE});
+        }
+        return tables;
+    }
 
-            return cb.and(predicates.toArray(new jakarta.persistence.criteria.Predicate[0]));
-        };
+    private static void addRange(LocalDateTime[] range, List<Object> params) {
+        if (range != null) {
+            params.add(Timestamp.valueOf(range[0]));
+            params.add(Timestamp.valueOf(range[1]));
+        }
+    }
 
-        Page<OrderItemEntity> pageResult = orderItemRepository.findAll(spec, pageable);
+    // One row per order in range: order_id, customer_key, user_id, placed_at, customer_name, revenue (item subtotals)
+    private static String customerOrdersSql(boolean includeArchive, LocalDateTime[] range, List<Object> params) {
+        String rangeWhere = range != null ? "WHERE o.placed_at >= ? AND o.placed_at < ? " : "";
+        List<String> branches = new ArrayList<>();
+        for (String[] pair : orderTables(includeArchive)) {
+            branches.add("SELECT o.order_id, " + CUSTOMER_KEY + " AS customer_key, o.user_id, o.placed_at, " +
+                    "TRIM(CONCAT(COALESCE(o.customer_first_name, ''), ' ', COALESCE(o.customer_last_name, ''))) AS customer_name, " +
+                    "(SELECT COALESCE(SUM(oi.subtotal), 0) FROM " + pair[1] + " oi WHERE oi.order_id = o.order_id) AS revenue " +
+                    "FROM " + pair[0] + " o " + rangeWhere);
+            addRange(range, params);
+        }
+        return String.join(" UNION ALL ", branches);
+    }
 
-        List<SalesReportItemDto> items = pageResult.getContent().stream().map(item -> {
-            String prodName = item.getProduct() != null ? item.getProduct().getProductName() :
-                    (item.getMbP() != null ? item.getMbP().getTitle() : "Unknown");
-            String cat = item.getProduct() != null ? item.getProduct().getProductCategory() :
-                    (item.getMbP() != null ? item.getMbP().getCategory() : "Unknown");
-            String sub = item.getProduct() != null ? item.getProduct().getProductSubCategory() :
-                    (item.getMbP() != null ? item.getMbP().getSubCategory() : "Unknown");
-            String custName = (item.getOrder().getCustomerFirstName() != null ? item.getOrder().getCustomerFirstName() : "") +
-                    " " + (item.getOrder().getCustomerLastName() != null ? item.getOrder().getCustomerLastName() : "");
+    /**
+     * One row per customer over the placed_at range: customer_key, user_id, customer_name (from the latest
+     * order), total_orders, total_revenue (sum of item subtotals), last_order_at, top_category (most item
+     * lines). No ORDER BY / LIMIT - callers add their own. Archive tables are included when asked.
+     */
+    static String customerAggregateSql(boolean includeArchive, LocalDateTime[] range, List<Object> params) {
+        String rangeWhere = range != null ? "WHERE o.placed_at >= ? AND o.placed_at < ? " : "";
+        String orders = customerOrdersSql(includeArchive, range, params);
+
+        List<String> categoryBranches = new ArrayList<>();
+        for (String[] pair : orderTables(includeArchive)) {
+            categoryBranches.add("SELECT " + CUSTOMER_KEY + " AS customer_key, " + CATEGORY_OF_LINE + " AS category, COUNT(*) AS item_lines " +
+                    "FROM " + pair[1] + " oi JOIN " + pair[0] + " o ON o.order_id = oi.order_id " +
+                    "LEFT JOIN products p ON p.product_id = oi.product_id " +
+                    "LEFT JOIN mb_products m ON m.id = oi.mbp_id " + rangeWhere +
+                    "GROUP BY customer_key, category");
+            addRange(range, params);
+        }
 
-            return new SalesReportItemDto(
-                    item.getOrderItemId(),
-                    prodName,
-                    cat,
-                    sub,
-                    item.getQuantity(),
-                    item.getSubtotal() != null ? item.getSubtotal() : 0.0,
-                    item.getOrder().getOrderDate(),
-                    item.getOrder().getOrderStatus(),
-                    custName.trim().isEmpty() ? "Anonymous" : custName.trim()
-            );
-        }).collect(Collectors.toList());
+        return "WITH ord AS (" + orders + "), " +
+                "cat AS (" + String.join(" UNION ALL ", categoryBranches) + "), " +
+                "top_cat AS (SELECT customer_key, category, " +
+                "ROW_NUMBER() OVER (PARTITION BY customer_key ORDER BY SUM(item_lines) DESC, category) AS rn " +
+                "FROM cat GROUP BY customer_key, category) " +
+                "SELECT ord.customer_key, MAX(ord.user_id) AS user_id, " + LATEST_NAME + " AS customer_name, " +
+                "COUNT(*) AS total_orders, SUM(ord.revenue) AS total_revenue, MAX(ord.placed_at) AS last_order_at, " +
+                "MAX(tc.category) AS top_category " +
+                "FROM ord LEFT JOIN top_cat tc ON tc.customer_key = ord.customer_key AND tc.rn = 1 " +
+                "GROUP BY ord.customer_key ";
+    }
+
+    private static final String LATEST_NAME =
+            "SUBSTRING_INDEX(GROUP_CONCAT(ord.customer_name ORDER BY ord.placed_at DESC SEPARATOR '\\n'), '\\n', 1)";
 
-        List<OrderItemEntity> allMatching = orderItemRepository.findAll(spec);
+    /**
+     * Position after the last line of a sales report page, in (placed_at DESC, order_item_id DESC) order.
+     * Encoded as "placedAt_orderItemId"; a line without placed_at encodes as "_orderItemId".
+     */
+    record SalesCursor(LocalDateTime placedAt, long orderItemId) {
 
-        BigDecimal totalRevenue = allMatching.stream()
-                .map(item -> item.getSubtotal() != null ? new BigDecimal(item.getSubtotal().toString()) : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        String encode() {
+            return (placedAt != null ? placedAt.toString() : "") + "_" + orderItemId;
+        }
+
+        // Null when missing or malformed, which means "page by number" as before
+        static SalesCursor parse(String cursor) {
+            if (cursor == null || cursor.isBlank()) return null;
+            int sep = cursor.lastIndexOf('_');
+            if (sep < 0) return null;
+            try {
+                String placed = cursor.substring(0, sep).trim();
+                return new SalesCursor(placed.isEmpty() ? null : LocalDateTime.parse(placed),
+                        Long.parseLong(cursor.substring(sep + 1).trim()));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                return null;
+            }
+        }
+    }
 
-        String topProduct = allMatching.stream()
-                .collect(Collectors.groupingBy(
-                        item -> item.getProduct() != null ? item.getProduct().getProductName() :
-                                (item.getMbP() != null ? item.getMbP().getTitle() : "Unknown"),
-                        Collectors.summingInt(OrderItemEntity::getQuantity)))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
+    // Keyset condition for the lines strictly after the cursor. MySQL sorts NULL placed_at last in DESC order,
+    // so those lines come after every dated one and are ordered among themselves by order_item_id alone.
+    static String salesKeyset(SalesCursor after, List<Object> params) {
+        if (after == null) return "";
+        if (after.placedAt() == null) {
+            params.add(after.orderItemId());
+            return "AND o.placed_at IS NULL AND oi.order_item_id < ? ";
+        }
+        Timestamp placedAt = Timestamp.valueOf(after.placedAt());
+        params.add(placedAt);
+        params.add(placedAt);
+        params.add(after.orderItemId());
+        return "AND (o.placed_at < ? OR (o.placed_at = ? AND oi.order_item_id < ?) OR o.placed_at IS NULL) ";
+    }
+
+    /**
+     * One page of sales lines over the given (orders, items) table pairs, newest first. With a cursor the page
+     * starts right after it and every branch reads at most limit rows from the (placed_at, order_item_id) index
+     * order, however deep the page; without one it falls back to OFFSET, where each branch is cut to
+     * offset + limit before the merge.
+     */
+    static String salesPageSql(List<String[]> tables, LocalDateTime[] range, String category, String subcategory,
+                               SalesCursor after, long offset, int limit, List<Object> params) {
+        long branchLimit = after != null ? limit : offset + limit;
+        List<String> branches = new ArrayList<>();
+        for (String[] pair : tables) {
+            String where = salesLineWhere(range, category, subcategory, params) + salesKeyset(after, params);
+            branches.add("(" + SALES_LINE_SELECT + salesLineFrom(pair[0], pair[1]) + where +
+                    "ORDER BY o.placed_at DESC, oi.order_item_id DESC LIMIT ?)");
+            params.add(branchLimit);
+        }
+        params.add(limit);
+        params.add(after != null ? 0L : offset);
+        return String.join(" UNION ALL ", branches) + " ORDER BY placed_at DESC, order_item_id DESC LIMIT ? OFFSET ?";
+    }
+
+    @Override
+    public PagedSalesReportDto getSalesReport(String fromStr, String toStr, String category, String subcategory,
+                                              int page, int limit, String cursor) {
+        LocalDateTime[] range = placedAtRange(fromStr, toStr);
+        String categoryFilter = category != null && !category.isEmpty() ? category : null;
+        String subcategoryFilter = subcategory != null && !subcategory.isEmpty() ? subcategory : null;
+        SalesCursor after = SalesCursor.parse(cursor);
+
+        // The page is read as flat rows in one query (plus one COUNT); no entities or lazy loads per line
+        List<String[]> tables = new ArrayList<>();
+        tables.add(new String[]{"orders_table", "order_items"});
+        if (orderArchiveService.rangeIncludesArchive(range != null ? range[0] : null)) {
+            tables.add(new String[]{OrderArchiveService.ORDERS_ARCHIVE, OrderArchiveService.ORDER_ITEMS_ARCHIVE});
+        }
+        long offset = (long) (page - 1) * limit;
+
+        long totalItems = 0;
+        for (String[] pair : tables) {
+            List<Object> params = new ArrayList<>();
+            String where = salesLineWhere(range, categoryFilter, subcategoryFilter, params);
+            totalItems += jdbcTemplate.queryForObject("SELECT COUNT(*) " + salesLineFrom(pair[0], pair[1]) + where,
+                    Long.class, params.toArray());
+        }
+
+        List<Object> pageParams = new ArrayList<>();
+        String pageSql = salesPageSql(tables, range, categoryFilter, subcategoryFilter, after, offset, limit, pageParams);
+        SalesCursor[] last = new SalesCursor[1];
+        List<SalesReportItemDto> items = jdbcTemplate.query(pageSql,
+                (rs, rowNum) -> {
+                    Timestamp placedAt = rs.getTimestamp("placed_at");
+                    last[0] = new SalesCursor(placedAt != null ? placedAt.toLocalDateTime() : null, rs.getLong("order_item_id"));
+                    String firstName = rs.getString("customer_first_name");
+                    String lastName = rs.getString("customer_last_name");
+                    String custName = ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+                    Double subtotal = rs.getObject("subtotal", Double.class);
+                    return new SalesReportItemDto(
+                            rs.getLong("order_item_id"),
+                            rs.getString("product_name"),
+                            rs.getString("category"),
+                            rs.getString("sub_category"),
+                            rs.getInt("quantity"),
+                            subtotal != null ? subtotal : 0.0,
+                            rs.getString("order_date"),
+                            rs.getString("order_status"),
+                            custName.isEmpty() ? "Anonymous" : custName
+                    );
+                }, pageParams.toArray());
+        String nextCursor = items.size() == limit && last[0] != null ? last[0].encode() : null;
+
+        // Totals come from the daily rollups: cost grows with days x items in range, not with orders
+        LocalDate[] days = rollupDays(range);
+
+        BigDecimal totalRevenue = salesRollupRepository.sumRevenue(days[0], days[1], categoryFilter, subcategoryFilter);
+
+        String topProduct = salesRollupRepository.findTopItemsByUnits(days[0], days[1], categoryFilter, subcategoryFilter,
+                        PageRequest.of(0, 1)).stream()
+                .map(row -> (String) row[0])
+                .findFirst()
                 .orElse("N/A");
 
-        long totalOrders = allMatching.stream()
-                .map(OrderItemEntity::getOrder)
-                .distinct()
-                .count();
+        long totalOrders = orderCountRepository.sumOrders(days[0], days[1],
+                categoryFilter != null ? categoryFilter : SalesDailyOrderCountEntity.ANY,
+                subcategoryFilter != null ? subcategoryFilter : SalesDailyOrderCountEntity.ANY);
 
         BigDecimal totalProfit = totalRevenue.multiply(new BigDecimal("0.25"));
 
         return new PagedSalesReportDto(
                 items,
-                pageResult.getTotalElements(),
+                totalItems,
                 page,
                 limit,
                 totalRevenue,
                 topProduct,
                 totalOrders,
-                totalProfit
+                totalProfit,
+                nextCursor
         );
     }
 
@@ -253,88 +427,52 @@ public class ReportsServiceImpl implements ReportsService {
 
     @Override
     public PagedCustomerReportDto getCustomerReport(String fromStr, String toStr, String category, String subcategory, int page, int limit) {
-        Pageable pageable = PageRequest.of(page - 1, limit, Sort.by("orderDate").descending());
-
-        Specification<OrderEntity> spec = (root, query, cb) -> cb.conjunction();
-
-        if (fromStr != null && !fromStr.isEmpty() && toStr != null && !toStr.isEmpty()) {
-            try {
-                Date from = dateFormat.parse(fromStr);
-                Date to = dateFormat.parse(toStr);
-                spec = spec.and((root, q, c) -> c.between(root.get("orderDate"), from, to));
-            } catch (ParseException ignored) {}
-        }
-
-        Page<OrderEntity> ordersPage = orderRepository.findAll(spec, pageable);
-
-        Map<String, List<OrderEntity>> customerOrders = ordersPage.getContent().stream()
-                .collect(Collectors.groupingBy(
-                        o -> (o.getCustomerFirstName() != null ? o.getCustomerFirstName() : "") + " " +
-                                (o.getCustomerLastName() != null ? o.getCustomerLastName() : "")
-                ));
-
-        List<CustomerReportItemDto> items = new ArrayList<>();
-        for (Map.Entry<String, List<OrderEntity>> entry : customerOrders.entrySet()) {
-            String custName = entry.getKey().trim().isEmpty() ? "Anonymous" : entry.getKey().trim();
-            List<OrderEntity> orders = entry.getValue();
-
-            long totalOrdersCount = orders.size();
-
-            BigDecimal totalRevenue = BigDecimal.ZERO;
-            for (OrderEntity o : orders) {
-                for (OrderItemEntity i : o.getOrderItems()) {
-                    if (i.getSubtotal() != null) {
-                        totalRevenue = totalRevenue.add(new BigDecimal(i.getSubtotal().toString()));
-                    }
-                }
-            }
-
-            Date lastOrderDate = orders.stream()
-                    .map(o -> {
-                        try {
-                            return dateFormat.parse(o.getOrderDate());
-                        } catch (ParseException e) {
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .max(Comparator.naturalOrder())
-                    .orElse(null);
-
-            String topCategory = orders.stream()
-                    .flatMap(o -> o.getOrderItems().stream())
-                    .map(i -> i.getProduct() != null ? i.getProduct().getProductCategory() :
-                            (i.getMbP() != null ? i.getMbP().getCategory() : "Unknown"))
-                    .collect(Collectors.groupingBy(c -> c, Collectors.counting()))
-                    .entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .orElse("N/A");
-
-            items.add(new CustomerReportItemDto(
-                    null,
-                    custName,
-                    totalOrdersCount,
-                    totalRevenue,
-                    lastOrderDate,
-                    topCategory
-            ));
-        }
-
-        long totalUnique = customerOrders.size();
-
-        String topCustomer = customerOrders.entrySet().stream()
-                .max(Comparator.comparingLong(e -> e.getValue().size()))
-                .map(Map.Entry::getKey)
+        LocalDateTime[] range = placedAtRange(fromStr, toStr);
+        boolean includeArchive = orderArchiveService.rangeIncludesArchive(range != null ? range[0] : null);
+
+        // Pages over customers (not orders); every figure covers the whole range, aggregated in SQL
+        List<Object> pageParams = new ArrayList<>();
+        String pageSql = customerAggregateSql(includeArchive, range, pageParams) +
+                "ORDER BY last_order_at DESC, ord.customer_key LIMIT ? OFFSET ?";
+        pageParams.add(limit);
+        pageParams.add((long) (page - 1) * limit);
+
+        List<CustomerReportItemDto> items = jdbcTemplate.query(pageSql, (rs, rowNum) -> {
+            String name = rs.getString("customer_name");
+            Timestamp lastOrder = rs.getTimestamp("last_order_at");
+            String topCategory = rs.getString("top_category");
+            return new CustomerReportItemDto(
+                    rs.getObject("user_id", Long.class),
+                    name == null || name.isBlank() ? "Anonymous" : name,
+                    rs.getLong("total_orders"),
+                    rs.getBigDecimal("total_revenue"),
+                    lastOrder != null ? new Date(lastOrder.getTime()) : null,
+                    topCategory != null ? topCategory : "N/A"
+            );
+        }, pageParams.toArray());
+
+        List<Object> totalsParams = new ArrayList<>();
+        Object[] totals = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT customer_key), COUNT(*), COALESCE(SUM(revenue), 0) FROM (" +
+                        customerOrdersSql(includeArchive, range, totalsParams) + ") ord",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3)},
+                totalsParams.toArray());
+        long totalUnique = (Long) totals[0];
+        long totalOrders = (Long) totals[1];
+        BigDecimal totalRevenue = (BigDecimal) totals[2];
+
+        List<Object> topParams = new ArrayList<>();
+        String topCustomer = jdbcTemplate.query(
+                        "SELECT " + LATEST_NAME + " FROM (" + customerOrdersSql(includeArchive, range, topParams) + ") ord " +
+                                "GROUP BY ord.customer_key ORDER BY COUNT(*) DESC, MAX(ord.placed_at) DESC LIMIT 1",
+                        (rs, rowNum) -> rs.getString(1), topParams.toArray())
+                .stream()
+                .findFirst()
+                .map(name -> name == null || name.isBlank() ? "Anonymous" : name)
                 .orElse("N/A");
 
-        // FIXED LINE: use record accessor totalRevenue() instead of getTotalRevenue()
-        BigDecimal totalRevenueAll = items.stream()
-                .map(item -> item.totalRevenue() != null ? item.totalRevenue() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal avgOrderValue = totalUnique > 0 ?
-                totalRevenueAll.divide(BigDecimal.valueOf(totalUnique), 2, BigDecimal.ROUND_HALF_UP) :
+        BigDecimal avgOrderValue = totalOrders > 0 ?
+                totalRevenue.divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP) :
                 BigDecimal.ZERO;
 
         return new PagedCustomerReportDto(
@@ -350,25 +488,16 @@ public class ReportsServiceImpl implements ReportsService {
 
     @Override
     public FinancialSummaryDto getFinancialSummary(String fromStr, String toStr, String groupBy) {
-        Specification<OrderEntity> spec = (root, query, cb) -> cb.conjunction();
-
-        if (fromStr != null && !fromStr.isEmpty() && toStr != null && !toStr.isEmpty()) {
-            try {
-                Date from = dateFormat.parse(fromStr);
-                Date to = dateFormat.parse(toStr);
-                spec = spec.and((root, q, c) -> c.between(root.get("orderDate"), from, to));
-            } catch (ParseException ignored) {}
-        }
-
-        List<OrderEntity> allOrders = orderRepository.findAll(spec);
+        LocalDate[] days = rollupDays(placedAtRange(fromStr, toStr));
 
+        List<FinancialPeriodDto> breakdown = new ArrayList<>();
         BigDecimal totalRevenue = BigDecimal.ZERO;
-        for (OrderEntity o : allOrders) {
-            for (OrderItemEntity i : o.getOrderItems()) {
-                if (i.getSubtotal() != null) {
-                    totalRevenue = totalRevenue.add(new BigDecimal(i.getSubtotal().toString()));
-                }
-            }
+        for (Object[] row : salesRollupRepository.sumRevenueByMonth(days[0], days[1])) {
+            BigDecimal rev = (BigDecimal) row[2];
+            BigDecimal exp = rev.multiply(new BigDecimal("0.75"));
+            String period = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue()).toString();
+            breakdown.add(new FinancialPeriodDto(period, rev, exp, rev.subtract(exp)));
+            totalRevenue = totalRevenue.add(rev);
         }
 
         BigDecimal totalExpenses = totalRevenue.multiply(new BigDecimal("0.75"));
@@ -376,33 +505,28 @@ public class ReportsServiceImpl implements ReportsService {
         double profitMargin = totalRevenue.compareTo(BigDecimal.ZERO) > 0 ?
                 netProfit.divide(totalRevenue, 4, BigDecimal.ROUND_HALF_UP).doubleValue() * 100 : 0.0;
 
-        Map<String, BigDecimal> monthlyRevenue = allOrders.stream()
-                .filter(o -> o.getOrderDate() != null)
-                .collect(Collectors.groupingBy(
-                        o -> {
-                            try {
-                                Date date = dateFormat.parse(o.getOrderDate());
-                                LocalDate localDate = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-                                return localDate.getYear() + "-" + String.format("%02d", localDate.getMonthValue());
-                            } catch (Exception e) {
-                                return "Unknown";
-                            }
-                        },
-                        Collectors.reducing(BigDecimal.ZERO,
-                                o -> o.getOrderItems().stream()
-                                        .map(i -> i.getSubtotal() != null ? new BigDecimal(i.getSubtotal().toString()) : BigDecimal.ZERO)
-                                        .reduce(BigDecimal.ZERO, BigDecimal::add),
-                                BigDecimal::add)
-                ));
+        return new FinancialSummaryDto(totalRevenue, totalExpenses, netProfit, profitMargin, breakdown);
+    }
 
-        List<FinancialPeriodDto> breakdown = monthlyRevenue.entrySet().stream()
-                .map(e -> {
-                    BigDecimal rev = e.getValue();
-                    BigDecimal exp = rev.multiply(new BigDecimal("0.75"));
-                    return new FinancialPeriodDto(e.getKey(), rev, exp, rev.subtract(exp));
-                })
-                .collect(Collectors.toList());
+    // placedAtRange as rollup days; no filter = every day a DATE column can hold
+    private static LocalDate[] rollupDays(LocalDateTime[] range) {
+        if (range == null) {
+            return new LocalDate[]{LocalDate.of(1000, 1, 1), LocalDate.of(9999, 12, 31)};
+        }
+        return new LocalDate[]{range[0].toLocalDate(), range[1].toLocalDate()};
+    }
 
-        return new FinancialSummaryDto(totalRevenue, totalExpenses, netProfit, profitMargin, breakdown);
+    // yyyy-MM-dd bounds, both days inclusive, as a half-open [from, to + 1 day) range on placed_at.
+    // Returns null when either bound is missing or malformed, which means "no date filter" as before.
+    static LocalDateTime[] placedAtRange(String fromStr, String toStr) {
+        if (fromStr == null || fromStr.isEmpty() || toStr == null || toStr.isEmpty()) return null;
+        try {
+            return new LocalDateTime[]{
+                    LocalDate.parse(fromStr.trim()).atStartOfDay(),
+                    LocalDate.parse(toStr.trim()).plusDays(1).atStartOfDay()
+            };
+        } catch (DateTimeParseException e) {
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
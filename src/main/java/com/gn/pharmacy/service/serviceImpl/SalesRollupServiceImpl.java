@@ -0,0 +1,173 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.entity.SalesDailyOrderCountEntity;
+import com.gn.pharmacy.service.OrderArchiveService;
+import com.gn.pharmacy.service.SalesRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Daily sales rollups. Both tables are written with INSERT ... SELECT ... ON DUPLICATE KEY UPDATE
+ * over a derived table of order lines, multiplied by +1 / -1, so an order write costs one grouped
+ * upsert per table no matter how many lines it has. The rebuild uses the same statements over the
+ * hot and archive tables for a date range after clearing it.
+ */
+@Service
+@Lazy(false)
+public class SalesRollupServiceImpl implements SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupServiceImpl.class);
+
+    private static final String NOT_CANCELLED = "(o.order_status IS NULL OR o.order_status <> 'CANCELLED')";
+
+    // Order lines of one order table pair; %s = orders table, items table, extra condition
+    private static final String LINES_SQL =
+            "SELECT o.order_id, o.placed_at, oi.product_id, oi.mbp_id, oi.quantity, oi.subtotal, " +
+                    "oi.item_category, oi.item_sub_category " +
+                    "FROM %s o JOIN %s oi ON oi.order_id = o.order_id " +
+                    "WHERE o.placed_at IS NOT NULL AND " + NOT_CANCELLED + " AND %s";
+
+    // The category written on the line wins, so +1 and -1 for a line always hit the same key; the current
+    // product / MbP category only covers lines written before the snapshot existed
+    private static final String LINE_CATEGORY = "COALESCE(l.item_category, p.product_category, m.category, '')";
+    private static final String LINE_SUB_CATEGORY = "COALESCE(l.item_sub_category, p.product_sub_category, m.sub_category, '')";
+
+    private static final String ITEM_ROLLUP_SQL =
+            "INSERT INTO sales_daily_rollup (sale_date, item_type, item_id, category, sub_category, item_name, " +
+                    "order_lines, units, revenue) " +
+                    "SELECT DATE(l.placed_at), " +
+                    "CASE WHEN l.product_id IS NOT NULL THEN 'PRODUCT' WHEN l.mbp_id IS NOT NULL THEN 'MBP' ELSE 'UNKNOWN' END, " +
+                    "COALESCE(l.product_id, l.mbp_id, 0), " +
+                    LINE_CATEGORY + ", " + LINE_SUB_CATEGORY + ", " +
+                    "MAX(COALESCE(p.product_name, m.title, 'Unknown')), " +
+                    "? * COUNT(*), ? * SUM(l.quantity), ? * SUM(COALESCE(l.subtotal, 0)) " +
+                    "FROM (%s) l " +
+                    "LEFT JOIN products p ON p.product_id = l.product_id " +
+                    "LEFT JOIN mb_products m ON m.id = l.mbp_id " +
+                    "GROUP BY 1, 2, 3, 4, 5 " +
+                    "ON DUPLICATE KEY UPDATE order_lines = order_lines + VALUES(order_lines), " +
+                    "units = units + VALUES(units), revenue = revenue + VALUES(revenue), item_name = VALUES(item_name)";
+
+    // Every order counts once per (category|*, sub-category|*) key it touches on its day
+    private static final String ORDER_COUNT_SQL =
+            "INSERT INTO sales_daily_order_counts (sale_date, category_key, sub_category_key, orders) " +
+                    "SELECT k.sale_date, k.category_key, k.sub_category_key, ? * COUNT(DISTINCT k.order_id) FROM (" +
+                    "SELECT d.order_id, d.sale_date, " +
+                    "CASE WHEN g.n IN (1, 3) THEN d.category ELSE '" + SalesDailyOrderCountEntity.ANY + "' END AS category_key, " +
+                    "CASE WHEN g.n IN (2, 3) THEN d.sub_category ELSE '" + SalesDailyOrderCountEntity.ANY + "' END AS sub_category_key " +
+                    "FROM (SELECT DISTINCT l.order_id, DATE(l.placed_at) AS sale_date, " +
+                    LINE_CATEGORY + " AS category, " + LINE_SUB_CATEGORY + " AS sub_category " +
+                    "FROM (%s) l " +
+                    "LEFT JOIN products p ON p.product_id = l.product_id " +
+                    "LEFT JOIN mb_products m ON m.id = l.mbp_id) d " +
+                    "CROSS JOIN (SELECT 0 AS n UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3) g" +
+                    ") k GROUP BY k.sale_date, k.category_key, k.sub_category_key " +
+                    "ON DUPLICATE KEY UPDATE orders = orders + VALUES(orders)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${reports.rollup.build-on-startup:true}")
+    private boolean buildOnStartup;
+
+    public SalesRollupServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // After the placed_at backfill and the archive tables (see their @Order), so the first build sees both
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(30)
+    public void buildIfEmpty() {
+        if (!buildOnStartup) return;
+        Integer existing = jdbcTemplate.query("SELECT 1 FROM sales_daily_rollup LIMIT 1", rs -> rs.next() ? 1 : null);
+        if (existing != null) return;
+        long rows = rebuild(null, null);
+        if (rows > 0) {
+            logger.info("Initial sales rollup build wrote {} rows", rows);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void apply(Collection<Long> orderIds, int sign) {
+        if (orderIds == null || orderIds.isEmpty()) return;
+        if (sign != 1 && sign != -1) {
+            throw new IllegalArgumentException("sign must be 1 or -1");
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(orderIds));
+        String lines = String.format(LINES_SQL, "orders_table", "order_items",
+                "o.order_id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")");
+
+        List<Object> itemParams = new ArrayList<>(List.of(sign, sign, sign));
+        itemParams.addAll(ids);
+        jdbcTemplate.update(String.format(ITEM_ROLLUP_SQL, lines), itemParams.toArray());
+
+        List<Object> countParams = new ArrayList<>(List.of(sign));
+        countParams.addAll(ids);
+        jdbcTemplate.update(String.format(ORDER_COUNT_SQL, lines), countParams.toArray());
+    }
+
+    @Override
+    public long rebuild(LocalDate from, LocalDate to) {
+        LocalDate first = from;
+        LocalDate last = to != null ? to : LocalDate.now();
+        if (first == null) {
+            Timestamp oldest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(m) FROM (SELECT MIN(placed_at) AS m FROM orders_table " +
+                            "UNION ALL SELECT MIN(placed_at) FROM " + OrderArchiveService.ORDERS_ARCHIVE + ") x",
+                    Timestamp.class);
+            if (oldest == null) return 0;
+            first = oldest.toLocalDateTime().toLocalDate();
+        }
+        if (first.isAfter(last)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        long started = System.currentTimeMillis();
+        long rows = 0;
+        // One month per transaction keeps the locks taken by INSERT ... SELECT short
+        for (YearMonth month = YearMonth.from(first); !month.isAfter(YearMonth.from(last)); month = month.plusMonths(1)) {
+            LocalDate start = month.atDay(1).isBefore(first) ? first : month.atDay(1);
+            LocalDate end = month.atEndOfMonth().isAfter(last) ? last.plusDays(1) : month.plusMonths(1).atDay(1);
+            rows += transactionTemplate.execute(status -> rebuildRange(start, end));
+        }
+        logger.info("Rebuilt sales rollups for {}..{}: {} rows in {} ms", first, last, rows,
+                System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    // [start, end) in days
+    private long rebuildRange(LocalDate start, LocalDate end) {
+        Date startDate = Date.valueOf(start);
+        Date endDate = Date.valueOf(end);
+        jdbcTemplate.update("DELETE FROM sales_daily_rollup WHERE sale_date >= ? AND sale_date < ?", startDate, endDate);
+        jdbcTemplate.update("DELETE FROM sales_daily_order_counts WHERE sale_date >= ? AND sale_date < ?", startDate, endDate);
+
+        String range = "o.placed_at >= ? AND o.placed_at < ?";
+        String lines = String.format(LINES_SQL, "orders_table", "order_items", range) + " UNION ALL " +
+                String.format(LINES_SQL, OrderArchiveService.ORDERS_ARCHIVE, OrderArchiveService.ORDER_ITEMS_ARCHIVE, range);
+        Timestamp from = Timestamp.valueOf(start.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(end.atStartOfDay());
+
+        int items = jdbcTemplate.update(String.format(ITEM_ROLLUP_SQL, lines), 1, 1, 1, from, to, from, to);
+        int counts = jdbcTemplate.update(String.format(ORDER_COUNT_SQL, lines), 1, from, to, from, to);
+        return items + counts;
+    }
+}
@@ -0,0 +1,91 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Weighted SpaceSaving summary (Metwally et al.) over revenue: at most capacity items are monitored.
+ * An unmonitored item replaces the one with the least revenue and inherits that revenue as its error,
+ * so an item's estimate never under-counts and over-counts by at most error. Any item whose true
+ * revenue exceeds total / capacity is guaranteed to be monitored. Units ride along with the same entry:
+ * the newcomer inherits the evicted units as unitsError too, so units are an upper bound of the same kind
+ * as revenue (never under-counted, over-counted by at most unitsError) instead of counting only since
+ * the item was last monitored.
+ * Removals (cancellations) only adjust monitored items; the periodic rebuild from the rollups corrects
+ * the rest.
+ */
+final class SpaceSavingSketch {
+
+    static final class Counter {
+        final String key;
+        String name;
+        double revenue;
+        long units;
+        double error;
+        long unitsError;
+
+        private Counter(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private double total;
+
+    SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    synchronized void add(String key, String name, long units, double revenue) {
+        total += revenue;
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = new Counter(key, name);
+            if (counters.size() >= capacity) {
+                // O(capacity) scan, only when a new item arrives at a full summary
+                Counter min = null;
+                for (Counter c : counters.values()) {
+                    if (min == null || c.revenue < min.revenue) min = c;
+                }
+                counters.remove(min.key);
+                counter.revenue = min.revenue;
+                counter.error = min.revenue;
+                counter.units = min.units;
+                counter.unitsError = min.units;
+            }
+            counters.put(key, counter);
+        }
+        counter.name = name;
+        counter.revenue += revenue;
+        counter.units += units;
+    }
+
+    synchronized void remove(String key, long units, double revenue) {
+        total = Math.max(0, total - revenue);
+        Counter counter = counters.get(key);
+        if (counter == null) return;
+        counter.revenue = Math.max(0, counter.revenue - revenue);
+        counter.units = Math.max(0, counter.units - units);
+    }
+
+    // Adds this summary's estimates into acc; returns the revenue an unmonitored item could at most have had here
+    synchronized double mergeInto(Map<String, Counter> acc) {
+        double min = Double.MAX_VALUE;
+        for (Counter c : counters.values()) {
+            Counter merged = acc.computeIfAbsent(c.key, k -> new Counter(c.key, c.name));
+            merged.revenue += c.revenue;
+            merged.units += c.units;
+            merged.error += c.error;
+            merged.unitsError += c.unitsError;
+            min = Math.min(min, c.revenue);
+        }
+        return counters.size() < capacity ? 0 : min;
+    }
+
+    synchronized double total() {
+        return total;
+    }
+}
@@ -0,0 +1,159 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.entity.CartItemEntity;
+import com.gn.pharmacy.repository.CartItemRepository;
+import com.gn.pharmacy.repository.InventoryRepository;
+import com.gn.pharmacy.repository.MbPRepository;
+import com.gn.pharmacy.repository.ProductRepository;
+import com.gn.pharmacy.service.StockHoldService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Soft stock reservations stored on cart_items. A hold is only counted while hold_expires_at is in the
+ * future, so expiry needs no timer per item; the sweep just clears stale rows in one indexed UPDATE.
+ * Holds and order deductions for the same item are serialized with a row lock on the product / MBP.
+ */
+@Service
+@Lazy(false)
+public class StockHoldServiceImpl implements StockHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockHoldServiceImpl.class);
+
+    private final CartItemRepository cartItemRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ProductRepository productRepository;
+    private final MbPRepository mbpRepository;
+
+    @Value("${cart.hold.ttl-minutes:15}")
+    private long holdTtlMinutes;
+
+    public StockHoldServiceImpl(CartItemRepository cartItemRepository, InventoryRepository inventoryRepository,
+                                ProductRepository productRepository, MbPRepository mbpRepository) {
+        this.cartItemRepository = cartItemRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.productRepository = productRepository;
+        this.mbpRepository = mbpRepository;
+    }
+
+    @Override
+    @Transactional
+    public CartItemEntity saveWithHold(CartItemEntity item, boolean allowPartial) {
+        Long userId = item.getUser().getUserId();
+        Long productId = item.getProduct() != null ? item.getProduct().getProductId() : null;
+        Long mbpId = item.getMbp() != null ? item.getMbp().getId() : null;
+
+        lockItem(productId, mbpId);
+
+        int requested = item.getQuantity() != null ? item.getQuantity() : 0;
+        long available = Math.max(0, availableForUser(userId, productId, mbpId, item.getSelectedSize()));
+
+        if (requested > available && !allowPartial) {
+            throw new InsufficientStockException(
+                    "Only " + available + " unit(s) available for size '" + displaySize(item.getSelectedSize()) + "'",
+                    available);
+        }
+
+        item.setHeldQuantity((int) Math.min(requested, available));
+        item.setHoldExpiresAt(LocalDateTime.now().plusMinutes(holdTtlMinutes));
+        return cartItemRepository.save(item);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long availableForUser(Long userId, Long productId, Long mbpId, String size) {
+        String normalizedSize = normalizeSize(size);
+        LocalDateTime now = LocalDateTime.now();
+        if (productId != null) {
+            return inventoryRepository.sumProductSizeStock(productId, normalizedSize)
+                    - cartItemRepository.sumActiveProductHoldsExcludingUser(productId, normalizedSize, userId, now);
+        }
+        return inventoryRepository.sumMbpSizeStock(mbpId, normalizedSize)
+                - cartItemRepository.sumActiveMbpHoldsExcludingUser(mbpId, normalizedSize, userId, now);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<ItemSize, Long> heldByOthers(Long userId, Collection<Long> productIds, Collection<Long> mbpIds) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<ItemSize, Long> held = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (Object[] row : cartItemRepository.sumActiveProductHoldsExcludingUser(productIds, userId, now)) {
+                held.put(ItemSize.of((Long) row[0], null, (String) row[1]), ((Number) row[2]).longValue());
+            }
+        }
+        if (!mbpIds.isEmpty()) {
+            for (Object[] row : cartItemRepository.sumActiveMbpHoldsExcludingUser(mbpIds, userId, now)) {
+                held.put(ItemSize.of(null, (Long) row[0], (String) row[1]), ((Number) row[2]).longValue());
+            }
+        }
+        return held;
+    }
+
+    @Override
+    @Transactional
+    public Map<ItemSize, Integer> consumeHolds(Long userId, Map<ItemSize, Integer> quantities) {
+        Map<ItemSize, Integer> remaining = new HashMap<>(quantities);
+        Map<ItemSize, Integer> consumed = new HashMap<>();
+
+        // One query for all of the user's holds; the managed rows are updated at flush (JDBC batched)
+        for (CartItemEntity hold : cartItemRepository.findActiveHoldsByUser(userId, LocalDateTime.now())) {
+            ItemSize key = ItemSize.of(
+                    hold.getProduct() != null ? hold.getProduct().getProductId() : null,
+                    hold.getMbp() != null ? hold.getMbp().getId() : null,
+                    hold.getSelectedSize());
+            int wanted = remaining.getOrDefault(key, 0);
+            if (wanted <= 0) continue;
+
+            int take = Math.min(hold.getHeldQuantity(), wanted);
+            hold.setHeldQuantity(hold.getHeldQuantity() - take);
+            if (hold.getHeldQuantity() == 0) {
+                hold.setHoldExpiresAt(null);
+            }
+            remaining.put(key, wanted - take);
+            consumed.merge(key, take, Integer::sum);
+        }
+        return consumed;
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${cart.hold.sweep-interval-ms:60000}")
+    public int releaseExpiredHolds() {
+        int released = cartItemRepository.releaseExpiredHolds(LocalDateTime.now());
+        if (released > 0) {
+            logger.info("Released {} expired cart stock holds", released);
+        }
+        return released;
+    }
+
+    private void lockItem(Long productId, Long mbpId) {
+        if (productId != null) {
+            productRepository.findByIdForUpdate(productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+        } else if (mbpId != null) {
+            mbpRepository.findByIdForUpdate(mbpId)
+                    .orElseThrow(() -> new RuntimeException("MbP product not found with ID: " + mbpId));
+        } else {
+            throw new IllegalArgumentException("Cart item has neither a product nor an MBP");
+        }
+    }
+
+    private static String normalizeSize(String size) {
+        return ItemSize.normalizeSize(size);
+    }
+
+    private static String displaySize(String size) {
+        return size == null || size.isBlank() ? "default" : size;
+    }
+}
@@ -0,0 +1,263 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.inventory.StockAtTimeDto;
+import com.gn.pharmacy.dto.inventory.StockAtTimeLineDto;
+import com.gn.pharmacy.dto.inventory.StockMovementDto;
+import com.gn.pharmacy.entity.StockMovementEntity;
+import com.gn.pharmacy.entity.StockSnapshotEntity;
+import com.gn.pharmacy.entity.StockSnapshotLineEntity;
+import com.gn.pharmacy.repository.StockMovementRepository;
+import com.gn.pharmacy.repository.StockSnapshotLineRepository;
+import com.gn.pharmacy.repository.StockSnapshotRepository;
+import com.gn.pharmacy.service.StockLedgerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Append-only stock ledger. Every quantity change on inventory_variants is written here as a signed
+ * movement in the same transaction; periodic snapshots bound how many movements a point-in-time
+ * reconstruction has to replay.
+ */
+@Service
+@Lazy(false)
+public class StockLedgerServiceImpl implements StockLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedgerServiceImpl.class);
+
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movements (inventory_id, product_id, mbp_id, batch_no, size, quantity_delta, reason, reference, occurred_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SNAPSHOT_LINES_SQL =
+            "INSERT INTO stock_snapshot_lines (snapshot_id, inventory_id, product_id, mbp_id, batch_no, size, quantity) " +
+                    "SELECT ?, i.inventory_id, i.product_id, i.mbp_id, i.batch_no, v.size, v.quantity " +
+                    "FROM product_inventory i JOIN inventory_variants v ON v.inventory_id = i.inventory_id";
+
+    private final StockMovementRepository movementRepository;
+    private final StockSnapshotRepository snapshotRepository;
+    private final StockSnapshotLineRepository snapshotLineRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.ledger.max-movements-between-snapshots:5000}")
+    private long maxMovementsBetweenSnapshots;
+
+    @Value("${inventory.ledger.keep-all-snapshots-days:35}")
+    private int keepAllSnapshotsDays;
+
+    public StockLedgerServiceImpl(StockMovementRepository movementRepository, StockSnapshotRepository snapshotRepository,
+                                  StockSnapshotLineRepository snapshotLineRepository, JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager) {
+        this.movementRepository = movementRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.snapshotLineRepository = snapshotLineRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    @Transactional
+    public void record(List<Movement> movements) {
+        List<Movement> nonZero = movements.stream().filter(m -> m.quantityDelta() != 0).toList();
+        if (nonZero.isEmpty()) return;
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, nonZero, nonZero.size(), (ps, m) -> {
+            ps.setObject(1, m.inventoryId(), Types.BIGINT);
+            ps.setObject(2, m.productId(), Types.BIGINT);
+            ps.setObject(3, m.mbpId(), Types.BIGINT);
+            ps.setString(4, m.batchNo());
+            ps.setString(5, m.size());
+            ps.setInt(6, m.quantityDelta());
+            ps.setString(7, m.reason().name());
+            ps.setString(8, m.reference());
+            ps.setTimestamp(9, now);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StockAtTimeDto getStockAt(Long productId, Long mbpId, LocalDateTime at) {
+        if ((productId == null) == (mbpId == null)) {
+            throw new IllegalArgumentException("Exactly one of productId or mbpId must be provided.");
+        }
+        LocalDateTime pointInTime = at != null ? at : LocalDateTime.now();
+
+        StockSnapshotEntity snapshot = snapshotRepository.findFirstByTakenAtLessThanEqualOrderByTakenAtDesc(pointInTime)
+                .orElseThrow(() -> new RuntimeException("No stock snapshot exists at or before " + pointInTime
+                        + " - the ledger cannot reconstruct stock before its first snapshot"));
+
+        // key: inventoryId|size -> line
+        Map<String, MutableLine> lines = new LinkedHashMap<>();
+
+        List<StockSnapshotLineEntity> baseLines = productId != null
+                ? snapshotLineRepository.findBySnapshotIdAndProductId(snapshot.getSnapshotId(), productId)
+                : snapshotLineRepository.findBySnapshotIdAndMbpId(snapshot.getSnapshotId(), mbpId);
+        for (StockSnapshotLineEntity line : baseLines) {
+            lines.computeIfAbsent(lineKey(line.getInventoryId(), line.getSize()),
+                            k -> new MutableLine(line.getInventoryId(), line.getBatchNo(), line.getSize()))
+                    .quantity += line.getQuantity() != null ? line.getQuantity() : 0;
+        }
+
+        List<Object[]> replay = productId != null
+                ? movementRepository.sumProductMovementsSince(productId, snapshot.getLastMovementId(), pointInTime)
+                : movementRepository.sumMbpMovementsSince(mbpId, snapshot.getLastMovementId(), pointInTime);
+        long replayed = 0;
+        for (Object[] row : replay) {
+            Long inventoryId = row[0] != null ? ((Number) row[0]).longValue() : null;
+            String batchNo = (String) row[1];
+            String size = (String) row[2];
+            int delta = ((Number) row[3]).intValue();
+            replayed += ((Number) row[4]).longValue();
+            lines.computeIfAbsent(lineKey(inventoryId, size), k -> new MutableLine(inventoryId, batchNo, size))
+                    .quantity += delta;
+        }
+
+        List<StockAtTimeLineDto> lineDtos = lines.values().stream()
+                .filter(l -> l.quantity != 0)
+                .map(l -> new StockAtTimeLineDto(l.inventoryId, l.batchNo, l.size, l.quantity))
+                .toList();
+        int total = lineDtos.stream().mapToInt(StockAtTimeLineDto::quantity).sum();
+
+        return new StockAtTimeDto(
+                productId != null ? "PRODUCT" : "MBP",
+                productId != null ? productId : mbpId,
+                pointInTime,
+                snapshot.getSnapshotId(),
+                snapshot.getTakenAt(),
+                replayed,
+                total,
+                lineDtos
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<StockMovementDto> getMovements(Long productId, Long mbpId, int page, int size) {
+        if ((productId == null) == (mbpId == null)) {
+            throw new IllegalArgumentException("Exactly one of productId or mbpId must be provided.");
+        }
+        PageRequest pageable = PageRequest.of(page, size);
+        Page<StockMovementEntity> movements = productId != null
+                ? movementRepository.findByProductIdOrderByMovementIdDesc(productId, pageable)
+                : movementRepository.findByMbpIdOrderByMovementIdDesc(mbpId, pageable);
+        return movements.map(m -> new StockMovementDto(
+                m.getMovementId(), m.getInventoryId(), m.getProductId(), m.getMbpId(), m.getBatchNo(),
+                m.getSize(), m.getQuantityDelta(), m.getReason().name(), m.getReference(), m.getOccurredAt()));
+    }
+
+    @Override
+    public Long takeSnapshot() {
+        return transactionTemplate.execute(status -> {
+            long start = System.currentTimeMillis();
+            StockSnapshotEntity snapshot = snapshotRepository.save(new StockSnapshotEntity(LocalDateTime.now(), 0L));
+
+            // Set-based copy; the locking read on inventory_variants holds off concurrent deductions
+            int lineCount = jdbcTemplate.update(SNAPSHOT_LINES_SQL, snapshot.getSnapshotId());
+
+            // Watermark read after the copy: movements committed before it are already reflected in the lines
+            snapshot.setLastMovementId(movementRepository.findMaxMovementId());
+            snapshot.setLineCount(lineCount);
+            snapshotRepository.save(snapshot);
+
+            logger.info("Stock snapshot {} taken: {} lines, watermark movement {} ({} ms)",
+                    snapshot.getSnapshotId(), lineCount, snapshot.getLastMovementId(),
+                    System.currentTimeMillis() - start);
+            return snapshot.getSnapshotId();
+        });
+    }
+
+    @Override
+    public int compactSnapshots() {
+        LocalDateTime keepAllAfter = LocalDateTime.now().minusDays(keepAllSnapshotsDays);
+        List<StockSnapshotEntity> old = snapshotRepository.findByTakenAtBeforeOrderByTakenAtAsc(keepAllAfter);
+
+        // Older than the retention window: keep only the first snapshot of each month
+        Set<YearMonth> keptMonths = new HashSet<>();
+        int removed = 0;
+        for (StockSnapshotEntity snapshot : old) {
+            if (keptMonths.add(YearMonth.from(snapshot.getTakenAt()))) continue;
+
+            Long snapshotId = snapshot.getSnapshotId();
+            transactionTemplate.executeWithoutResult(status -> {
+                snapshotLineRepository.deleteBySnapshotId(snapshotId);
+                snapshotRepository.deleteById(snapshotId);
+            });
+            removed++;
+        }
+        if (removed > 0) {
+            logger.info("Stock ledger compaction removed {} snapshots older than {}", removed, keepAllAfter);
+        }
+        return removed;
+    }
+
+    // ==================== SCHEDULED JOBS ====================
+
+    // Opening balance so reconstruction works from the first day the ledger is deployed
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureOpeningSnapshot() {
+        if (snapshotRepository.findFirstByOrderByTakenAtDesc().isEmpty()) {
+            logger.info("No stock snapshot found - taking opening balance snapshot");
+            takeSnapshot();
+        }
+    }
+
+    @Scheduled(cron = "${inventory.ledger.snapshot-cron:0 0 2 * * *}")
+    public void scheduledSnapshot() {
+        takeSnapshot();
+    }
+
+    // Extra snapshot when a busy day piles up movements, so replay never grows unbounded
+    @Scheduled(fixedDelayString = "${inventory.ledger.snapshot-check-interval-ms:900000}",
+            initialDelayString = "${inventory.ledger.snapshot-check-interval-ms:900000}")
+    public void snapshotIfLedgerGrew() {
+        Long watermark = snapshotRepository.findFirstByOrderByTakenAtDesc()
+                .map(StockSnapshotEntity::getLastMovementId)
+                .orElse(0L);
+        long pending = movementRepository.countByMovementIdGreaterThan(watermark);
+        if (pending >= maxMovementsBetweenSnapshots) {
+            logger.info("{} movements since last snapshot (limit {}) - taking snapshot", pending, maxMovementsBetweenSnapshots);
+            takeSnapshot();
+        }
+    }
+
+    @Scheduled(cron = "${inventory.ledger.compaction-cron:0 30 2 * * *}")
+    public void scheduledCompaction() {
+        compactSnapshots();
+    }
+
+    private static String lineKey(Long inventoryId, String size) {
+        return inventoryId + "|" + (size != null ? size.trim().toLowerCase() : "");
+    }
+
+    private static final class MutableLine {
+        private final Long inventoryId;
+        private final String batchNo;
+        private final String size;
+        private int quantity;
+
+        private MutableLine(Long inventoryId, String batchNo, String size) {
+            this.inventoryId = inventoryId;
+            this.batchNo = batchNo;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.dashboard.TopSellingDto;
+import com.gn.pharmacy.event.OrderSalesChangedEvent;
+import com.gn.pharmacy.service.TopSellerTrackerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Top sellers from one SpaceSaving summary per day instead of grouping every order line of the window.
+ * Placed and cancelled orders are applied after commit; a window is answered by merging its day
+ * summaries (capacity entries each). Every reconcile-interval the retained days are rebuilt from
+ * sales_daily_rollup, which also picks up order edits and deletes that are not streamed here.
+ */
+@Service
+@Lazy(false)
+public class TopSellerTrackerServiceImpl implements TopSellerTrackerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopSellerTrackerServiceImpl.class);
+
+    private static final String NOT_CANCELLED = "(o.order_status IS NULL OR o.order_status <> 'CANCELLED')";
+
+    private static final String ORDER_LINES_SQL =
+            "SELECT DATE(o.placed_at) AS sale_date, oi.product_id, oi.mbp_id, " +
+                    "COALESCE(p.product_name, m.title, 'Unknown Product') AS item_name, oi.quantity, oi.subtotal " +
+                    "FROM order_items oi JOIN orders_table o ON o.order_id = oi.order_id " +
+                    "LEFT JOIN products p ON p.product_id = oi.product_id " +
+                    "LEFT JOIN mb_products m ON m.id = oi.mbp_id " +
+                    "WHERE o.placed_at IS NOT NULL AND o.order_id IN (%s)";
+
+    private static final String ROLLUP_SQL =
+            "SELECT sale_date, item_type, item_id, MAX(item_name) AS item_name, SUM(units) AS units, SUM(revenue) AS revenue " +
+                    "FROM sales_daily_rollup WHERE sale_date >= ? GROUP BY sale_date, item_type, item_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Replaced as a whole by reconcile; events update the map that is current when they arrive
+    private volatile ConcurrentMap<LocalDate, SpaceSavingSketch> days;
+    private volatile LocalDate retainedFrom;
+
+    @Value("${dashboard.top-sellers.capacity:256}")
+    private int capacity;
+
+    @Value("${dashboard.top-sellers.retention-days:120}")
+    private int retentionDays;
+
+    public TopSellerTrackerServiceImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // After the initial rollup build (SalesRollupServiceImpl, @Order(30))
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(50)
+    public void warmUp() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.top-sellers.reconcile-interval-ms:600000}",
+            initialDelayString = "${dashboard.top-sellers.reconcile-interval-ms:600000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderSalesChanged(OrderSalesChangedEvent event) {
+        ConcurrentMap<LocalDate, SpaceSavingSketch> current = days;
+        if (current == null || event.orderIds().isEmpty()) return;
+        try {
+            // Placed orders count once committed; cancelled ones are already flagged, so read lines regardless of status
+            String sql = String.format(ORDER_LINES_SQL, String.join(",", Collections.nCopies(event.orderIds().size(), "?")))
+                    + (event.sign() > 0 ? " AND " + NOT_CANCELLED : "");
+            jdbcTemplate.query(sql, rs -> {
+                LocalDate day = rs.getDate("sale_date").toLocalDate();
+                if (day.isBefore(retainedFrom)) return;
+                String key = key(rs.getObject("product_id", Long.class), rs.getObject("mbp_id", Long.class));
+                long units = rs.getLong("quantity");
+                double revenue = rs.getDouble("subtotal");
+                SpaceSavingSketch sketch = current.computeIfAbsent(day, d -> new SpaceSavingSketch(capacity));
+                if (event.sign() > 0) {
+                    sketch.add(key, rs.getString("item_name"), units, revenue);
+                } else {
+                    sketch.remove(key, units, revenue);
+                }
+            }, event.orderIds().toArray());
+        } catch (RuntimeException e) {
+            logger.warn("Could not apply orders {} to the top-seller tracker: {}", event.orderIds(), e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<List<TopSellingDto>> topSellers(LocalDate from, int limit) {
+        ConcurrentMap<LocalDate, SpaceSavingSketch> current = days;
+        if (current == null || from.isBefore(retainedFrom)) {
+            return Optional.empty();
+        }
+        Map<String, SpaceSavingSketch.Counter> merged = new HashMap<>();
+        double maxError = 0;
+        for (Map.Entry<LocalDate, SpaceSavingSketch> day : current.entrySet()) {
+            if (!day.getKey().isBefore(from)) {
+                maxError += day.getValue().mergeInto(merged);
+            }
+        }
+        if (maxError > 0) {
+            logger.debug("Top sellers since {} merged from summaries; unmonitored items may be off by up to {}", from, maxError);
+        }
+        return Optional.of(merged.values().stream()
+                .filter(c -> c.revenue > 0)
+                .sorted(Comparator.comparingDouble((SpaceSavingSketch.Counter c) -> c.revenue).reversed())
+                .limit(Math.max(limit, 0))
+                .map(c -> new TopSellingDto(c.name, c.units, BigDecimal.valueOf(c.revenue).setScale(2, RoundingMode.HALF_UP)))
+                .toList());
+    }
+
+    @Override
+    public synchronized long reconcile() {
+        long started = System.currentTimeMillis();
+        LocalDate from = LocalDate.now().minusDays(retentionDays);
+        ConcurrentMap<LocalDate, SpaceSavingSketch> rebuilt = new ConcurrentHashMap<>();
+        long[] rows = {0};
+        try {
+            jdbcTemplate.query(ROLLUP_SQL, rs -> {
+                String type = rs.getString("item_type");
+                long id = rs.getLong("item_id");
+                String key = "PRODUCT".equals(type) ? key(id, null) : "MBP".equals(type) ? key(null, id) : key(null, null);
+                rebuilt.computeIfAbsent(rs.getDate("sale_date").toLocalDate(), d -> new SpaceSavingSketch(capacity))
+                        .add(key, rs.getString("item_name"), rs.getLong("units"), rs.getDouble("revenue"));
+                rows[0]++;
+            }, Date.valueOf(from));
+        } catch (RuntimeException e) {
+            logger.warn("Top-seller reconcile failed, keeping the current summaries: {}", e.getMessage());
+            return 0;
+        }
+        retainedFrom = from;
+        days = rebuilt;
+        logger.debug("Top-seller summaries rebuilt for {} days from {} rollup rows in {} ms",
+                rebuilt.size(), rows[0], System.currentTimeMillis() - started);
+        return rows[0];
+    }
+
+    private static String key(Long productId, Long mbpId) {
+        if (productId != null) return "P" + productId;
+        if (mbpId != null) return "M" + mbpId;
+        return "U";
+    }
+}
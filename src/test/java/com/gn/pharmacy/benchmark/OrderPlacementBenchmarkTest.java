@@ -0,0 +1,140 @@
+package com.gn.pharmacy.benchmark;
+
+import com.gn.pharmacy.dto.request.OrderItemDto;
+import com.gn.pharmacy.dto.request.OrderRequestDto;
+import com.gn.pharmacy.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Order placement benchmark: statements and latency of createOrder versus number of order lines.
+ * Every run happens inside a transaction that is rolled back, so stock, orders, ledger and holds are untouched.
+ * Needs the configured MySQL database with users and stocked products, so it only runs when asked for.
+ *
+ * Run with:  mvn test -Dtest=OrderPlacementBenchmarkTest -Dbenchmark=true
+ * Tune with: -Dbenchmark.order-sizes=1,5,10,30 -Dbenchmark.iterations=5
+ */
+@SpringBootTest
+@Import(StatementCountingDataSourceConfig.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderPlacementBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderPlacementBenchmarkTest.class);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${benchmark.order-sizes:1,5,10,30}")
+    private int[] orderSizes;
+
+    @Value("${benchmark.iterations:5}")
+    private int iterations;
+
+    @Test
+    void orderPlacement() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        Long userId = jdbcTemplate.queryForObject("SELECT MIN(user_id) FROM users_table", Long.class);
+        if (userId == null) {
+            logger.warn("Order benchmark skipped: no users in the database");
+            return;
+        }
+
+        // One in-stock size per product, so each order line hits a different item
+        Map<Long, String> lines = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT i.product_id, v.size FROM product_inventory i " +
+                        "JOIN inventory_variants v ON v.inventory_id = i.inventory_id " +
+                        "WHERE i.product_id IS NOT NULL AND v.quantity > 0 ORDER BY i.product_id",
+                rs -> { lines.putIfAbsent(rs.getLong(1), rs.getString(2)); });
+        if (lines.isEmpty()) {
+            logger.warn("Order benchmark skipped: no product with stock");
+            return;
+        }
+
+        logger.info("Order placement benchmark: user {}, {} stocked products, {} iterations per size",
+                userId, lines.size(), iterations);
+        logger.info(String.format("%8s %12s %12s %12s %12s", "lines", "statements", "min ms", "median ms", "max ms"));
+
+        for (int size : orderSizes) {
+            if (size > lines.size()) {
+                logger.info(String.format("%8d   skipped - only %d stocked products", size, lines.size()));
+                continue;
+            }
+            OrderRequestDto request = buildRequest(userId, lines, size);
+
+            runOnce(request);   // warm-up
+            long[] statements = new long[iterations];
+            double[] millis = new double[iterations];
+            boolean failed = false;
+            for (int i = 0; i < iterations && !failed; i++) {
+                StatementCountingDataSourceConfig.startCounting();
+                long start = System.nanoTime();
+                failed = !runOnce(request);
+                millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+                statements[i] = StatementCountingDataSourceConfig.stopCounting();
+            }
+            if (failed) {
+                logger.info(String.format("%8d   failed - see log above", size));
+                continue;
+            }
+            Arrays.sort(millis);
+            logger.info(String.format("%8d %12d %12.1f %12.1f %12.1f",
+                    size, statements[0], millis[0], millis[iterations / 2], millis[iterations - 1]));
+        }
+        logger.info("Order placement benchmark finished");
+    }
+
+    private boolean runOnce(OrderRequestDto request) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                orderService.createOrder(request);
+            });
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Benchmark order failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private OrderRequestDto buildRequest(Long userId, Map<Long, String> lines, int size) {
+        List<OrderItemDto> items = new ArrayList<>();
+        for (Map.Entry<Long, String> line : lines.entrySet()) {
+            if (items.size() == size) break;
+            OrderItemDto item = new OrderItemDto();
+            item.setProductId(line.getKey());
+            item.setSize(line.getValue());
+            item.setQuantity(1);
+            item.setItemName("benchmark-" + line.getKey());
+            item.setItemPrice(1.0);
+            item.setSubtotal(1.0);
+            items.add(item);
+        }
+        OrderRequestDto request = new OrderRequestDto();
+        request.setUserId(userId);
+        request.setOrderStatus("PENDING");
+        request.setPaymentMethod("BENCHMARK");
+        request.setTotalAmount((double) size);
+        request.setOrderItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,84 @@
+package com.gn.pharmacy.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Imported by OrderPlacementBenchmarkTest: wraps the DataSource so every statement round trip (execute*, executeBatch)
+ * made by Hibernate or JdbcTemplate on the current thread can be counted.
+ */
+public class StatementCountingDataSourceConfig implements BeanPostProcessor {
+
+    private static final ThreadLocal<long[]> COUNTER = new ThreadLocal<>();
+
+    public static void startCounting() {
+        COUNTER.set(new long[1]);
+    }
+
+    public static long stopCounting() {
+        long[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter != null ? counter[0] : 0;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)) {
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return countingConnection(super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return countingConnection(super.getConnection(username, password));
+                }
+            };
+        }
+        return bean;
+    }
+
+    private static Connection countingConnection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (result instanceof Statement statement) {
+                        return countingStatement(statement);
+                    }
+                    return result;
+                });
+    }
+
+    private static Statement countingStatement(Statement target) {
+        // Keep the most specific JDBC interface so PreparedStatement / CallableStatement casts still work
+        Class<?>[] interfaces = target instanceof java.sql.CallableStatement
+                ? new Class<?>[]{java.sql.CallableStatement.class}
+                : target instanceof java.sql.PreparedStatement
+                ? new Class<?>[]{java.sql.PreparedStatement.class}
+                : new Class<?>[]{Statement.class};
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), interfaces,
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        long[] counter = COUNTER.get();
+                        if (counter != null) counter[0]++;
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
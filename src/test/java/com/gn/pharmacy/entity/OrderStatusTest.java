@@ -0,0 +1,67 @@
+package com.gn.pharmacy.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderStatusTest {
+
+    @Test
+    void forwardTransitions() {
+        assertThat(OrderStatus.PENDING.nextStates())
+                .containsExactlyInAnyOrder(OrderStatus.CONFIRMED, OrderStatus.PROCESSING, OrderStatus.CANCELLED);
+        assertThat(OrderStatus.SHIPPED.nextStates()).containsExactlyInAnyOrder(OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+        assertThat(OrderStatus.DELIVERED.canTransitionTo(OrderStatus.EXCHANGE_REQUESTED)).isTrue();
+        assertThat(OrderStatus.EXCHANGE_REQUESTED.canTransitionTo(OrderStatus.DELIVERED)).isTrue();
+    }
+
+    @Test
+    void terminalStatesHaveNoMoves() {
+        assertThat(OrderStatus.COMPLETED.nextStates()).isEmpty();
+        assertThat(OrderStatus.CANCELLED.nextStates()).isEmpty();
+    }
+
+    @Test
+    void cancellingStopsAtDelivery() {
+        assertThat(OrderStatus.SHIPPED.canTransitionTo(OrderStatus.CANCELLED)).isTrue();
+        assertThat(OrderStatus.DELIVERED.canTransitionTo(OrderStatus.CANCELLED)).isFalse();
+        assertThat(OrderStatus.PENDING.canTransitionTo(OrderStatus.PENDING)).isFalse();
+    }
+
+    @Test
+    void sourcesOfInvertsNextStates() {
+        assertThat(OrderStatus.sourcesOf(OrderStatus.CANCELLED))
+                .containsExactlyInAnyOrder(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PROCESSING,
+                        OrderStatus.SHIPPED);
+        assertThat(OrderStatus.sourcesOf(OrderStatus.COMPLETED))
+                .containsExactlyInAnyOrder(OrderStatus.DELIVERED, OrderStatus.EXCHANGE_APPROVED);
+        assertThat(OrderStatus.sourcesOf(OrderStatus.PENDING)).isEmpty();
+
+        for (OrderStatus target : OrderStatus.values()) {
+            for (OrderStatus source : OrderStatus.values()) {
+                assertThat(OrderStatus.sourcesOf(target).contains(source))
+                        .as("%s -> %s", source, target)
+                        .isEqualTo(source.nextStates().contains(target));
+            }
+        }
+    }
+
+    @Test
+    void parseIsLenientOnCaseAndWhitespace() {
+        assertThat(OrderStatus.parse(" shipped ")).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(OrderStatus.parse("Exchange_Requested")).isEqualTo(OrderStatus.EXCHANGE_REQUESTED);
+    }
+
+    @Test
+    void parseRejectsMissingAndUnknownValues() {
+        assertThatThrownBy(() -> OrderStatus.parse(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Order status is required");
+        assertThatThrownBy(() -> OrderStatus.parse("  "))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> OrderStatus.parse("LOST"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown order status: LOST");
+    }
+}
@@ -0,0 +1,71 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledEmailTemplateTest {
+
+    @Test
+    void escapesDoubleBraceSlots() {
+        CompiledEmailTemplate template = CompiledEmailTemplate.compile("<p>Hello {{ name }}!</p>");
+
+        assertThat(template.render(Map.of("name", "<b>Tom & \"Jerry's\"</b>")))
+                .isEqualTo("<p>Hello &lt;b&gt;Tom &amp; &quot;Jerry&#39;s&quot;&lt;/b&gt;!</p>");
+    }
+
+    @Test
+    void insertsTripleBraceSlotsAsIs() {
+        CompiledEmailTemplate template = CompiledEmailTemplate.compile("<table>{{{rows}}}</table>{{{footer}}}");
+
+        assertThat(template.render(Map.of("rows", "<tr><td>1 & 2</td></tr>", "footer", "<hr>")))
+                .isEqualTo("<table><tr><td>1 & 2</td></tr></table><hr>");
+    }
+
+    @Test
+    void missingValuesRenderEmpty() {
+        CompiledEmailTemplate template = CompiledEmailTemplate.compile("a{{x}}b{{{y}}}c");
+        Map<String, Object> values = new HashMap<>();
+        values.put("y", null);
+
+        assertThat(template.render(values)).isEqualTo("abc");
+    }
+
+    @Test
+    void repeatedSlotsAndNonStringValues() {
+        CompiledEmailTemplate template = CompiledEmailTemplate.compile("{{n}} x {{n}} = {{total}}");
+
+        assertThat(template.render(Map.of("n", 3, "total", 9.5))).isEqualTo("3 x 3 = 9.5");
+    }
+
+    @Test
+    void templateWithoutSlotsRendersVerbatim() {
+        String source = "<style>p { color: red; }</style><p>No placeholders</p>";
+
+        assertThat(CompiledEmailTemplate.compile(source).render(Map.of())).isEqualTo(source);
+    }
+
+    @Test
+    void unclosedPlaceholderIsRejected() {
+        assertThatThrownBy(() -> CompiledEmailTemplate.compile("<p>{{name</p>"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("offset 3");
+        assertThatThrownBy(() -> CompiledEmailTemplate.compile("{{{raw}}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void bundledTemplatesCompile() {
+        assertThat(CompiledEmailTemplate.fromClasspath("templates/email/otp.html").render(Map.of("otp", "123456")))
+                .contains("123456");
+        assertThat(CompiledEmailTemplate.fromClasspath("templates/email/order-confirmation.html").render(Map.of()))
+                .isNotBlank();
+        assertThatThrownBy(() -> CompiledEmailTemplate.fromClasspath("templates/email/missing.html"))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+}
@@ -0,0 +1,31 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailOutboxBackoffTest {
+
+    private static final long BASE = 30;
+    private static final long MAX = 3600;
+
+    @RepeatedTest(20)
+    void doublesPerAttemptWithUpToTwentyPercentJitter() {
+        assertThat(EmailOutboxServiceImpl.backoffSeconds(1, BASE, MAX)).isBetween(30L, 36L);
+        assertThat(EmailOutboxServiceImpl.backoffSeconds(2, BASE, MAX)).isBetween(60L, 72L);
+        assertThat(EmailOutboxServiceImpl.backoffSeconds(3, BASE, MAX)).isBetween(120L, 144L);
+        assertThat(EmailOutboxServiceImpl.backoffSeconds(5, BASE, MAX)).isBetween(480L, 576L);
+    }
+
+    @RepeatedTest(20)
+    void isCappedAtTheMaximumPlusJitter() {
+        assertThat(EmailOutboxServiceImpl.backoffSeconds(8, BASE, MAX)).isBetween(MAX, MAX + MAX / 5);
+        assertThat(EmailOutboxServiceImpl.backoffSeconds(1_000, BASE, MAX)).isBetween(MAX, MAX + MAX / 5);
+    }
+
+    @Test
+    void attemptZeroIsTreatedAsTheFirstRetry() {
+        assertThat(EmailOutboxServiceImpl.backoffSeconds(0, BASE, MAX)).isBetween(30L, 36L);
+    }
+}
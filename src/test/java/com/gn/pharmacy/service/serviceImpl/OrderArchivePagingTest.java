@@ -0,0 +1,72 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.repository.*;
+import com.gn.pharmacy.service.*;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderArchivePagingTest {
+
+    @Test
+    void eachBranchIsSortedAndCutBeforeTheMerge() {
+        String sql = OrderServiceImpl.ordersAcrossArchiveSql(
+                Sort.by(Sort.Order.desc("placedAt"), Sort.Order.desc("orderId")), true);
+
+        String order = " ORDER BY placed_at DESC, order_id DESC";
+        assertThat(sql).isEqualTo(
+                "(SELECT order_id, placed_at, 0 AS archived FROM orders_table WHERE user_id = ?" + order + " LIMIT ?)" +
+                        " UNION ALL (SELECT order_id, placed_at, 1 AS archived FROM " + OrderArchiveService.ORDERS_ARCHIVE + " WHERE user_id = ?" + order + " LIMIT ?)" +
+                        order + " LIMIT ? OFFSET ?");
+    }
+
+    @Test
+    void orderIdBreaksTies() {
+        String sql = OrderServiceImpl.ordersAcrossArchiveSql(Sort.by("totalAmount"), false);
+
+        assertThat(sql).doesNotContain("WHERE");
+        assertThat(sql).contains("SELECT order_id, total_amount, 0 AS archived FROM orders_table ORDER BY total_amount ASC, order_id ASC LIMIT ?");
+        assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(4);
+    }
+
+    @Test
+    void unknownSortPropertyIsRejected() {
+        assertThatThrownBy(() -> OrderServiceImpl.ordersAcrossArchiveSql(Sort.by("password"), false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Orders can't be sorted by password");
+    }
+
+    @Test
+    void unsortedHotPageUsesTheSameDefaultAsTheArchivePath() {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.existsById(7L)).thenReturn(true);
+        when(orderRepository.findByUser_UserId(eq(7L), any())).thenReturn(Page.empty());
+        OrderServiceImpl orderService = new OrderServiceImpl(orderRepository, mock(OrderItemRepository.class),
+                mock(ProductRepository.class), userRepository, mock(MbPRepository.class),
+                mock(InventoryRepository.class), mock(StockLedgerService.class), mock(StockHoldService.class),
+                mock(BatchTraceabilityService.class), mock(EmailOutboxService.class), mock(OrderLifecycleService.class),
+                mock(OrderArchiveService.class), mock(OrderCancellationService.class), mock(SalesRollupService.class),
+                mock(ApplicationEventPublisher.class), mock(JdbcTemplate.class));
+
+        orderService.getOrdersByUserId(7L, PageRequest.of(2, 20));
+        orderService.getOrdersByUserId(7L, PageRequest.of(0, 20, Sort.by("totalAmount")));
+
+        ArgumentCaptor<Pageable> pages = ArgumentCaptor.forClass(Pageable.class);
+        verify(orderRepository, times(2)).findByUser_UserId(eq(7L), pages.capture());
+        assertThat(pages.getAllValues().get(0))
+                .isEqualTo(PageRequest.of(2, 20, Sort.by(Sort.Order.desc("placedAt"), Sort.Order.desc("orderId"))));
+        assertThat(pages.getAllValues().get(1).getSort()).isEqualTo(Sort.by("totalAmount"));
+    }
+}
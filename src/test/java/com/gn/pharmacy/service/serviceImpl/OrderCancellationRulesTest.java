@@ -0,0 +1,42 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderCancellationRulesTest {
+
+    @Test
+    void missingStatusIsCancellable() {
+        assertThat(OrderCancellationServiceImpl.isCancellable(null)).isTrue();
+        assertThat(OrderCancellationServiceImpl.isCancellable("  ")).isTrue();
+    }
+
+    @Test
+    void knownStatusesAreNormalisedBeforeTheStateMachineCheck() {
+        assertThat(OrderCancellationServiceImpl.isCancellable("pending")).isTrue();
+        assertThat(OrderCancellationServiceImpl.isCancellable(" Confirmed ")).isTrue();
+        assertThat(OrderCancellationServiceImpl.isCancellable("PROCESSING")).isTrue();
+        assertThat(OrderCancellationServiceImpl.isCancellable("Delivered")).isFalse();
+        assertThat(OrderCancellationServiceImpl.isCancellable("cancelled")).isFalse();
+    }
+
+    @Test
+    void shippedOrdersCanBeCancelledAfterACourierFailure() {
+        assertThat(OrderCancellationServiceImpl.isCancellable("SHIPPED")).isTrue();
+        assertThat(OrderCancellationServiceImpl.isCancellable(" shipped ")).isTrue();
+    }
+
+    @Test
+    void postDeliveryStatesAreRefusedLikeDelivered() {
+        assertThat(OrderCancellationServiceImpl.isCancellable("COMPLETED")).isFalse();
+        assertThat(OrderCancellationServiceImpl.isCancellable("exchange_requested")).isFalse();
+        assertThat(OrderCancellationServiceImpl.isCancellable("EXCHANGE_APPROVED")).isFalse();
+    }
+
+    @Test
+    void statusesOutsideTheEnumAreRefusedOnlyWhenDeliveredOrCancelled() {
+        assertThat(OrderCancellationServiceImpl.isCancellable("Placed")).isTrue();
+        assertThat(OrderCancellationServiceImpl.isCancellable("awaiting payment")).isTrue();
+    }
+}
@@ -0,0 +1,75 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.request.OrderRequestDto;
+import com.gn.pharmacy.dto.response.OrderResponseDto;
+import com.gn.pharmacy.entity.OrderEntity;
+import com.gn.pharmacy.entity.UserEntity;
+import com.gn.pharmacy.repository.*;
+import com.gn.pharmacy.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderCreateStatusTest {
+
+    private OrderRepository orderRepository;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        UserEntity user = new UserEntity();
+        user.setUserId(7L);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        when(orderRepository.save(any(OrderEntity.class))).thenAnswer(inv -> {
+            OrderEntity order = inv.getArgument(0);
+            order.setOrderId(100L);
+            return order;
+        });
+
+        orderService = new OrderServiceImpl(orderRepository, mock(OrderItemRepository.class),
+                mock(ProductRepository.class), userRepository, mock(MbPRepository.class),
+                mock(InventoryRepository.class), mock(StockLedgerService.class), mock(StockHoldService.class),
+                mock(BatchTraceabilityService.class), mock(EmailOutboxService.class), mock(OrderLifecycleService.class),
+                mock(OrderArchiveService.class), mock(OrderCancellationService.class), mock(SalesRollupService.class),
+                mock(ApplicationEventPublisher.class), mock(JdbcTemplate.class));
+    }
+
+    @Test
+    void newOrderWithoutStatusIsPending() {
+        OrderResponseDto response = orderService.createOrder(request(null));
+
+        assertThat(response.getOrderStatus()).isEqualTo("PENDING");
+        verify(orderRepository).save(argThat(order -> "PENDING".equals(order.getOrderStatus())));
+    }
+
+    @Test
+    void clientSuppliedStatusIsNormalised() {
+        assertThat(orderService.createOrder(request(" confirmed ")).getOrderStatus()).isEqualTo("CONFIRMED");
+    }
+
+    @Test
+    void unknownStatusIsRejectedBeforeSaving() {
+        assertThatThrownBy(() -> orderService.createOrder(request("LOST")))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(orderRepository, never()).save(any());
+    }
+
+    private static OrderRequestDto request(String status) {
+        OrderRequestDto request = new OrderRequestDto();
+        request.setUserId(7L);
+        request.setOrderStatus(status);
+        request.setOrderItems(List.of());
+        return request;
+    }
+}
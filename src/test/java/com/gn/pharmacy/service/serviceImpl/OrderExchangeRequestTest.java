@@ -0,0 +1,101 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.request.ExchangeRequestDto;
+import com.gn.pharmacy.dto.response.OrderResponseDto;
+import com.gn.pharmacy.entity.*;
+import com.gn.pharmacy.repository.*;
+import com.gn.pharmacy.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderExchangeRequestTest {
+
+    private OrderItemRepository orderItemRepository;
+    private OrderLifecycleService orderLifecycleService;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderItemRepository = mock(OrderItemRepository.class);
+        orderLifecycleService = mock(OrderLifecycleService.class);
+        orderService = new OrderServiceImpl(mock(OrderRepository.class), orderItemRepository,
+                mock(ProductRepository.class), mock(UserRepository.class), mock(MbPRepository.class),
+                mock(InventoryRepository.class), mock(StockLedgerService.class), mock(StockHoldService.class),
+                mock(BatchTraceabilityService.class), mock(EmailOutboxService.class), orderLifecycleService,
+                mock(OrderArchiveService.class), mock(OrderCancellationService.class), mock(SalesRollupService.class),
+                mock(ApplicationEventPublisher.class), mock(JdbcTemplate.class));
+    }
+
+    @Test
+    void deliveredOrderMovesThroughTheLifecycleEngine() {
+        itemOfOrderWithStatus("DELIVERED");
+
+        OrderResponseDto response = orderService.requestExchange(5L, exchange("L"));
+
+        verify(orderLifecycleService).transition(eq(10L), eq(OrderStatus.EXCHANGE_REQUESTED), isNull(), anyString());
+        assertThat(response.getOrderStatus()).isEqualTo("EXCHANGE_REQUESTED");
+        assertThat(response.getOrderItems().get(0).getExchanges()).hasSize(1);
+    }
+
+    @Test
+    void ordersNotYetDeliveredAreRejected() {
+        for (String status : new String[]{"PENDING", "confirmed", "PROCESSING", "SHIPPED", null}) {
+            itemOfOrderWithStatus(status);
+            assertThatThrownBy(() -> orderService.requestExchange(5L, exchange("L")))
+                    .as(String.valueOf(status))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("delivered orders");
+        }
+        verifyNoInteractions(orderLifecycleService);
+    }
+
+    @Test
+    void cancelledAndExchangingOrdersKeepTheirMessages() {
+        itemOfOrderWithStatus("CANCELLED");
+        assertThatThrownBy(() -> orderService.requestExchange(5L, exchange("L")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Cannot request exchange for cancelled order");
+
+        itemOfOrderWithStatus("EXCHANGE_APPROVED");
+        assertThatThrownBy(() -> orderService.requestExchange(5L, exchange("L")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Order is already in exchange process");
+        verifyNoInteractions(orderLifecycleService);
+    }
+
+    private void itemOfOrderWithStatus(String status) {
+        UserEntity user = new UserEntity();
+        user.setUserId(7L);
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(10L);
+        order.setUser(user);
+        order.setOrderStatus(status);
+        MbPEntity mbp = new MbPEntity();
+        mbp.setId(3L);
+        OrderItemEntity item = new OrderItemEntity();
+        item.setOrderItemId(5L);
+        item.setOrder(order);
+        item.setMbP(mbp);
+        item.setSize("M");
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        when(orderItemRepository.findById(5L)).thenReturn(Optional.of(item));
+    }
+
+    private static ExchangeRequestDto exchange(String size) {
+        ExchangeRequestDto request = new ExchangeRequestDto();
+        request.setExchangeReason("Too small");
+        request.setExchangeSize(size);
+        return request;
+    }
+}
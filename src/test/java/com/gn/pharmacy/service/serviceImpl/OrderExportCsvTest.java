@@ -0,0 +1,38 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderExportCsvTest {
+
+    @Test
+    void plainValuesAreWrittenAsIs() throws IOException {
+        assertThat(csv("Paracetamol 500mg")).isEqualTo("Paracetamol 500mg");
+        assertThat(csv("")).isEmpty();
+        assertThat(csv(" padded ")).isEqualTo(" padded ");
+    }
+
+    @Test
+    void commasAndLineBreaksAreQuoted() throws IOException {
+        assertThat(csv("Syrup, 100ml")).isEqualTo("\"Syrup, 100ml\"");
+        assertThat(csv("line1\nline2")).isEqualTo("\"line1\nline2\"");
+        assertThat(csv("line1\r\nline2")).isEqualTo("\"line1\r\nline2\"");
+    }
+
+    @Test
+    void quotesAreDoubled() throws IOException {
+        assertThat(csv("5\" bandage")).isEqualTo("\"5\"\" bandage\"");
+        assertThat(csv("\"")).isEqualTo("\"\"\"\"");
+        assertThat(csv("a \"b\", c")).isEqualTo("\"a \"\"b\"\", c\"");
+    }
+
+    private static String csv(String value) throws IOException {
+        StringWriter out = new StringWriter();
+        OrderExportServiceImpl.writeCsvValue(value, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,56 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.dto.dashboard.RevenueSeriesDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevenueSeriesFillTest {
+
+    @Test
+    void dailyGapsAreFilledWithZero() {
+        RevenueSeriesDto series = DashboardServiceImpl.fillSeries("day",
+                LocalDate.of(2026, 2, 27), LocalDate.of(2026, 3, 2),
+                Map.of(LocalDate.of(2026, 2, 28), new BigDecimal("12.50"),
+                        LocalDate.of(2026, 3, 2), new BigDecimal("4.00")));
+
+        assertThat(series.labels()).containsExactly("2026-02-27", "2026-02-28", "2026-03-01", "2026-03-02");
+        assertThat(series.revenues()).containsExactly(
+                BigDecimal.ZERO, new BigDecimal("12.50"), BigDecimal.ZERO, new BigDecimal("4.00"));
+    }
+
+    @Test
+    void weeksStartOnMondayBeforeFrom() {
+        // 2026-03-04 is a Wednesday
+        RevenueSeriesDto series = DashboardServiceImpl.fillSeries("week",
+                LocalDate.of(2026, 3, 4), LocalDate.of(2026, 3, 20),
+                Map.of(LocalDate.of(2026, 3, 9), BigDecimal.TEN));
+
+        assertThat(series.labels()).containsExactly("2026-03-02", "2026-03-09", "2026-03-16");
+        assertThat(series.revenues()).containsExactly(BigDecimal.ZERO, BigDecimal.TEN, BigDecimal.ZERO);
+        assertThat(series.from()).isEqualTo(LocalDate.of(2026, 3, 4));
+        assertThat(series.granularity()).isEqualTo("week");
+    }
+
+    @Test
+    void monthsCoverTheWholeYearWithoutData() {
+        RevenueSeriesDto series = DashboardServiceImpl.fillSeries("month",
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), Map.of());
+
+        assertThat(series.labels()).hasSize(12).startsWith("2025-01-01").endsWith("2025-12-01");
+        assertThat(series.revenues()).hasSize(12).containsOnly(BigDecimal.ZERO);
+    }
+
+    @Test
+    void singleDayRange() {
+        RevenueSeriesDto series = DashboardServiceImpl.fillSeries("day",
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 1), Map.of());
+
+        assertThat(series.labels()).containsExactly("2026-01-01");
+        assertThat(series.revenues()).containsExactly(BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,83 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import com.gn.pharmacy.service.OrderArchiveService;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SalesReportPagingTest {
+
+    private static final List<String[]> HOT_AND_ARCHIVE = List.of(
+            new String[]{"orders_table", "order_items"},
+            new String[]{OrderArchiveService.ORDERS_ARCHIVE, OrderArchiveService.ORDER_ITEMS_ARCHIVE});
+
+    @Test
+    void cursorRoundTrips() {
+        ReportsServiceImpl.SalesCursor cursor =
+                new ReportsServiceImpl.SalesCursor(LocalDateTime.of(2026, 3, 1, 9, 30, 15), 4711L);
+        assertThat(ReportsServiceImpl.SalesCursor.parse(cursor.encode())).isEqualTo(cursor);
+
+        ReportsServiceImpl.SalesCursor undated = new ReportsServiceImpl.SalesCursor(null, 12L);
+        assertThat(undated.encode()).isEqualTo("_12");
+        assertThat(ReportsServiceImpl.SalesCursor.parse("_12")).isEqualTo(undated);
+    }
+
+    @Test
+    void malformedCursorFallsBackToPageNumbers() {
+        assertThat(ReportsServiceImpl.SalesCursor.parse(null)).isNull();
+        assertThat(ReportsServiceImpl.SalesCursor.parse(" ")).isNull();
+        assertThat(ReportsServiceImpl.SalesCursor.parse("4711")).isNull();
+        assertThat(ReportsServiceImpl.SalesCursor.parse("yesterday_4711")).isNull();
+        assertThat(ReportsServiceImpl.SalesCursor.parse("2026-03-01T09:30_x")).isNull();
+    }
+
+    @Test
+    void offsetPageCutsEachBranchToOffsetPlusLimit() {
+        List<Object> params = new ArrayList<>();
+        String sql = ReportsServiceImpl.salesPageSql(HOT_AND_ARCHIVE, null, null, null, null, 40, 20, params);
+
+        assertThat(sql).doesNotContain("oi.order_item_id < ?");
+        assertThat(placeholders(sql)).isEqualTo(params.size());
+        // per branch: LIMIT offset + limit; outer: LIMIT limit OFFSET offset
+        assertThat(params).containsExactly(60L, 60L, 20, 40L);
+    }
+
+    @Test
+    void cursorPageReadsOnlyLimitRowsPerBranch() {
+        LocalDateTime placedAt = LocalDateTime.of(2026, 3, 1, 9, 30);
+        LocalDateTime[] range = {LocalDateTime.of(2026, 1, 1, 0, 0), LocalDateTime.of(2026, 4, 1, 0, 0)};
+        List<Object> params = new ArrayList<>();
+        String sql = ReportsServiceImpl.salesPageSql(HOT_AND_ARCHIVE, range, "Tablets", null,
+                new ReportsServiceImpl.SalesCursor(placedAt, 4711L), 1_000_000, 20, params);
+
+        assertThat(sql).contains("(o.placed_at < ? OR (o.placed_at = ? AND oi.order_item_id < ?) OR o.placed_at IS NULL)");
+        assertThat(placeholders(sql)).isEqualTo(params.size());
+
+        Timestamp from = Timestamp.valueOf(range[0]);
+        Timestamp to = Timestamp.valueOf(range[1]);
+        Timestamp after = Timestamp.valueOf(placedAt);
+        assertThat(params).containsExactly(
+                from, to, "Tablets", after, after, 4711L, 20L,
+                from, to, "Tablets", after, after, 4711L, 20L,
+                20, 0L);
+    }
+
+    @Test
+    void undatedCursorStaysAmongUndatedLines() {
+        List<Object> params = new ArrayList<>();
+        String keyset = ReportsServiceImpl.salesKeyset(new ReportsServiceImpl.SalesCursor(null, 99L), params);
+
+        assertThat(keyset).isEqualTo("AND o.placed_at IS NULL AND oi.order_item_id < ? ");
+        assertThat(params).containsExactly(99L);
+        assertThat(ReportsServiceImpl.salesKeyset(null, params)).isEmpty();
+    }
+
+    private static long placeholders(String sql) {
+        return sql.chars().filter(c -> c == '?').count();
+    }
+}
@@ -0,0 +1,111 @@
+package com.gn.pharmacy.service.serviceImpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void countsExactlyBelowCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        sketch.add("p:1", "Aspirin", 2, 20.0);
+        sketch.add("p:2", "Ibuprofen", 1, 15.0);
+        sketch.add("p:1", "Aspirin 100mg", 1, 10.0);
+
+        Map<String, SpaceSavingSketch.Counter> merged = new HashMap<>();
+        assertThat(sketch.mergeInto(merged)).isZero();
+        assertThat(sketch.total()).isEqualTo(45.0);
+
+        SpaceSavingSketch.Counter aspirin = merged.get("p:1");
+        assertThat(aspirin.name).isEqualTo("Aspirin 100mg");
+        assertThat(aspirin.revenue).isEqualTo(30.0);
+        assertThat(aspirin.units).isEqualTo(3);
+        assertThat(aspirin.error).isZero();
+        assertThat(aspirin.unitsError).isZero();
+    }
+
+    @Test
+    void newcomerReplacesTheSmallestAndInheritsRevenueAndUnits() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.add("p:1", "A", 5, 50.0);
+        sketch.add("p:2", "B", 3, 10.0);
+        sketch.add("p:3", "C", 1, 4.0);
+
+        Map<String, SpaceSavingSketch.Counter> merged = new HashMap<>();
+        double unmonitoredBound = sketch.mergeInto(merged);
+
+        assertThat(merged).containsOnlyKeys("p:1", "p:3");
+        SpaceSavingSketch.Counter c = merged.get("p:3");
+        assertThat(c.revenue).isEqualTo(14.0);
+        assertThat(c.error).isEqualTo(10.0);
+        assertThat(c.units).isEqualTo(4);
+        assertThat(c.unitsError).isEqualTo(3);
+        // The true counts lie within [estimate - error, estimate]
+        assertThat(c.revenue - c.error).isEqualTo(4.0);
+        assertThat(c.units - c.unitsError).isEqualTo(1);
+        // Summary is full: an unmonitored item had at most the smallest monitored revenue
+        assertThat(unmonitoredBound).isEqualTo(14.0);
+    }
+
+    @Test
+    void heavyHitterStaysMonitored() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        for (int i = 0; i < 100; i++) {
+            sketch.add("p:heavy", "Heavy", 1, 10.0);
+            sketch.add("p:" + i, "Item " + i, 1, 1.0);
+        }
+        // Heavy has 1000 of 1100 total, well above total / capacity
+        Map<String, SpaceSavingSketch.Counter> merged = new HashMap<>();
+        sketch.mergeInto(merged);
+        SpaceSavingSketch.Counter heavy = merged.get("p:heavy");
+        assertThat(heavy).isNotNull();
+        assertThat(heavy.revenue).isGreaterThanOrEqualTo(1000.0);
+        assertThat(heavy.revenue - heavy.error).isLessThanOrEqualTo(1000.0);
+        assertThat(heavy.units).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void removeAdjustsMonitoredItemsAndNeverGoesNegative() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.add("p:1", "A", 2, 20.0);
+        sketch.remove("p:1", 1, 8.0);
+        sketch.remove("p:9", 1, 5.0);
+
+        Map<String, SpaceSavingSketch.Counter> merged = new HashMap<>();
+        sketch.mergeInto(merged);
+        assertThat(merged.get("p:1").revenue).isEqualTo(12.0);
+        assertThat(merged.get("p:1").units).isEqualTo(1);
+        assertThat(sketch.total()).isEqualTo(7.0);
+
+        sketch.remove("p:1", 5, 100.0);
+        merged.clear();
+        sketch.mergeInto(merged);
+        assertThat(merged.get("p:1").revenue).isZero();
+        assertThat(merged.get("p:1").units).isZero();
+        assertThat(sketch.total()).isZero();
+    }
+
+    @Test
+    void mergeSumsAcrossDays() {
+        SpaceSavingSketch monday = new SpaceSavingSketch(1);
+        monday.add("p:1", "A", 1, 10.0);
+        monday.add("p:2", "B", 2, 5.0);
+        SpaceSavingSketch tuesday = new SpaceSavingSketch(2);
+        tuesday.add("p:2", "B", 1, 7.0);
+
+        Map<String, SpaceSavingSketch.Counter> merged = new HashMap<>();
+        double bound = monday.mergeInto(merged) + tuesday.mergeInto(merged);
+
+        SpaceSavingSketch.Counter b = merged.get("p:2");
+        assertThat(b.revenue).isEqualTo(22.0);
+        assertThat(b.error).isEqualTo(10.0);
+        assertThat(b.units).isEqualTo(4);
+        assertThat(b.unitsError).isEqualTo(1);
+        // Monday is full (bound = its smallest counter), Tuesday is not
+        assertThat(bound).isEqualTo(15.0);
+    }
+}